@@ -0,0 +1,27 @@
+package com.aconex.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.Runner;
+
+/**
+ * Runs the benchmarks with the GC profiler attached so allocation rates are reported next to the timings.
+ * <p/>
+ * Accepts the same arguments as the standard JMH launcher, e.g. a regular expression to pick the benchmarks to run.
+ */
+public final class BenchmarkLauncher {
+    private BenchmarkLauncher() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        final Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,41 @@
+package com.aconex.benchmark;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aconex.PhoneNumberConverter;
+import com.aconex.index.DigitTrieWordIndex;
+import com.aconex.index.WordIndex;
+
+/**
+ * Time taken to load the packaged dictionary into an empty index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IndexLoadBenchmark {
+    @Param({ "map", PhoneNumberConverter.INDEX_TYPE_TRIE })
+    public String indexType;
+
+    @Benchmark
+    public WordIndex loadIndex() {
+        final WordIndex wordIndex = PhoneNumberConverter.INDEX_TYPE_TRIE.equals(indexType) ? new DigitTrieWordIndex() : new WordIndex();
+        final InputStream dictionary = PhoneNumberConverter.class.getResourceAsStream("dictionary");
+        wordIndex.loadIndex(dictionary);
+        return wordIndex;
+    }
+}
@@ -0,0 +1,89 @@
+package com.aconex.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.aconex.PhoneNumberConverter;
+import com.aconex.index.DigitKey;
+import com.aconex.index.DigitTrieWordIndex;
+import com.aconex.index.WordIndex;
+
+/**
+ * Latency of searching the packaged dictionary for numbers that have words and numbers that don't.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexSearchBenchmark {
+    @Param({ "map", PhoneNumberConverter.INDEX_TYPE_TRIE })
+    public String indexType;
+
+    private WordIndex wordIndex;
+    private long[] hitKeys;
+    private long[] missKeys;
+    private String[] hitNumbers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        wordIndex = PhoneNumberConverter.INDEX_TYPE_TRIE.equals(indexType) ? new DigitTrieWordIndex() : new WordIndex();
+        wordIndex.loadIndex(PhoneNumberConverter.class.getResourceAsStream("dictionary"));
+        hitNumbers = NumberCorpus.searchNumbers(wordIndex, NumberCorpus.SIZE, true);
+        hitKeys = toKeys(hitNumbers);
+        missKeys = toKeys(NumberCorpus.searchNumbers(wordIndex, NumberCorpus.SIZE, false));
+    }
+
+    private static long[] toKeys(final String[] numbers) {
+        final long[] keys = new long[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            keys[i] = DigitKey.valueOf(numbers[i]);
+        }
+        return keys;
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return next;
+    }
+
+    @Benchmark
+    public long lookupHit() {
+        return wordIndex.lookup(hitKeys[nextIndex()]);
+    }
+
+    @Benchmark
+    public long lookupMiss() {
+        return wordIndex.lookup(missKeys[nextIndex()]);
+    }
+
+    @Benchmark
+    public long lookupHitFromDigits() {
+        final String number = hitNumbers[nextIndex()];
+        return wordIndex.lookup(number, 0, number.length());
+    }
+
+    @Benchmark
+    public void searchHit(final Blackhole blackhole) {
+        blackhole.consume(wordIndex.search(hitKeys[nextIndex()]));
+    }
+
+    @Benchmark
+    public void searchMiss(final Blackhole blackhole) {
+        blackhole.consume(wordIndex.search(missKeys[nextIndex()]));
+    }
+}
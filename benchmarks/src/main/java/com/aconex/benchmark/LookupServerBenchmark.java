@@ -0,0 +1,105 @@
+package com.aconex.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aconex.PhoneNumberConverter;
+import com.aconex.server.LookupServer;
+
+/**
+ * Throughput of lookups served over HTTP on localhost by several clients at once, reusing connections between
+ * requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+//headers and body are written separately, so without nodelay every response waits for a delayed acknowledgement.
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Threads(4)
+public class LookupServerBenchmark {
+    private static final int DIGITS = 7;
+    private static final int BATCH_SIZE = 64;
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private LookupServer lookupServer;
+    private String[] numbers;
+    private byte[] batch;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException {
+        lookupServer = new LookupServer(new PhoneNumberConverter(), new InetSocketAddress("localhost", 0), 4);
+        lookupServer.start();
+        numbers = NumberCorpus.numbers(NumberCorpus.SIZE, DIGITS);
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            builder.append(numbers[i]).append('\n');
+        }
+        batch = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        lookupServer.close();
+    }
+
+    private HttpURLConnection open(final String pathAndQuery) throws IOException {
+        final InetSocketAddress address = lookupServer.getAddress();
+        return (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), pathAndQuery).openConnection();
+    }
+
+    /**
+     * Reads the whole response so the connection goes back to the pool to be kept alive.
+     */
+    private long readResponse(final HttpURLConnection connection) throws IOException {
+        long length = 0;
+        try (InputStream inputStream = connection.getInputStream()) {
+            final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(readBuffer)) >= 0) {
+                length += read;
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long lookup() throws IOException {
+        final String number = numbers[next.getAndIncrement() & (NumberCorpus.SIZE - 1)];
+        return readResponse(open(LookupServer.LOOKUP_PATH + "?" + LookupServer.NUMBER_PARAMETER + "=" + number));
+    }
+
+    @Benchmark
+    public long batch() throws IOException {
+        final HttpURLConnection connection = open(LookupServer.BATCH_PATH);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(batch.length);
+        try (OutputStream outputStream = connection.getOutputStream()) {
+            outputStream.write(batch);
+        }
+        return readResponse(connection);
+    }
+}
@@ -0,0 +1,58 @@
+package com.aconex.benchmark;
+
+import java.util.Random;
+
+import com.aconex.index.WordIndex;
+import com.aconex.index.WordRange;
+
+/**
+ * Generates the numbers the benchmarks run against. Every corpus comes from a fixed seed so runs can be compared.
+ */
+final class NumberCorpus {
+    static final long SEED = 0x41434F4E4558L;
+    static final int SIZE = 1024;
+
+    private NumberCorpus() {
+    }
+
+    /**
+     * Creates numbers made of random digits.
+     *
+     * @param count  the number of numbers to create.
+     * @param digits the number of digits in each number.
+     */
+    static String[] numbers(final int count, final int digits) {
+        final Random random = new Random(SEED + digits);
+        final String[] numbers = new String[count];
+        final char[] number = new char[digits];
+        for (int i = 0; i < count; i++) {
+            for (int digit = 0; digit < digits; digit++) {
+                number[digit] = (char) ('0' + random.nextInt(10));
+            }
+            numbers[i] = new String(number);
+        }
+        return numbers;
+    }
+
+    /**
+     * Creates numbers made of random keypad digits that either all have words in the index or all don't.
+     *
+     * @param hits whether the numbers should have words.
+     */
+    static String[] searchNumbers(final WordIndex wordIndex, final int count, final boolean hits) {
+        final Random random = new Random(SEED);
+        final String[] numbers = new String[count];
+        int found = 0;
+        while (found < count) {
+            final char[] number = new char[3 + random.nextInt(5)];
+            for (int digit = 0; digit < number.length; digit++) {
+                number[digit] = (char) ('2' + random.nextInt(8));
+            }
+            final String candidate = new String(number);
+            if (WordRange.isEmpty(wordIndex.lookup(candidate, 0, candidate.length())) != hits) {
+                numbers[found++] = candidate;
+            }
+        }
+        return numbers;
+    }
+}
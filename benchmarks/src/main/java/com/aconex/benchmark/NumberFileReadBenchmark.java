@@ -0,0 +1,70 @@
+package com.aconex.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aconex.input.MappedNumberFile;
+import com.aconex.input.NumberSource;
+import com.aconex.input.ReaderNumberSource;
+
+/**
+ * Time taken to read every number of a large file through a reader or by mapping the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NumberFileReadBenchmark {
+    private static final int NUMBER_COUNT = 1000000;
+
+    @Param({ "reader", "mapped" })
+    public String source;
+
+    private File numberFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        numberFile = File.createTempFile("numbers", ".txt");
+        final String[] numbers = NumberCorpus.numbers(NumberCorpus.SIZE, 10);
+        try (PrintStream output = new PrintStream(numberFile)) {
+            for (int i = 0; i < NUMBER_COUNT; i++) {
+                output.println(numbers[i & (NumberCorpus.SIZE - 1)]);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        numberFile.delete();
+    }
+
+    @Benchmark
+    public long readNumbers() throws IOException {
+        long length = 0;
+        try (NumberSource numberSource = "mapped".equals(source) ? new MappedNumberFile(numberFile).open() : new ReaderNumberSource(new FileInputStream(numberFile))) {
+            String number;
+            while ((number = numberSource.nextNumber()) != null) {
+                length += number.length();
+            }
+        }
+        return length;
+    }
+}
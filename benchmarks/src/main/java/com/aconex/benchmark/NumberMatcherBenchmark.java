@@ -0,0 +1,123 @@
+package com.aconex.benchmark;
+
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aconex.Blocklist;
+import com.aconex.MatchScorer;
+import com.aconex.NumberMatcher;
+import com.aconex.PhoneNumberConverter;
+import com.aconex.index.WordIndex;
+
+/**
+ * Throughput of finding the matches for numbers of different lengths against the packaged dictionary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberMatcherBenchmark {
+    private static final int FIRST_PAGE_SIZE = 10;
+    private static final int BLOCKED_WORD_INTERVAL = 50;
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    @Param({ "6", "7", "10", "11" })
+    public int digits;
+
+    private WordIndex wordIndex;
+    private MatchScorer matchScorer;
+    private Blocklist emptyBlocklist;
+    private Blocklist blocklist;
+    private ForkJoinPool pool;
+    private String[] numbers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        wordIndex = new WordIndex();
+        wordIndex.loadIndex(PhoneNumberConverter.class.getResourceAsStream("dictionary"));
+        numbers = NumberCorpus.numbers(NumberCorpus.SIZE, digits);
+        matchScorer = new MatchScorer();
+        pool = new ForkJoinPool();
+        emptyBlocklist = new Blocklist();
+        //block every so many words of the dictionary so some ranges lose words and others are only suspected.
+        blocklist = new Blocklist();
+        try (Scanner scanner = new Scanner(PhoneNumberConverter.class.getResourceAsStream("dictionary"))) {
+            for (int i = 0; scanner.hasNext(); i++) {
+                final String word = scanner.nextLine();
+                if (i % BLOCKED_WORD_INTERVAL == 0) {
+                    blocklist.addWord(word);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Object findMatches() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return new NumberMatcher(wordIndex, numbers[next]).findMatches();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Object findMatchesInOrder() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return new NumberMatcher(wordIndex, numbers[next]).findMatchesInOrder();
+    }
+
+    @Benchmark
+    public long countMatches() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return new NumberMatcher(wordIndex, numbers[next]).countMatches();
+    }
+
+    @Benchmark
+    public Object findFirstMatches() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return new NumberMatcher(wordIndex, numbers[next]).findMatches(FIRST_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object findBestMatches() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return new NumberMatcher(wordIndex, numbers[next]).findBestMatches(FIRST_PAGE_SIZE, matchScorer);
+    }
+
+    @Benchmark
+    public Object findMatchesWithEmptyBlocklist() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return new NumberMatcher(wordIndex, numbers[next], emptyBlocklist).findMatches();
+    }
+
+    @Benchmark
+    public Object findMatchesWithBlocklist() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return new NumberMatcher(wordIndex, numbers[next], blocklist).findMatches();
+    }
+
+    @Benchmark
+    public Object findMatchesInParallel() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return new NumberMatcher(wordIndex, numbers[next]).findMatchesInParallel(pool, PARALLEL_THRESHOLD);
+    }
+}
@@ -0,0 +1,99 @@
+package com.aconex.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aconex.index.Keypad;
+import com.aconex.index.WordIndex;
+import com.aconex.util.TextUtils;
+
+/**
+ * Cost of normalising numbers and dictionary entries, against the regular expressions that used to do the same job.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextNormaliseBenchmark {
+    private static final String[] ENTRIES = { "aardvark", "can't", "co-operate", "Mary-Jane's", "zoo" };
+    private static final byte[][] WORDS = { "aardvark".getBytes(StandardCharsets.US_ASCII), "Gerbil".getBytes(StandardCharsets.US_ASCII),
+            "international".getBytes(StandardCharsets.US_ASCII), "zoo".getBytes(StandardCharsets.US_ASCII) };
+
+    private String[] numbers;
+    private WordIndex wordIndex;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final String[] digits = NumberCorpus.numbers(NumberCorpus.SIZE, 10);
+        numbers = new String[digits.length];
+        for (int i = 0; i < digits.length; i++) {
+            numbers[i] = "1800-" + digits[i].substring(0, 3) + " " + digits[i].substring(3);
+        }
+        wordIndex = new WordIndex();
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (NumberCorpus.SIZE - 1);
+        return next;
+    }
+
+    @Benchmark
+    public String normaliseNumber() {
+        return TextUtils.normaliseNumber(numbers[nextIndex()]);
+    }
+
+    @Benchmark
+    public String normaliseNumberWithRegex() {
+        final String stripped = numbers[nextIndex()].replaceAll("\\W", "");
+        final String digits = stripped.replaceFirst("1800", "");
+        for (int i = 0; i < digits.length(); i++) {
+            if (digits.charAt(i) < '0' || digits.charAt(i) > '9') {
+                return null;
+            }
+        }
+        return digits.isEmpty() ? null : digits;
+    }
+
+    @Benchmark
+    public String stripEntry() {
+        return TextUtils.stripRedundantCharacters(ENTRIES[nextIndex() % ENTRIES.length]);
+    }
+
+    @Benchmark
+    public String stripEntryWithRegex() {
+        return ENTRIES[nextIndex() % ENTRIES.length].replaceAll("\\W", "").toUpperCase();
+    }
+
+    /**
+     * Encodes a word of ASCII letters straight from its bytes, which is how most dictionary lines are loaded in parallel.
+     */
+    @Benchmark
+    public long encodeWord() {
+        final byte[] word = WORDS[nextIndex() & (WORDS.length - 1)];
+        return Keypad.encode(word, 0, word.length);
+    }
+
+    /**
+     * Strips, upper cases and encodes an entry. Entries that are already indexed are only checked, so the index doesn't
+     * grow during the run.
+     */
+    @Benchmark
+    public WordIndex loadEntry() {
+        wordIndex.loadIndex(ENTRIES[nextIndex() % ENTRIES.length]);
+        return wordIndex;
+    }
+}
@@ -0,0 +1,59 @@
+package com.aconex;
+
+import java.util.Arrays;
+
+import com.aconex.index.DigitKey;
+import com.aconex.index.WordLookup;
+import com.aconex.index.WordRange;
+
+/**
+ * The index positions of the words a matcher has looked up once any blocked words are dropped, so the words left can
+ * still be handed around as a range. Ranges from {@link #removeBlocked(long, CharSequence, int, int)} are positions in
+ * here rather than in the index and are turned back into index positions with {@link #indexPosition(int)}.
+ * <p/>
+ * Positions are only ever added, so ranges stay valid for as long as the instance is held.
+ */
+final class AllowedWords {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final WordLookup wordIndex;
+    private final Blocklist blocklist;
+    private int[] positions;
+    private int count;
+
+    AllowedWords(final WordLookup wordIndex, final Blocklist blocklist) {
+        this.wordIndex = wordIndex;
+        this.blocklist = blocklist;
+    }
+
+    /**
+     * Drops any blocked words from the range of words for the digits between start and end, handing back a range of
+     * the positions left. The words are only checked if the blocklist might hold a word with those digits.
+     */
+    long removeBlocked(final long words, final CharSequence digits, final int start, final int end) {
+        if (WordRange.isEmpty(words)) {
+            return words;
+        }
+        final boolean mightBlock = blocklist.mightBlock(DigitKey.valueOf(digits, start, end));
+        if (positions == null) {
+            positions = new int[Math.max(INITIAL_CAPACITY, WordRange.size(words))];
+        } else if (count + WordRange.size(words) > positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(positions.length * 2, count + WordRange.size(words)));
+        }
+        final int allowedStart = count;
+        for (int position = WordRange.start(words); position < WordRange.end(words); position++) {
+            if (!mightBlock || !blocklist.isBlocked(wordIndex.getWord(position))) {
+                positions[count++] = position;
+            }
+        }
+        return (count > allowedStart) ? WordRange.of(allowedStart, count - allowedStart) : WordRange.EMPTY;
+    }
+
+    /**
+     * Gets the position in the index of a position from a range handed out by {@link #removeBlocked(long, CharSequence,
+     * int, int)}.
+     */
+    int indexPosition(final int position) {
+        return positions[position];
+    }
+}
@@ -0,0 +1,142 @@
+package com.aconex;
+
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.Set;
+
+import com.aconex.index.DigitKey;
+import com.aconex.index.Keypad;
+import com.aconex.util.TextUtils;
+
+/**
+ * Words that must never appear in a match, see {@link NumberMatcher#NumberMatcher(com.aconex.index.WordIndex, String,
+ * Blocklist)}.
+ * <p/>
+ * All the words of a range from the index share the same keypad digits, so the digits of each blocked word are held in
+ * a Bloom filter that's checked once per range. Almost every range gets a definite no from a few bit tests and is used
+ * as it is. Only ranges whose digits might be blocked have their words checked against the exact set of blocked words.
+ * <p/>
+ * Words are loaded before matching starts and the blocklist isn't changed while it's being matched against.
+ */
+public class Blocklist {
+    private static final int BITS_PER_WORD = 16;
+    private static final int HASH_COUNT = 6;
+    private static final int MIN_BITS = Long.SIZE;
+
+    private final Set<String> words = new HashSet<>();
+    private long[] bits = new long[1];
+
+    /**
+     * Reads a blocked word from each line of the stream. Blank lines are ignored.
+     *
+     * @param inputStream the inputStream containing the words to be blocked.
+     */
+    public void loadWords(final InputStream inputStream) {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Stream cannot be null");
+        }
+
+        try (Scanner scanner = new Scanner(inputStream)) {
+            while (scanner.hasNext()) {
+                addWord(scanner.nextLine());
+            }
+        }
+    }
+
+    /**
+     * Blocks a word. Words are matched the same way as the dictionary, ignoring case, whitespace and punctuation, and
+     * words that can't be written on a keypad are ignored as they can never be matched.
+     */
+    public void addWord(final String word) {
+        final String strippedWord = TextUtils.stripRedundantCharacters(word);
+        if (strippedWord == null) {
+            return;
+        }
+        final String upperCaseWord = strippedWord.toUpperCase(Locale.ENGLISH);
+        final long key = encode(upperCaseWord);
+        if (key == DigitKey.INVALID || !words.add(upperCaseWord)) {
+            return;
+        }
+        if ((long) words.size() * BITS_PER_WORD > (long) bits.length * Long.SIZE) {
+            rebuild();
+        } else {
+            setBits(bits, key);
+        }
+    }
+
+    private static long encode(final String word) {
+        return Keypad.encode(word.toCharArray(), 0, word.length());
+    }
+
+    /**
+     * Sizes the filter for the words held so far, keeping false positives to a fraction of a percent.
+     */
+    private void rebuild() {
+        final long[] newBits = new long[(int) (Math.max(MIN_BITS, Long.highestOneBit((long) words.size() * BITS_PER_WORD * 2)) / Long.SIZE)];
+        for (final String word : words) {
+            setBits(newBits, encode(word));
+        }
+        bits = newBits;
+    }
+
+    private static void setBits(final long[] bits, final long key) {
+        final int mask = bits.length * Long.SIZE - 1;
+        final int firstHash = DigitKey.hash(key);
+        final int secondHash = secondHash(key);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final int bit = (firstHash + i * secondHash) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * An odd hash independent of {@link DigitKey#hash(long)} so every probe of a filter lands in a different place.
+     * This is the finaliser of murmur3, which shares no multiplier with the key's own hash.
+     */
+    private static int secondHash(final long key) {
+        long mixed = key ^ (key >>> 33);
+        mixed *= 0xFF51AFD7ED558CCDL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xC4CEB9FE1A85EC53L;
+        mixed ^= mixed >>> 33;
+        return (int) mixed | 1;
+    }
+
+    public boolean isEmpty() {
+        return words.isEmpty();
+    }
+
+    /**
+     * Gets the number of distinct words blocked.
+     */
+    public int size() {
+        return words.size();
+    }
+
+    /**
+     * Checks whether any blocked word might have the keypad digits of the key. False means none of them do, true
+     * means the words have to be checked with {@link #isBlocked(String)}.
+     */
+    public boolean mightBlock(final long key) {
+        final long[] currentBits = bits;
+        final int mask = currentBits.length * Long.SIZE - 1;
+        final int firstHash = DigitKey.hash(key);
+        final int secondHash = secondHash(key);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final int bit = (firstHash + i * secondHash) & mask;
+            if ((currentBits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a word as it's held in the index is blocked.
+     */
+    public boolean isBlocked(final String word) {
+        return words.contains(word);
+    }
+}
@@ -1,12 +1,40 @@
 package com.aconex;
 
 import java.io.Console;
+import java.io.FileDescriptor;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.util.Arrays;
 
+import com.aconex.output.BufferedMatchSink;
+import com.aconex.output.ConsoleMatchSink;
+import com.aconex.output.JsonLinesMatchSink;
+import com.aconex.output.MatchSink;
+import com.aconex.output.TsvMatchSink;
+import com.aconex.server.LookupServer;
+import com.aconex.util.TextUtils;
+
 /**
  * Base launcher to handle command line input and main method stuff.
  */
 public class CodingChallengeLauncher {
+    public static final String SYS_PROP_OUTPUT_FILE = "output.file";
+    public static final String SYS_PROP_OUTPUT_BUFFERED = "output.buffered";
+    public static final String SYS_PROP_OUTPUT_FORMAT = "output.format";
+    public static final String OUTPUT_FORMAT_TEXT = "text";
+    public static final String OUTPUT_FORMAT_TSV = "tsv";
+    public static final String OUTPUT_FORMAT_JSON = "json";
+    public static final String PIPE_ARGUMENT = "-";
+    /**
+     * Picks the dictionary the files after it are matched against, such as --dictionary=brands.
+     */
+    public static final String DICTIONARY_ARGUMENT = "--dictionary=";
+    public static final String SYS_PROP_SERVER_PORT = "server.port";
+    public static final String SYS_PROP_SERVER_THREADS = "server.threads";
+    private static final String SYS_PROP_HTTP_SERVER_NODELAY = "sun.net.httpserver.nodelay";
     private static final String EXIT_COMMAND = "exit";
     private PhoneNumberConverter phoneNumberConverter;
 
@@ -15,11 +43,98 @@ public class CodingChallengeLauncher {
     }
 
     public static void main(String[] args) {
-        new CodingChallengeLauncher(new PhoneNumberConverter()).processArgs(args);
+        final Integer serverPort = Integer.getInteger(SYS_PROP_SERVER_PORT);
+        if (serverPort != null) {
+            startServer(serverPort);
+            return;
+        }
+        new CodingChallengeLauncher(new PhoneNumberConverter(null, createMatchSink(isPipe(args)))).processArgs(args);
+    }
+
+    /**
+     * Checks whether numbers should be read from standard in, which is asked for with a single
+     * {@value #PIPE_ARGUMENT} argument.
+     */
+    static boolean isPipe(final String[] args) {
+        return args != null && args.length == 1 && PIPE_ARGUMENT.equals(args[0]);
+    }
+
+    /**
+     * Creates where output is written. Output goes to the file set through the {@link #SYS_PROP_OUTPUT_FILE} system
+     * property, or to standard out through a large buffer if {@link #SYS_PROP_OUTPUT_BUFFERED} is true. Otherwise each
+     * line is written straight to the console.
+     * <p/>
+     * The {@link #SYS_PROP_OUTPUT_FORMAT} system property picks between the text written to the console, tab separated
+     * lines or JSON lines, where each number is written on a single line. Anything other than text is always buffered.
+     * Numbers read from a pipe are written as tab separated lines unless another format is asked for.
+     *
+     * @param pipe whether numbers are being read from standard in.
+     */
+    static MatchSink createMatchSink(final boolean pipe) {
+        final String outputFormat = System.getProperty(SYS_PROP_OUTPUT_FORMAT, pipe ? OUTPUT_FORMAT_TSV : OUTPUT_FORMAT_TEXT);
+        final boolean text = OUTPUT_FORMAT_TEXT.equalsIgnoreCase(outputFormat);
+        if (!text && !OUTPUT_FORMAT_TSV.equalsIgnoreCase(outputFormat) && !OUTPUT_FORMAT_JSON.equalsIgnoreCase(outputFormat)) {
+            throw new IllegalArgumentException("Output format must be one of text, tsv or json");
+        }
+
+        final OutputStream outputStream;
+        final String outputFileLocation = System.getProperty(SYS_PROP_OUTPUT_FILE);
+        if (!TextUtils.isEmpty(outputFileLocation)) {
+            try {
+                outputStream = new FileOutputStream(outputFileLocation);
+            } catch (FileNotFoundException e) {
+                throw new IllegalArgumentException("Couldn't create output file.", e);
+            }
+        } else if (Boolean.getBoolean(SYS_PROP_OUTPUT_BUFFERED) || pipe || !text) {
+            outputStream = new FileOutputStream(FileDescriptor.out);
+        } else {
+            return new ConsoleMatchSink();
+        }
+
+        if (OUTPUT_FORMAT_TSV.equalsIgnoreCase(outputFormat)) {
+            return new TsvMatchSink(outputStream);
+        }
+        if (OUTPUT_FORMAT_JSON.equalsIgnoreCase(outputFormat)) {
+            return new JsonLinesMatchSink(outputStream);
+        }
+        return new BufferedMatchSink(outputStream);
+    }
+
+    /**
+     * Serves lookups over HTTP on the port set through the {@link #SYS_PROP_SERVER_PORT} system property until the
+     * process is stopped, using as many threads as set through {@link #SYS_PROP_SERVER_THREADS} or one per processor.
+     */
+    static LookupServer startServer(final int port) {
+        //headers and body are written separately, so without this every response on a kept alive connection waits for
+        //the client's delayed acknowledgement. Only read when the first server is created so it's set beforehand.
+        if (System.getProperty(SYS_PROP_HTTP_SERVER_NODELAY) == null) {
+            System.setProperty(SYS_PROP_HTTP_SERVER_NODELAY, Boolean.TRUE.toString());
+        }
+        final int threads = Integer.getInteger(SYS_PROP_SERVER_THREADS, Runtime.getRuntime().availableProcessors());
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+        final LookupServer lookupServer;
+        try {
+            lookupServer = new LookupServer(phoneNumberConverter, new InetSocketAddress(port), threads);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Couldn't listen on port " + port, e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lookupServer.close();
+                phoneNumberConverter.close();
+            }
+        }, "lookup-server-shutdown"));
+        lookupServer.start();
+        System.out.println("Serving lookups on " + lookupServer.getAddress());
+        return lookupServer;
     }
 
     void processArgs(String[] args) {
-        if (args == null || args.length == 0) {
+        if (isPipe(args)) {
+            //nothing but results can be written to standard out as it's likely to be read by another process.
+            phoneNumberConverter.processNumbers(System.in);
+        } else if (args == null || args.length == 0) {
             Console console = System.console();
             if (console == null) {
                 System.err.println("No console is available to accept input. Please supply a file containing numbers to convert to words.");
@@ -32,14 +147,22 @@ public class CodingChallengeLauncher {
                     keepRunning = false;
                 } else {
                     phoneNumberConverter.processNumber(number);
+                    phoneNumberConverter.flush();
                 }
             }
         } else {
-            System.out.println("Files to process: " + Arrays.toString(args));
+            //standard out only holds results as it may be read as a stream of records.
+            System.err.println("Files to process: " + Arrays.toString(args));
+            String dictionary = null;
             for (String arg : args) {
-                phoneNumberConverter.processFile(arg);
+                if (arg.startsWith(DICTIONARY_ARGUMENT)) {
+                    dictionary = arg.substring(DICTIONARY_ARGUMENT.length());
+                } else {
+                    phoneNumberConverter.processFile(arg, dictionary);
+                }
             }
         }
+        phoneNumberConverter.close();
         System.exit(0);
     }
 }
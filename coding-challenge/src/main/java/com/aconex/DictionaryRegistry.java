@@ -0,0 +1,326 @@
+package com.aconex;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.aconex.index.DigitTrieWordIndex;
+import com.aconex.index.WordArena;
+import com.aconex.index.WordIndex;
+import com.aconex.metrics.Metrics;
+import com.aconex.util.TextUtils;
+
+/**
+ * Named dictionaries that are only loaded into an index when they're first asked for, so numbers can be matched
+ * against a different word list per request or per file.
+ * <p/>
+ * Indexes share a {@link WordArena}, so words that appear in several dictionaries are only held once. Loaded indexes
+ * are dropped again, least recently used first, once together with their arenas they're estimated to use more than the
+ * memory budget, and any index that hasn't been asked for in longer than the idle time is dropped as well. Dropping an
+ * index doesn't affect numbers already being matched against it, and it's loaded again the next time it's asked for.
+ * <p/>
+ * Words can't be taken out of an arena while indexes still use their offsets, so once an index sharing the arena is
+ * dropped, indexes loaded after it share a new arena instead. An arena is only counted against the budget while a
+ * loaded index holds its words, and is freed along with the last of them, so the words of dropped indexes don't pile up.
+ * <p/>
+ * Asking for a loaded index doesn't lock anything, and loading one dictionary doesn't hold up asking for the others.
+ * Dictionaries are loaded into the same type of index as the default dictionary, except that a prebuilt index can only
+ * be used for the default dictionary so a word list is loaded into the default index type in its place.
+ */
+public class DictionaryRegistry implements Closeable {
+    /**
+     * The name standing for the default dictionary, which is never looked up in a registry and can't be registered.
+     */
+    public static final String DEFAULT_DICTIONARY = "default";
+    private static final Logger LOGGER = Logger.getLogger(DictionaryRegistry.class.getName());
+
+    private final long memoryBudget;
+    private final long idleNanos;
+    private final boolean trie;
+    private volatile WordArena arena = new WordArena(true);
+    private final ConcurrentMap<String, Dictionary> dictionaries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService idleChecker;
+
+    /**
+     * Constructor.
+     *
+     * @param memoryBudget the most bytes the loaded indexes and the arenas holding their words should be estimated to
+     *                     use. The index asked for is always kept, even if it's over the budget on its own.
+     * @param idleMillis   how long an index is kept without being asked for. 0 or less keeps indexes however long
+     *                     they're idle.
+     */
+    public DictionaryRegistry(final long memoryBudget, final long idleMillis) {
+        this(memoryBudget, idleMillis, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param memoryBudget the most bytes the loaded indexes and the arenas holding their words should be estimated to
+     *                     use. The index asked for is always kept, even if it's over the budget on its own.
+     * @param idleMillis   how long an index is kept without being asked for. 0 or less keeps indexes however long
+     *                     they're idle.
+     * @param trie         whether dictionaries are loaded into a {@link DigitTrieWordIndex} rather than a
+     *                     {@link WordIndex}.
+     */
+    public DictionaryRegistry(final long memoryBudget, final long idleMillis, final boolean trie) {
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("Memory budget must be at least 1");
+        }
+        this.memoryBudget = memoryBudget;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, idleMillis));
+        this.trie = trie;
+        if (idleMillis > 0) {
+            idleChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "dictionary-idle-check");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            idleChecker.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    evictIdle();
+                }
+            }, idleMillis, idleMillis, TimeUnit.MILLISECONDS);
+        } else {
+            idleChecker = null;
+        }
+    }
+
+    /**
+     * Registers a dictionary file under a name. The file isn't read until the dictionary is first asked for.
+     *
+     * @param name           the name the dictionary is asked for by. Must not be empty, already registered or
+     *                       {@link #DEFAULT_DICTIONARY}.
+     * @param dictionaryFile a file of words, one per line. Must not be null.
+     */
+    public void register(final String name, final File dictionaryFile) {
+        if (TextUtils.isEmpty(name)) {
+            throw new IllegalArgumentException("Name cannot be empty");
+        }
+        if (DEFAULT_DICTIONARY.equals(name)) {
+            throw new IllegalArgumentException(String.format("Dictionary %s is reserved for the default dictionary.", name));
+        }
+        if (dictionaryFile == null) {
+            throw new IllegalArgumentException("Dictionary file cannot be null");
+        }
+        if (dictionaries.putIfAbsent(name, new Dictionary(name, dictionaryFile)) != null) {
+            throw new IllegalArgumentException(String.format("Dictionary %s is already registered.", name));
+        }
+    }
+
+    /**
+     * Registers each dictionary of a list of name=file pairs separated by commas, such as
+     * "brands=brands.txt,fr=french.txt".
+     */
+    public void registerAll(final String dictionaryList) {
+        for (final String entry : dictionaryList.split(",")) {
+            final int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException(String.format("Dictionary %s must be given as name=file.", entry.trim()));
+            }
+            register(entry.substring(0, separator).trim(), new File(entry.substring(separator + 1).trim()));
+        }
+    }
+
+    public boolean isRegistered(final String name) {
+        return name != null && dictionaries.containsKey(name);
+    }
+
+    /**
+     * Gets the names of the registered dictionaries in alphabetical order.
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(dictionaries.keySet()));
+    }
+
+    /**
+     * Whether a dictionary is currently loaded into an index.
+     */
+    public boolean isLoaded(final String name) {
+        final Dictionary dictionary = dictionaries.get(name);
+        return dictionary != null && dictionary.index != null;
+    }
+
+    /**
+     * Gets the index of a dictionary, loading it first if it isn't loaded. Loading may drop other indexes to keep
+     * within the memory budget.
+     *
+     * @throws IllegalArgumentException if no dictionary is registered under the name or its file can't be found.
+     */
+    public WordIndex getIndex(final String name) {
+        final Dictionary dictionary = (name != null) ? dictionaries.get(name) : null;
+        if (dictionary == null) {
+            throw new IllegalArgumentException(String.format("Unknown dictionary %s.", name));
+        }
+        dictionary.lastUsedNanos = System.nanoTime();
+        final WordIndex index = dictionary.index;
+        if (index != null) {
+            return index;
+        }
+        final WordIndex loadedIndex = dictionary.load();
+        //loading may have taken longer than the idle time.
+        dictionary.lastUsedNanos = System.nanoTime();
+        evictOverBudget(dictionary);
+        return loadedIndex;
+    }
+
+    /**
+     * Drops the least recently used indexes other than the one just asked for until the rest fit in the budget.
+     */
+    private synchronized void evictOverBudget(final Dictionary keep) {
+        long bytes = estimateMemoryUsage();
+        while (bytes > memoryBudget) {
+            Dictionary leastRecentlyUsed = null;
+            for (final Dictionary dictionary : dictionaries.values()) {
+                //compared by difference as nanoTime can wrap.
+                if (dictionary != keep && dictionary.index != null
+                        && (leastRecentlyUsed == null || dictionary.lastUsedNanos - leastRecentlyUsed.lastUsedNanos < 0)) {
+                    leastRecentlyUsed = dictionary;
+                }
+            }
+            if (leastRecentlyUsed == null) {
+                LOGGER.log(Level.FINE, "Dictionary {0} is over the memory budget on its own.", keep.name);
+                return;
+            }
+            drop(leastRecentlyUsed, "the memory budget was reached");
+            //an arena is only freed along with the last index holding its words, so it's counted again.
+            bytes = estimateMemoryUsage();
+        }
+    }
+
+    /**
+     * Drops every index that hasn't been asked for within the idle time. Called periodically when there is an idle
+     * time.
+     */
+    public synchronized void evictIdle() {
+        if (idleNanos == 0) {
+            return;
+        }
+        final long now = System.nanoTime();
+        for (final Dictionary dictionary : dictionaries.values()) {
+            if (dictionary.index != null && now - dictionary.lastUsedNanos > idleNanos) {
+                drop(dictionary, "it was idle");
+            }
+        }
+    }
+
+    /**
+     * Drops the index of a dictionary, moving later loads on to a new arena if the index shared the current one so the
+     * words it held can be freed once the other indexes sharing it are dropped too.
+     */
+    private void drop(final Dictionary dictionary, final String reason) {
+        if (dictionary.evict(reason) == arena) {
+            arena = new WordArena(true);
+        }
+    }
+
+    /**
+     * Estimates the heap used by every loaded index and the arenas holding their words. Arenas that no loaded index
+     * holds words in aren't counted as nothing keeps them.
+     */
+    public long estimateMemoryUsage() {
+        long bytes = 0;
+        final Set<WordArena> arenas = Collections.newSetFromMap(new IdentityHashMap<WordArena, Boolean>());
+        for (final Dictionary dictionary : dictionaries.values()) {
+            final WordIndex index = dictionary.index;
+            final WordArena indexArena = dictionary.indexArena;
+            if (index != null) {
+                bytes += index.estimateMemoryUsage();
+                if (indexArena != null && arenas.add(indexArena)) {
+                    bytes += indexArena.estimateMemoryUsage();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the arena indexes loaded from now on will share.
+     */
+    WordArena getArena() {
+        return arena;
+    }
+
+    /**
+     * Stops checking for idle indexes.
+     */
+    @Override
+    public void close() {
+        if (idleChecker != null) {
+            idleChecker.shutdownNow();
+        }
+    }
+
+    /**
+     * A registered dictionary and its index while it's loaded.
+     */
+    private final class Dictionary {
+        private final String name;
+        private final File file;
+        private volatile WordIndex index;
+        private volatile WordArena indexArena;
+        private volatile long lastUsedNanos;
+
+        private Dictionary(final String name, final File file) {
+            this.name = name;
+            this.file = file;
+        }
+
+        /**
+         * Loads the dictionary unless another thread got there first, in which case its index is used.
+         */
+        private synchronized WordIndex load() {
+            if (index != null) {
+                return index;
+            }
+            final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+            final WordArena newArena = arena;
+            final WordIndex newIndex = trie ? new DigitTrieWordIndex(newArena) : new WordIndex(newArena);
+            try {
+                newIndex.loadIndex(new FileInputStream(file));
+            } catch (FileNotFoundException e) {
+                throw new IllegalArgumentException(String.format("Couldn't locate file of dictionary %s to be loaded.", name), e);
+            }
+            indexArena = newArena;
+            index = newIndex;
+            if (Metrics.ENABLED) {
+                Metrics.get().recordDictionaryLoad(System.nanoTime() - startNanos);
+            }
+            LOGGER.log(Level.FINE, "Loaded dictionary {0} of {1} words.", new Object[]{ name, newIndex.getIndexedCount() });
+            return newIndex;
+        }
+
+        /**
+         * Drops the index.
+         *
+         * @return the arena the index held its words in, or null if it wasn't loaded.
+         */
+        private synchronized WordArena evict(final String reason) {
+            final WordArena evictedArena = indexArena;
+            if (index == null) {
+                return null;
+            }
+            index = null;
+            indexArena = null;
+            LOGGER.log(Level.FINE, "Dropped dictionary {0} as {1}.", new Object[]{ name, reason });
+            return evictedArena;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.aconex;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a dictionary file and runs an action whenever it's created or changed.
+ * <p/>
+ * The directory holding the file is watched on a daemon thread. Writing a file usually raises several events, so the
+ * action is only run once events for the file have stopped arriving for a short while. A failing action is logged and
+ * the file carries on being watched, so a dictionary that's mid-way through being replaced is picked up on the next
+ * change.
+ */
+public class DictionaryWatcher implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(DictionaryWatcher.class.getName());
+    static final long SETTLE_MILLIS = 200;
+
+    private final Path file;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starts watching the file provided.
+     *
+     * @param file     the file to watch. Must not be null.
+     * @param onChange run each time the file changes. Must not be null.
+     */
+    public DictionaryWatcher(final File file, final Runnable onChange) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        if (onChange == null) {
+            throw new IllegalArgumentException("OnChange cannot be null");
+        }
+        this.file = file.getAbsoluteFile().toPath();
+        this.onChange = onChange;
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "dictionary-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean changed = hasChanged(watchService.take());
+                //wait for the file to settle before acting on it.
+                WatchKey nextKey;
+                while ((nextKey = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= hasChanged(nextKey);
+                }
+                if (changed) {
+                    runAction();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //closed so stop watching.
+        }
+    }
+
+    private boolean hasChanged(final WatchKey key) {
+        boolean changed = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            //events may have been lost on overflow so the file could have changed.
+            if (event.kind() == OVERFLOW || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void runAction() {
+        try {
+            onChange.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, String.format("Couldn't act on the change to %s.", file), e);
+        }
+    }
+
+    /**
+     * Stops watching the file.
+     */
+    @Override
+    public void close() {
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Couldn't close watch service.", e);
+        }
+    }
+}
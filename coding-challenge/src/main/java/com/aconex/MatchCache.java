@@ -0,0 +1,157 @@
+package com.aconex;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aconex.index.WordLookup;
+import com.aconex.util.TextUtils;
+
+/**
+ * Bounded cache of the matches for numbers, evicting the least recently used number once it's full.
+ * <p/>
+ * Numbers are cached by their normalised value so different ways of writing the same number share an entry. Every entry
+ * belongs to the index it was matched against, and the whole cache is dropped as soon as it's used with a different
+ * index or the words of the index change, so a reloaded dictionary never returns stale matches.
+ * <p/>
+ * The cache is safe to use from several threads. Matching is done outside the lock so a slow number doesn't hold up
+ * other threads.
+ */
+public class MatchCache {
+    private final int capacity;
+    private final Blocklist blocklist;
+    private final Map<String, List<String>> entries;
+    private WordLookup cachedIndex;
+    private int cachedModificationCount;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the most numbers to hold matches for. Must be at least 1.
+     */
+    public MatchCache(final int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity  the most numbers to hold matches for. Must be at least 1.
+     * @param blocklist words left out of every match. May be null.
+     */
+    public MatchCache(final int capacity, final Blocklist blocklist) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.blocklist = blocklist;
+        this.entries = new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, List<String>> eldest) {
+                if (size() > MatchCache.this.capacity) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the matches for a number, matching it against the index if it isn't already cached.
+     *
+     * @return the matches in the order they were generated. The list can't be modified.
+     */
+    public List<String> getMatches(final WordLookup wordIndex, final String number) {
+        return getMatches(wordIndex, number, TextUtils.normaliseNumber(number));
+    }
+
+    /**
+     * Gets the matches for a number whose digits have already been parsed, see
+     * {@link NumberMatcher#NumberMatcher(WordLookup, String, String, Blocklist)}.
+     */
+    List<String> getMatches(final WordLookup wordIndex, final String number, final String matchingValue) {
+        final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, number, matchingValue, blocklist);
+        if (matchingValue == null) {
+            return Collections.emptyList();
+        }
+
+        final int modificationCount = wordIndex.getModificationCount();
+        synchronized (this) {
+            invalidateIfChanged(wordIndex, modificationCount);
+            final List<String> matches = entries.get(matchingValue);
+            if (matches != null) {
+                hitCount++;
+                return matches;
+            }
+            missCount++;
+        }
+
+        final List<String> matches = findMatches(numberMatcher);
+        synchronized (this) {
+            //only keep the matches if the index didn't change while they were being found.
+            if (cachedIndex == wordIndex && cachedModificationCount == modificationCount && wordIndex.getModificationCount() == modificationCount) {
+                entries.put(matchingValue, matches);
+            }
+        }
+        return matches;
+    }
+
+    private void invalidateIfChanged(final WordLookup wordIndex, final int modificationCount) {
+        if (cachedIndex != wordIndex || cachedModificationCount != modificationCount) {
+            entries.clear();
+            cachedIndex = wordIndex;
+            cachedModificationCount = modificationCount;
+        }
+    }
+
+    private List<String> findMatches(final NumberMatcher numberMatcher) {
+        return Collections.unmodifiableList(numberMatcher.findMatchesInOrder());
+    }
+
+    /**
+     * Removes every cached number. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups that had to be matched against the index.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of entries removed to make room for others. Entries dropped because the index changed aren't
+     * counted.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("MatchCache[size=%d, capacity=%d, hits=%d, misses=%d, evictions=%d]", entries.size(), capacity, hitCount, missCount, evictionCount);
+    }
+}
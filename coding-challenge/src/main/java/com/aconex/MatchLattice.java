@@ -0,0 +1,164 @@
+package com.aconex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.aconex.index.PrefixMatchListener;
+import com.aconex.index.WordLookup;
+import com.aconex.index.WordRange;
+
+/**
+ * Every way a number can be broken into words, held as a lattice of the word segments starting at each offset.
+ * <p/>
+ * The lattice is built with one prefix walk per offset so building it is linear in the length of the number. Once built
+ * it records, for each offset, whether the remainder of the number can still be completed when the previous segment was
+ * a word or an untouched digit. Two untouched digits are never allowed next to each other.
+ * <p/>
+ * Blocked words are dropped from each segment as it's found, so a segment left without words isn't part of the
+ * lattice at all.
+ */
+final class MatchLattice {
+    private final WordLookup wordIndex;
+    private final AllowedWords allowedWords;
+    private final String digits;
+    private final List<List<Segment>> segmentsFrom;
+    private final boolean[] completesAfterWord;
+    private final boolean[] completesAfterDigit;
+
+    /**
+     * Constructor.
+     *
+     * @param blocklist words that are never matched, or null to match every word.
+     */
+    MatchLattice(final WordLookup wordIndex, final String digits, final Blocklist blocklist) {
+        this.wordIndex = wordIndex;
+        this.allowedWords = (blocklist != null) ? new AllowedWords(wordIndex, blocklist) : null;
+        this.digits = digits;
+        final int length = digits.length();
+
+        segmentsFrom = new ArrayList<>(length);
+        for (int start = 0; start < length; start++) {
+            final List<Segment> segments = new ArrayList<>();
+            final int segmentStart = start;
+            wordIndex.walkPrefixes(digits, start, new PrefixMatchListener() {
+                @Override
+                public void onMatch(final int end, final long range) {
+                    final long allowedRange = (allowedWords != null) ? allowedWords.removeBlocked(range, digits, segmentStart, end) : range;
+                    if (!WordRange.isEmpty(allowedRange)) {
+                        segments.add(new Segment(end, allowedRange));
+                    }
+                }
+            });
+            segmentsFrom.add(segments.isEmpty() ? Collections.<Segment>emptyList() : segments);
+        }
+
+        //work backwards from the end of the number so each offset only needs to look at offsets already resolved.
+        completesAfterWord = new boolean[length + 1];
+        completesAfterDigit = new boolean[length + 1];
+        completesAfterWord[length] = true;
+        completesAfterDigit[length] = true;
+        for (int position = length - 1; position >= 0; position--) {
+            boolean wordCompletes = false;
+            for (final Segment segment : segmentsFrom.get(position)) {
+                if (completesAfterWord[segment.end]) {
+                    wordCompletes = true;
+                    break;
+                }
+            }
+            completesAfterDigit[position] = wordCompletes;
+            completesAfterWord[position] = wordCompletes || (canUseDigit(position) && completesAfterDigit[position + 1]);
+        }
+    }
+
+    String getDigits() {
+        return digits;
+    }
+
+    int length() {
+        return digits.length();
+    }
+
+    /**
+     * Gets a word from the range of a segment.
+     */
+    String getWord(final int position) {
+        return wordIndex.getWord((allowedWords != null) ? allowedWords.indexPosition(position) : position);
+    }
+
+    /**
+     * Gets the word segments starting at the offset provided in increasing order of where they end.
+     */
+    List<Segment> getSegmentsFrom(final int position) {
+        return segmentsFrom.get(position);
+    }
+
+    /**
+     * Whether the number can be completed from the offset provided when the previous segment was a word, or when
+     * starting at the beginning of the number.
+     */
+    boolean completesAfterWord(final int position) {
+        return completesAfterWord[position];
+    }
+
+    /**
+     * Whether the number can be completed from the offset provided when the previous segment was an untouched digit.
+     */
+    boolean completesAfterDigit(final int position) {
+        return completesAfterDigit[position];
+    }
+
+    /**
+     * Whether the digit at the offset can be left untouched. A number that is a single digit needs a word so there is at
+     * least one to output.
+     */
+    boolean canUseDigit(final int position) {
+        return position < digits.length() && digits.length() > 1;
+    }
+
+    /**
+     * Counts the chains that can be made from the whole number. The count stops at {@link Long#MAX_VALUE} rather than
+     * overflowing.
+     */
+    long countChains() {
+        final int length = digits.length();
+        final long[] afterWord = new long[length + 1];
+        final long[] afterDigit = new long[length + 1];
+        afterWord[length] = 1;
+        afterDigit[length] = 1;
+        for (int position = length - 1; position >= 0; position--) {
+            long wordChains = 0;
+            for (final Segment segment : segmentsFrom.get(position)) {
+                wordChains = addCapped(wordChains, multiplyCapped(WordRange.size(segment.range), afterWord[segment.end]));
+            }
+            afterDigit[position] = wordChains;
+            afterWord[position] = canUseDigit(position) ? addCapped(wordChains, afterDigit[position + 1]) : wordChains;
+        }
+        return afterWord[0];
+    }
+
+    private static long addCapped(final long a, final long b) {
+        final long sum = a + b;
+        return (sum < 0) ? Long.MAX_VALUE : sum;
+    }
+
+    private static long multiplyCapped(final long a, final long b) {
+        if (a != 0 && b > Long.MAX_VALUE / a) {
+            return Long.MAX_VALUE;
+        }
+        return a * b;
+    }
+
+    /**
+     * The range of words that match the digits from the offset a segment is held against up to its end.
+     */
+    static final class Segment {
+        final int end;
+        final long range;
+
+        Segment(final int end, final long range) {
+            this.end = end;
+            this.range = range;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.aconex;
+
+/**
+ * Receives the matches for a number as they are generated, so they don't need to be collected before being used.
+ */
+public interface MatchListener {
+    /**
+     * Called once for each match of the number.
+     *
+     * @param match the match formatted for output including the 1-800 prefix. It should be copied if it's needed after
+     *              this call returns.
+     */
+    void onMatch(CharSequence match);
+}
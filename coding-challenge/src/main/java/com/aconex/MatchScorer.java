@@ -0,0 +1,116 @@
+package com.aconex;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.aconex.util.TextUtils;
+
+/**
+ * Scores matches so the best of them can be picked out, see {@link NumberMatcher#findBestMatches(int, MatchScorer)}.
+ * <p/>
+ * Each word of a match scores the square of its length, so one long word beats several short words covering the same
+ * digits, and every segment of the match costs {@link #SEGMENT_PENALTY}. Words can also be given a frequency, which
+ * adds the log of the frequency to their score so common words are preferred over obscure ones of the same length.
+ */
+public class MatchScorer {
+    private static final Logger LOGGER = Logger.getLogger(MatchScorer.class.getName());
+    static final double SEGMENT_PENALTY = 1;
+
+    private final Map<String, Double> weights = new HashMap<>();
+    private double maxWeight;
+
+    /**
+     * Loads word frequencies from a stream. Each line holds a word followed by whitespace and how often it's used.
+     * Blank lines are ignored, as are any other lines that can't be read once they have been logged.
+     *
+     * @param inputStream the inputStream containing the frequencies to be loaded.
+     */
+    public void loadWeights(final InputStream inputStream) {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Stream cannot be null");
+        }
+
+        try (Scanner scanner = new Scanner(inputStream)) {
+            int lineNumber = 0;
+            while (scanner.hasNext()) {
+                final String line = scanner.nextLine().trim();
+                lineNumber++;
+                if (TextUtils.isEmpty(line)) {
+                    continue;
+                }
+                final String[] fields = line.split("\\s+");
+                try {
+                    if (fields.length != 2) {
+                        throw new NumberFormatException();
+                    }
+                    setFrequency(fields[0], Long.parseLong(fields[1]));
+                } catch (IllegalArgumentException e) {
+                    LOGGER.log(Level.WARNING, "Ignoring line {0} of weights as it isn''t a word and a frequency: {1}", new Object[]{ lineNumber, line });
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets how often a word is used. Words are matched the same way as the dictionary, ignoring case, whitespace and
+     * punctuation.
+     *
+     * @param frequency how often the word is used. Must not be negative.
+     */
+    public void setFrequency(final String word, final long frequency) {
+        final String strippedWord = TextUtils.stripRedundantCharacters(word);
+        if (strippedWord == null) {
+            throw new IllegalArgumentException("Word cannot be empty");
+        }
+        if (frequency < 0) {
+            throw new IllegalArgumentException("Frequency cannot be negative");
+        }
+        final double weight = Math.log1p(frequency);
+        weights.put(strippedWord.toUpperCase(Locale.ENGLISH), weight);
+        maxWeight = Math.max(maxWeight, weight);
+    }
+
+    /**
+     * Gets the weight a word adds to the score of a match, which is 0 for words without a frequency.
+     *
+     * @param word a word as it's held in the index.
+     */
+    public double getWeight(final String word) {
+        final Double weight = weights.get(word);
+        return (weight != null) ? weight : 0;
+    }
+
+    /**
+     * Gets the largest weight of any word, so the best score a match could still get can be worked out before its
+     * words are known.
+     */
+    public double getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Scores a word of the given length before its weight is added.
+     */
+    double scoreLength(final int length) {
+        return (double) length * length;
+    }
+
+    /**
+     * Scores a whole match made of the words and digits provided.
+     */
+    public double score(final String... parts) {
+        double score = 0;
+        for (final String part : parts) {
+            score -= SEGMENT_PENALTY;
+            if (!Character.isDigit(part.charAt(0))) {
+                score += scoreLength(part.length()) + getWeight(part);
+            }
+        }
+        return score;
+    }
+}
@@ -1,17 +1,52 @@
 package com.aconex;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import com.aconex.index.WordIndex;
+import com.aconex.index.PrefixMatchListener;
+import com.aconex.index.WordLookup;
+import com.aconex.index.WordRange;
+import com.aconex.metrics.Metrics;
 import com.aconex.util.TextUtils;
 
 /**
  * Class to do the heavy work when it comes to the logic for matching numbers to words.
+ * <p/>
+ * Matching first works out which combinations of word ranges and untouched digits fit the number, which only takes a
+ * handful of index lookups. The matches themselves are the cross product of the words in each combination and are only
+ * generated as they're asked for, so a caller that only wants the first few doesn't pay for the rest.
+ * <p/>
+ * Words on a {@link Blocklist} are dropped from each range as it's looked up, before any combination is worked out, so
+ * a blocked word never costs more than the lookup that found it.
+ * <p/>
+ * Numbers with a great many matches can have them generated on a fork-join pool, see
+ * {@link #findMatchesInParallel(ForkJoinPool, int)}. Each combination's cross product is independent of the others, so the
+ * combinations, and the words of any combination too big on its own, are split between tasks.
  */
-public class NumberMatcher {
-    private Integer matchingValue;
-    private WordIndex wordIndex;
+public class NumberMatcher implements Iterable<String> {
+    private String matchingValue;
+    private WordLookup wordIndex;
+    private final Blocklist blocklist;
+    private int lookupCount;
+    /**
+     * The words left once blocked words are dropped, while there's a blocklist. Each time the combinations are worked
+     * out they start anew, so an iterator from an earlier call keeps the positions its ranges refer to.
+     */
+    private AllowedWords allowedWords;
+    /**
+     * The combinations worked out by {@link #countMatches()}, kept so the matches counted can then be generated without
+     * looking the number up again. They're only used once, by whichever call generates matches next.
+     */
+    private List<Combination> countedCombinations;
 
     /**
      * Constructor.
@@ -19,28 +54,36 @@ public class NumberMatcher {
      * @param wordIndex      the index containing values that can be matched. Must not be null.
      * @param numberAsString the string representation of the value to get matching words for the number. Must not be empty.
      */
-    public NumberMatcher(final WordIndex wordIndex, final String numberAsString) {
-        checkArguments(wordIndex, numberAsString);
-        this.wordIndex = wordIndex;
-        this.matchingValue = determineMatchingValue(numberAsString);
+    public NumberMatcher(final WordLookup wordIndex, final String numberAsString) {
+        this(wordIndex, numberAsString, null);
     }
 
-    private Integer determineMatchingValue(final String numberAsString) {
-        String strippedValue = TextUtils.stripRedundantCharacters(numberAsString);
+    /**
+     * Constructor.
+     *
+     * @param wordIndex      the index containing values that can be matched. Must not be null.
+     * @param numberAsString the string representation of the value to get matching words for the number. Must not be empty.
+     * @param blocklist      words that are never matched, as if they weren't in the index. May be null.
+     */
+    public NumberMatcher(final WordLookup wordIndex, final String numberAsString, final Blocklist blocklist) {
+        this(wordIndex, numberAsString, TextUtils.normaliseNumber(numberAsString), blocklist);
+    }
 
-        Integer matchingValue = null;
-        if (strippedValue != null) {
-            strippedValue = strippedValue.replaceFirst("1800", "");
-            try {
-                matchingValue = Integer.valueOf(strippedValue);
-            } catch (NumberFormatException e) {
-                matchingValue = null;
-            }
-        }
-        return matchingValue;
+    /**
+     * Constructor for a number whose digits have already been parsed, such as by a
+     * {@link com.aconex.input.NormalisedNumberSource}.
+     *
+     * @param matchingValue the digits of the number normalised by {@link TextUtils#normaliseNumber(CharSequence)}.
+     */
+    NumberMatcher(final WordLookup wordIndex, final String numberAsString, final String matchingValue, final Blocklist blocklist) {
+        checkArguments(wordIndex, numberAsString);
+        this.wordIndex = wordIndex;
+        this.matchingValue = matchingValue;
+        //an empty blocklist is dropped so matching without one costs nothing extra.
+        this.blocklist = (blocklist != null && !blocklist.isEmpty()) ? blocklist : null;
     }
 
-    private void checkArguments(final WordIndex wordIndex, final String numberAsString) {
+    private void checkArguments(final WordLookup wordIndex, final String numberAsString) {
         if (wordIndex == null) {
             throw new IllegalArgumentException("Word Index cannot be null");
         }
@@ -52,13 +95,13 @@ public class NumberMatcher {
 
     /**
      * Gets the value that is going to be used to find numbers in the index. This has transformation performed on it
-     * to bring back a normalised value as an integer.
+     * to bring back a normalised value containing only digits. Leading zeros are kept.
      * <p/>
      * If the number provided starts with "1800" this is also stripped from the value to match
      *
-     * @return the full value that can be matched for a word.
+     * @return the full value that can be matched for a word or null if the number contained anything other than digits.
      */
-    public Integer getMatchingValue() {
+    public String getMatchingValue() {
         return matchingValue;
     }
 
@@ -70,132 +113,672 @@ public class NumberMatcher {
      * numbers in the value to match.
      */
     public Set<String> findMatches() {
-        final Set<String> matches = new HashSet<>();
-        matches.addAll(findFullWordMatches());
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        final List<Combination> combinations = takeCombinations();
+        final long count = countMatches(combinations);
+        //matches are distinct by construction, so the set is only sized up front to save it being rehashed as it grows.
+        final Set<String> matches = new HashSet<>((int) Math.min(Integer.MAX_VALUE, count * 4 / 3 + 1));
+        final Iterator<String> iterator = new MatchIterator(combinations);
+        while (iterator.hasNext()) {
+            matches.add(iterator.next());
+        }
+        if (Metrics.ENABLED) {
+            recordMatch(startNanos, count);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns every match in the order they're passed to a {@link MatchListener}. The matches are counted from the
+     * combinations first, so they're written straight into a list of the right size and each is only held once.
+     */
+    public List<String> findMatchesInOrder() {
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        final List<Combination> combinations = takeCombinations();
+        final String[] matches = newMatches(countMatches(combinations));
+        generateMatches(combinations, matches, 0);
+        if (Metrics.ENABLED) {
+            recordMatch(startNanos, matches.length);
+        }
+        return Arrays.asList(matches);
+    }
 
-        if (matches.isEmpty()) {
-            matches.addAll(findMultiWordMatches());
+    /**
+     * Returns at most the first limit matches, in the order they're generated. Only the matches returned are
+     * generated.
+     *
+     * @param limit the most matches to return. Must not be negative.
+     */
+    public List<String> findMatches(final int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
         }
+        final List<String> matches = new ArrayList<>(Math.min(limit, 16));
+        findMatches(new MatchListener() {
+            @Override
+            public void onMatch(final CharSequence match) {
+                matches.add(match.toString());
+            }
+        }, limit);
         return matches;
     }
 
-    private Set<String> findFullWordMatches() {
-        if (getMatchingValue() != null) {
-            return generateOutput(wordIndex.search(getMatchingValue()));
+    /**
+     * Passes the same matches as {@link #findMatches()} to the listener as they are generated instead of collecting
+     * them. Each match is only passed once as the words of each key in the index are distinct and the dashes of
+     * different combinations fall in different places.
+     */
+    public void findMatches(final MatchListener listener) {
+        findMatches(listener, Long.MAX_VALUE);
+    }
+
+    /**
+     * Passes at most the first limit matches to the listener, stopping without generating any more once the limit is
+     * reached. Time spent in the listener isn't recorded as time spent matching.
+     *
+     * @return the number of matches passed to the listener.
+     */
+    public long findMatches(final MatchListener listener, final long limit) {
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        long matchingNanos = 0;
+        long resumedNanos = startNanos;
+        long count = 0;
+        final Iterator<String> iterator = iterator();
+        while (count < limit && iterator.hasNext()) {
+            final String match = iterator.next();
+            if (Metrics.ENABLED) {
+                //time spent in the listener, such as writing the match out, isn't part of matching.
+                matchingNanos += System.nanoTime() - resumedNanos;
+            }
+            listener.onMatch(match);
+            count++;
+            if (Metrics.ENABLED) {
+                resumedNanos = System.nanoTime();
+            }
         }
-        return new HashSet<>();
+        if (Metrics.ENABLED) {
+            matchingNanos += System.nanoTime() - resumedNanos;
+            Metrics.get().recordMatch(matchingNanos, lookupCount, count);
+            lookupCount = 0;
+        }
+        return count;
     }
 
     /**
-     * Finds matching options for:
+     * Returns the same matches as {@link #findMatches(MatchListener)} in the same order, generating them on the pool
+     * provided when there are enough of them to be worth it. Numbers with fewer matches than the threshold, which is
+     * nearly every short number, are matched on the calling thread without involving the pool.
+     * <p/>
+     * The matches are counted from the combinations first so each task can write its share straight into its place in
+     * the result, leaving nothing to merge once the tasks are done.
+     *
+     * @param pool      the pool to generate the matches on. Must not be null.
+     * @param threshold the fewest matches to split between tasks, which is also the most each task generates. Must be
+     *                  at least 1.
+     */
+    public List<String> findMatchesInParallel(final ForkJoinPool pool, final int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be at least 1");
+        }
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        final List<Combination> combinations = takeCombinations();
+        final long count = countMatches(combinations);
+        final String[] matches = newMatches(count);
+        final MatchTask task = new MatchTask(combinations, count, 0, matches, threshold);
+        if (count < threshold) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        if (Metrics.ENABLED) {
+            recordMatch(startNanos, count);
+        }
+        return Arrays.asList(matches);
+    }
+
+    /**
+     * Returns the best limit matches according to the scorer, best first. Matches with the same score are kept in the
+     * order they're generated.
+     * <p/>
+     * Only the best matches found so far are kept, in a heap of the size asked for. Combinations are tried best first
+     * and any combination or partly built match that can't beat the worst match kept is skipped without generating its
+     * matches, so numbers with a huge number of matches cost little more than those with a few.
+     *
+     * @param limit  the most matches to return. Must not be negative.
+     * @param scorer scores the matches. Must not be null.
+     */
+    public List<String> findBestMatches(final int limit, final MatchScorer scorer) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        if (scorer == null) {
+            throw new IllegalArgumentException("Scorer cannot be null");
+        }
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        final List<Combination> combinations = takeCombinations();
+        final List<ScoredCombination> scoredCombinations = new ArrayList<>(combinations.size());
+        for (int i = 0; i < combinations.size(); i++) {
+            scoredCombinations.add(new ScoredCombination(combinations.get(i), i, scorer));
+        }
+        //the sort is stable so combinations with the same best score stay in the order they're generated.
+        Collections.sort(scoredCombinations);
+
+        final BestMatches bestMatches = new BestMatches(limit);
+        for (final ScoredCombination scoredCombination : scoredCombinations) {
+            if (!bestMatches.couldAccept(scoredCombination.bestScore)) {
+                //every combination after this one scores even less.
+                break;
+            }
+            final Combination combination = scoredCombination.combination;
+            collectBestMatches(bestMatches, scorer, scoredCombination, 0, scoredCombination.baseScore, 0, new String[combination.length()]);
+        }
+        final List<String> matches = bestMatches.toList();
+        if (Metrics.ENABLED) {
+            recordMatch(startNanos, matches.size());
+        }
+        return matches;
+    }
+
+    /**
+     * Fills in the parts of a match from the given part onwards, offering each complete match to the best matches.
+     *
+     * @param score   the score of the match so far, with the weights of the words filled in already included.
+     * @param ordinal the position in the combination of the match so far, to keep the order matches are generated in.
+     */
+    private void collectBestMatches(final BestMatches bestMatches, final MatchScorer scorer, final ScoredCombination scoredCombination,
+                                    final int part, final double score, final long ordinal, final String[] parts) {
+        final Combination combination = scoredCombination.combination;
+        if (!bestMatches.couldAccept(score + scoredCombination.wordPartsFrom(part) * scorer.getMaxWeight())) {
+            return;
+        }
+        if (part == combination.length()) {
+            bestMatches.offer(score, scoredCombination.index, ordinal, parts);
+            return;
+        }
+        if (combination.isDigit(part)) {
+            parts[part] = combination.digits[part];
+            collectBestMatches(bestMatches, scorer, scoredCombination, part + 1, score, ordinal, parts);
+            return;
+        }
+        final long words = combination.words[part];
+        for (int word = WordRange.start(words); word < WordRange.end(words); word++) {
+            parts[part] = wordIndex.getWord(indexPosition(word));
+            collectBestMatches(bestMatches, scorer, scoredCombination, part + 1, score + scorer.getWeight(parts[part]),
+                    ordinal * WordRange.size(words) + word - WordRange.start(words), parts);
+        }
+    }
+
+    /**
+     * Records how long finding the matches took along with the index lookups made since the last time matches were
+     * recorded, which includes those for counting the matches first.
+     */
+    private void recordMatch(final long startNanos, final long matchCount) {
+        Metrics.get().recordMatch(System.nanoTime() - startNanos, lookupCount, matchCount);
+        lookupCount = 0;
+    }
+
+    /**
+     * Enumerates the matches one at a time in the same order they're passed to a {@link MatchListener}. Each match is
+     * only generated when it's asked for.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new MatchIterator(takeCombinations());
+    }
+
+    /**
+     * Counts the matches {@link #findMatches()} would return from the sizes of the word ranges, without generating any
+     * of them. The combinations counted are kept for the next call that generates the matches, so counting them first
+     * doesn't cost any more lookups.
+     */
+    public long countMatches() {
+        if (countedCombinations == null) {
+            countedCombinations = findCombinations();
+        }
+        return countMatches(countedCombinations);
+    }
+
+    /**
+     * Gets the combinations worked out by {@link #countMatches()} if they haven't been used yet, otherwise works them
+     * out again so the matches reflect the index as it is now.
+     */
+    private List<Combination> takeCombinations() {
+        final List<Combination> combinations = countedCombinations;
+        if (combinations == null) {
+            return findCombinations();
+        }
+        countedCombinations = null;
+        return combinations;
+    }
+
+    private static long countMatches(final List<Combination> combinations) {
+        long count = 0;
+        for (final Combination combination : combinations) {
+            count += combination.size();
+        }
+        return count;
+    }
+
+    private String[] newMatches(final long count) {
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalStateException(String.format("Too many matches to collect for %s.", matchingValue));
+        }
+        return new String[(int) count];
+    }
+
+    /**
+     * Writes the matches of the combinations into the array provided, starting at the offset.
+     */
+    private void generateMatches(final List<Combination> combinations, final String[] matches, final int offset) {
+        int next = offset;
+        final Iterator<String> iterator = new MatchIterator(combinations);
+        while (iterator.hasNext()) {
+            matches[next++] = iterator.next();
+        }
+    }
+
+    /**
+     * Finds the combinations of words and digits that match the whole number. If there are full word matches they're
+     * the only combination, otherwise the combinations are for:
      * <ul>
      * <li>word-word</li>
-     * <li>digit-word</li>
      * <li>word-digit-word</li>
      * <li>word-digit</li>
+     * <li>digit-word</li>
      * </ul>
-     *
-     * @return the set of words complete for output including the 1-800 prefix.
      */
-    private Set<String> findMultiWordMatches() {
-        final Set<String> matches = new HashSet<>();
-        if (getMatchingValue() == null) {
-            return matches;
+    private List<Combination> findCombinations() {
+        final List<Combination> combinations = new ArrayList<>();
+        allowedWords = (blocklist != null) ? new AllowedWords(wordIndex, blocklist) : null;
+        final String matchingValueAsString = getMatchingValue();
+        if (matchingValueAsString == null) {
+            return combinations;
+        }
+        final long fullWords = findMatches(matchingValueAsString, 0);
+        if (hasValues(fullWords)) {
+            combinations.add(new Combination(fullWords));
+            return combinations;
         }
 
-        final String matchingValueAsString = String.valueOf(getMatchingValue());
+        //walk the number once to find every word the number starts with, then complete each of them.
+        lookupCount++;
+        wordIndex.walkPrefixes(matchingValueAsString, 0, new PrefixMatchListener() {
+            @Override
+            public void onMatch(final int i, final long prefixWords) {
+                if (i == matchingValueAsString.length()) {
+                    //full word matches are handled separately.
+                    return;
+                }
+                final long firstPartWords = removeBlocked(prefixWords, matchingValueAsString, 0, i);
+                //word-word option
+                addCombination(combinations, new Combination(firstPartWords, null, findMatches(matchingValueAsString, i)));
 
-        for (int i = 1; i < matchingValueAsString.length(); i++) {
-            final String firstPart = matchingValueAsString.substring(0, i);
-            final Set<String> firstPartWords = findMatches(firstPart);
-            if (!hasValues(firstPartWords)) {
-                continue;
+                //get the current character to see whether there are matches when excluding it from a search for the remainder.
+                final String currentDigit = TextUtils.digitAsString(matchingValueAsString.charAt(i));
+                if (isLastCharacter(matchingValueAsString, i)) {
+                    //word-digit option
+                    addCombination(combinations, new Combination(firstPartWords, currentDigit));
+                } else {
+                    //word-digit-word option
+                    addCombination(combinations, new Combination(firstPartWords, currentDigit, findMatches(matchingValueAsString, i + 1)));
+                }
             }
-            //generate any output for word-word option
-            matches.addAll(generateOutput(firstPartWords, findMatches(matchingValueAsString.substring(i))));
+        });
+        //digit-word option
+        addCombination(combinations, new Combination(TextUtils.digitAsString(matchingValueAsString.charAt(0)), findMatches(matchingValueAsString, 1)));
+        return combinations;
+    }
 
-            //get the current character to see whether there are matches when excluding it from a search for the remainder.
-            final char currentDigit = matchingValueAsString.charAt(i);
-            if (isLastCharacter(matchingValueAsString, i)) {
-                //generate any output for word-digit option
-                matches.addAll(generateOutput(firstPartWords, currentDigit));
-            } else {
-                //generate any output for word-digit-word option
-                matches.addAll(generateOutput(firstPartWords, currentDigit, findMatches(matchingValueAsString.substring(i + 1))));
-            }
+    private void addCombination(final List<Combination> combinations, final Combination combination) {
+        if (combination.size() > 0) {
+            combinations.add(combination);
         }
-        //generate any output for digit-word option
-        matches.addAll(generateOutput(matchingValueAsString.charAt(0), findMatches(matchingValueAsString.substring(1))));
-        return matches;
     }
 
-    private Set<String> findMatches(final String searchValue) {
-        return wordIndex.search(Integer.parseInt(searchValue));
+    private long findMatches(final String searchValue, final int start) {
+        lookupCount++;
+        return removeBlocked(wordIndex.lookup(searchValue, start, searchValue.length()), searchValue, start, searchValue.length());
+    }
+
+    private long removeBlocked(final long words, final String digits, final int start, final int end) {
+        return (allowedWords != null) ? allowedWords.removeBlocked(words, digits, start, end) : words;
+    }
+
+    /**
+     * Gets the position in the index of a position from a range handed out by the matcher.
+     */
+    private int indexPosition(final int position) {
+        return indexPosition(allowedWords, position);
+    }
+
+    private static int indexPosition(final AllowedWords allowedWords, final int position) {
+        return (allowedWords == null) ? position : allowedWords.indexPosition(position);
     }
 
     private boolean isLastCharacter(final String matchingValueAsString, final int i) {
         return i == matchingValueAsString.length() - 1;
     }
 
-    private boolean hasValues(final Set<String> words) {
-        return words != null && !words.isEmpty();
+    private boolean hasValues(final long words) {
+        return !WordRange.isEmpty(words);
     }
 
-    private boolean hasValues(final Set<String> words, final Set<String> moreWords) {
-        return hasValues(words) && hasValues(moreWords);
-    }
+    /**
+     * The parts of a match in order, each either a range of words or an untouched digit.
+     */
+    private static final class Combination {
+        private final long[] words;
+        private final String[] digits;
+
+        private Combination(final long words) {
+            this.words = new long[]{ words };
+            this.digits = new String[1];
+        }
 
-    private Set<String> generateOutput(final Set<String> firstWords, final Set<String> secondWords) {
-        final Set<String> output = new HashSet<>();
-        if (hasValues(firstWords, secondWords)) {
-            for (final String firstWord : firstWords) {
-                for (final String secondPartWord : secondWords) {
-                    output.add(TextUtils.joinAs1800Number(firstWord, secondPartWord));
+        private Combination(final long firstWords, final String digit) {
+            this.words = new long[]{ firstWords, WordRange.EMPTY };
+            this.digits = new String[]{ null, digit };
+        }
+
+        private Combination(final String digit, final long secondWords) {
+            this.words = new long[]{ WordRange.EMPTY, secondWords };
+            this.digits = new String[]{ digit, null };
+        }
+
+        private Combination(final long firstWords, final String digit, final long secondWords) {
+            if (digit == null) {
+                this.words = new long[]{ firstWords, secondWords };
+                this.digits = new String[2];
+            } else {
+                this.words = new long[]{ firstWords, WordRange.EMPTY, secondWords };
+                this.digits = new String[]{ null, digit, null };
+            }
+        }
+
+        private Combination(final long[] words, final String[] digits) {
+            this.words = words;
+            this.digits = digits;
+        }
+
+        /**
+         * Gets a copy of the combination with the range of words of one part replaced.
+         */
+        private Combination withWords(final int part, final long partWords) {
+            final long[] newWords = words.clone();
+            newWords[part] = partWords;
+            return new Combination(newWords, digits);
+        }
+
+        private int length() {
+            return words.length;
+        }
+
+        private boolean isDigit(final int part) {
+            return digits[part] != null;
+        }
+
+        /**
+         * Gets the number of matches the combination makes, which is zero if any of its word ranges are empty.
+         */
+        private long size() {
+            long size = 1;
+            for (int part = 0; part < words.length; part++) {
+                if (!isDigit(part)) {
+                    size *= WordRange.size(words[part]);
                 }
             }
+            return size;
         }
-        return output;
     }
 
-    private Set<String> generateOutput(final Set<String> firstWords, final char firstChar, final Set<String> secondWords) {
-        final Set<String> output = new HashSet<>();
-        if (hasValues(firstWords, secondWords)) {
-            for (final String firstWord : firstWords) {
-                for (final String secondWord : secondWords) {
-                    output.add(TextUtils.joinAs1800Number(firstWord, String.valueOf(firstChar), secondWord));
+    /**
+     * A combination along with the scores its matches start from and could at best reach.
+     */
+    private final class ScoredCombination implements Comparable<ScoredCombination> {
+        private final Combination combination;
+        private final int index;
+        private final int[] wordPartsFrom;
+        private final double baseScore;
+        private final double bestScore;
+
+        private ScoredCombination(final Combination combination, final int index, final MatchScorer scorer) {
+            this.combination = combination;
+            this.index = index;
+            this.wordPartsFrom = new int[combination.length() + 1];
+            double score = 0;
+            for (int part = combination.length() - 1; part >= 0; part--) {
+                score -= MatchScorer.SEGMENT_PENALTY;
+                wordPartsFrom[part] = wordPartsFrom[part + 1];
+                if (!combination.isDigit(part)) {
+                    //every word in a range has the same key so they're all as long as the first.
+                    score += scorer.scoreLength(wordIndex.getWordLength(indexPosition(WordRange.start(combination.words[part]))));
+                    wordPartsFrom[part]++;
                 }
             }
+            this.baseScore = score;
+            this.bestScore = score + wordPartsFrom[0] * scorer.getMaxWeight();
+        }
+
+        private int wordPartsFrom(final int part) {
+            return wordPartsFrom[part];
+        }
+
+        @Override
+        public int compareTo(final ScoredCombination other) {
+            return Double.compare(other.bestScore, bestScore);
+        }
+    }
+
+    /**
+     * Bounded heap of the best matches found so far, with the worst of them at the head.
+     */
+    private static final class BestMatches {
+        private final int limit;
+        private final PriorityQueue<ScoredMatch> heap;
+
+        private BestMatches(final int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.max(1, limit));
+        }
+
+        /**
+         * Checks whether a match with the given score could be kept, allowing for it being generated before the worst
+         * match kept with the same score.
+         */
+        private boolean couldAccept(final double score) {
+            return limit > 0 && (heap.size() < limit || score >= heap.peek().score);
+        }
+
+        private void offer(final double score, final int combination, final long ordinal, final String[] parts) {
+            if (heap.size() < limit) {
+                heap.add(new ScoredMatch(score, combination, ordinal, TextUtils.joinAs1800Number(parts)));
+                return;
+            }
+            final ScoredMatch worst = heap.peek();
+            if (score > worst.score || (score == worst.score && worst.isAfter(combination, ordinal))) {
+                heap.poll();
+                heap.add(new ScoredMatch(score, combination, ordinal, TextUtils.joinAs1800Number(parts)));
+            }
+        }
+
+        private List<String> toList() {
+            final String[] matches = new String[heap.size()];
+            for (int i = matches.length - 1; i >= 0; i--) {
+                matches[i] = heap.poll().match;
+            }
+            return Arrays.asList(matches);
         }
-        return output;
     }
 
-    private Set<String> generateOutput(final Set<String> words, final char number) {
-        final Set<String> output = new HashSet<>();
-        if (hasValues(words)) {
-            for (final String firstWord : words) {
-                output.add(TextUtils.joinAs1800Number(firstWord, String.valueOf(number)));
+    /**
+     * A match kept by {@link BestMatches}, ordered worst first.
+     */
+    private static final class ScoredMatch implements Comparable<ScoredMatch> {
+        private final double score;
+        private final int combination;
+        private final long ordinal;
+        private final String match;
+
+        private ScoredMatch(final double score, final int combination, final long ordinal, final String match) {
+            this.score = score;
+            this.combination = combination;
+            this.ordinal = ordinal;
+            this.match = match;
+        }
+
+        private boolean isAfter(final int otherCombination, final long otherOrdinal) {
+            return combination > otherCombination || (combination == otherCombination && ordinal > otherOrdinal);
+        }
+
+        @Override
+        public int compareTo(final ScoredMatch other) {
+            final int byScore = Double.compare(score, other.score);
+            if (byScore != 0) {
+                return byScore;
             }
+            //later matches are worse than earlier ones with the same score.
+            return isAfter(other.combination, other.ordinal) ? -1 : (other.isAfter(combination, ordinal) ? 1 : 0);
         }
-        return output;
     }
 
-    private Set<String> generateOutput(final char number, final Set<String> words) {
-        final Set<String> output = new HashSet<>();
-        if (hasValues(words)) {
-            for (final String word : words) {
-                output.add(TextUtils.joinAs1800Number(String.valueOf(number), word));
+    /**
+     * Generates the matches of a run of combinations into their place in the result, splitting the run in two while it
+     * has more matches than the threshold. Matches are generated with the words of the first part changing slowest, so
+     * splitting the run, or the first range of more than one word of a lone combination, keeps every match in the place
+     * it would have been generated in.
+     */
+    private final class MatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Combination> combinations;
+        private final long size;
+        private final int offset;
+        private final String[] matches;
+        private final int threshold;
+
+        private MatchTask(final List<Combination> combinations, final long size, final int offset, final String[] matches, final int threshold) {
+            this.combinations = combinations;
+            this.size = size;
+            this.offset = offset;
+            this.matches = matches;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (size <= threshold) {
+                generateMatches(combinations, matches, offset);
+                return;
             }
+            final List<Combination> first;
+            final List<Combination> second;
+            if (combinations.size() > 1) {
+                //split where half of the matches have been generated, leaving at least one combination either side.
+                int split = 1;
+                long generated = combinations.get(0).size();
+                while (split < combinations.size() - 1 && generated + combinations.get(split).size() <= size / 2) {
+                    generated += combinations.get(split++).size();
+                }
+                first = combinations.subList(0, split);
+                second = combinations.subList(split, combinations.size());
+            } else {
+                final Combination combination = combinations.get(0);
+                int part = 0;
+                while (combination.isDigit(part) || WordRange.size(combination.words[part]) == 1) {
+                    part++;
+                }
+                final long words = combination.words[part];
+                final int half = WordRange.size(words) / 2;
+                first = Collections.singletonList(combination.withWords(part, WordRange.of(WordRange.start(words), half)));
+                second = Collections.singletonList(combination.withWords(part, WordRange.of(WordRange.start(words) + half, WordRange.size(words) - half)));
+            }
+            final long firstSize = countMatches(first);
+            invokeAll(new MatchTask(first, firstSize, offset, matches, threshold),
+                    new MatchTask(second, size - firstSize, (int) (offset + firstSize), matches, threshold));
         }
-        return output;
     }
 
-    private Set<String> generateOutput(final Set<String> words) {
-        final Set<String> output = new HashSet<>();
-        if (hasValues(words)) {
-            for (final String word : words) {
-                output.add(TextUtils.joinAs1800Number(word));
+    /**
+     * Walks the combinations in order, stepping through the words of the last part fastest.
+     */
+    private final class MatchIterator implements Iterator<String> {
+        private final AllowedWords allowedWords;
+        private final Iterator<Combination> combinations;
+        private Combination combination;
+        private int[] positions;
+        private final StringBuilder builder = new StringBuilder();
+        private boolean hasNext;
+
+        private MatchIterator(final List<Combination> combinations) {
+            this.allowedWords = NumberMatcher.this.allowedWords;
+            this.combinations = combinations.iterator();
+            hasNext = startNextCombination();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            //words are appended straight from the index so only the match itself is created.
+            builder.setLength(0);
+            builder.append(TextUtils.MATCH_PREFIX);
+            for (int part = 0; part < positions.length; part++) {
+                builder.append(TextUtils.MATCH_SEPARATOR);
+                if (combination.isDigit(part)) {
+                    builder.append(combination.digits[part]);
+                } else {
+                    wordIndex.appendWord(indexPosition(allowedWords, positions[part]), builder);
+                }
+            }
+            final String match = builder.toString();
+            hasNext = advance() || startNextCombination();
+            return match;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private boolean startNextCombination() {
+            if (!combinations.hasNext()) {
+                return false;
+            }
+            combination = combinations.next();
+            positions = new int[combination.length()];
+            for (int part = 0; part < positions.length; part++) {
+                if (!combination.isDigit(part)) {
+                    positions[part] = WordRange.start(combination.words[part]);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Moves on to the next match of the current combination.
+         *
+         * @return false once every match of the combination has been generated.
+         */
+        private boolean advance() {
+            for (int part = positions.length - 1; part >= 0; part--) {
+                if (combination.isDigit(part)) {
+                    continue;
+                }
+                if (++positions[part] < WordRange.end(combination.words[part])) {
+                    return true;
+                }
+                positions[part] = WordRange.start(combination.words[part]);
             }
+            return false;
         }
-        return output;
     }
 }
@@ -1,12 +1,39 @@
 package com.aconex;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Scanner;
-import java.util.Set;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import com.aconex.index.DigitTrieWordIndex;
+import com.aconex.index.MappedWordIndex;
+import com.aconex.index.ParallelDictionaryLoader;
 import com.aconex.index.WordIndex;
+import com.aconex.index.WordLookup;
+import com.aconex.input.MappedNumberFile;
+import com.aconex.input.NormalisedNumberSource;
+import com.aconex.input.NumberSource;
+import com.aconex.input.ReaderNumberSource;
+import com.aconex.metrics.Metrics;
+import com.aconex.output.ConsoleMatchSink;
+import com.aconex.output.MatchSink;
 import com.aconex.util.TextUtils;
 
 /**
@@ -14,20 +41,200 @@ import com.aconex.util.TextUtils;
  */
 public class PhoneNumberConverter {
     public static final String SYS_PROP_DICTIONARY_OVERRIDE = "dictionary.file";
+    public static final String SYS_PROP_DICTIONARY_INDEX = "dictionary.index";
+    public static final String SYS_PROP_DICTIONARY_PARALLELISM = "dictionary.parallelism";
+    public static final String SYS_PROP_INDEX_TYPE = "index.type";
+    public static final String INDEX_TYPE_TRIE = "trie";
+    public static final String SYS_PROP_BATCH_THREADS = "batch.threads";
+    public static final String SYS_PROP_BATCH_QUEUE_SIZE = "batch.queue.size";
+    public static final String SYS_PROP_CACHE_SIZE = "cache.size";
+    public static final String SYS_PROP_DICTIONARY_WATCH = "dictionary.watch";
+    public static final String SYS_PROP_DICTIONARY_DELTA = "dictionary.delta";
+    public static final String SYS_PROP_DICTIONARY_WEIGHTS = "dictionary.weights";
+    public static final String SYS_PROP_DICTIONARY_BLOCKLIST = "dictionary.blocklist";
+    public static final String SYS_PROP_MATCH_TOP = "match.top";
+    public static final String SYS_PROP_MATCH_PARALLEL_THRESHOLD = "match.parallel.threshold";
+    public static final String SYS_PROP_MATCH_SEGMENTED = "match.segmented";
+    public static final String SYS_PROP_MATCH_SEGMENTED_LIMIT = "match.segmented.limit";
+    public static final String SYS_PROP_INPUT_MAPPED = "input.mapped";
+    public static final String SYS_PROP_DICTIONARIES = "dictionaries";
+    public static final String SYS_PROP_DICTIONARIES_BUDGET_MB = "dictionaries.budget.mb";
+    public static final String SYS_PROP_DICTIONARIES_IDLE_SECONDS = "dictionaries.idle.seconds";
+    /**
+     * The name of the dictionary loaded at construction, which is used when no dictionary is asked for.
+     */
+    public static final String DEFAULT_DICTIONARY = DictionaryRegistry.DEFAULT_DICTIONARY;
+    private static final long DEFAULT_DICTIONARIES_BUDGET_MB = 256;
+    private static final Logger LOGGER = Logger.getLogger(PhoneNumberConverter.class.getName());
+    private static final int DEFAULT_QUEUE_SIZE_PER_THREAD = 64;
+    private static final int DEFAULT_SEGMENTED_LIMIT = 10000;
+    private static final long RANGE_SIZE = 64 * 1024;
 
-    private WordIndex wordIndex;
+    private final AtomicReference<WordLookup> wordIndex = new AtomicReference<>();
+    private MatchSink matchSink;
+    private MatchCache matchCache;
+    private int bestMatchCount;
+    private MatchScorer matchScorer;
+    private final int parallelThreshold;
+    private final boolean segmented;
+    private final int segmentedLimit;
+    private final ForkJoinPool matchPool;
+    private final Blocklist blocklist;
+    private DictionaryWatcher dictionaryWatcher;
+    private final DictionaryRegistry dictionaryRegistry;
 
     public PhoneNumberConverter() {
-        this(new WordIndex());
+        this(createWordIndex());
     }
 
-    public PhoneNumberConverter(final WordIndex wordIndex) {
-        this.wordIndex = (wordIndex != null) ? wordIndex : new WordIndex();
-        initialise();
+    public PhoneNumberConverter(final WordLookup wordIndex) {
+        this(wordIndex, null);
     }
 
-    private void initialise() {
+    /**
+     * Constructor.
+     *
+     * @param wordIndex the index to match numbers against. A new index is created and loaded if null, and a
+     *                  {@link WordIndex} is loaded with the dictionary while any other index is used as it is.
+     * @param matchSink where output is written. Output is written to the console if null.
+     */
+    public PhoneNumberConverter(final WordLookup wordIndex, final MatchSink matchSink) {
+        this.matchSink = (matchSink != null) ? matchSink : new ConsoleMatchSink();
+        this.blocklist = createBlocklist();
+        final int cacheSize = Integer.getInteger(SYS_PROP_CACHE_SIZE, 0);
+        this.matchCache = (cacheSize > 0) ? new MatchCache(cacheSize, blocklist) : null;
+        this.bestMatchCount = Integer.getInteger(SYS_PROP_MATCH_TOP, 0);
+        this.matchScorer = createMatchScorer();
+        this.parallelThreshold = Integer.getInteger(SYS_PROP_MATCH_PARALLEL_THRESHOLD, 0);
+        this.segmented = Boolean.getBoolean(SYS_PROP_MATCH_SEGMENTED);
+        this.segmentedLimit = Math.max(1, Integer.getInteger(SYS_PROP_MATCH_SEGMENTED_LIMIT, DEFAULT_SEGMENTED_LIMIT));
+        this.matchPool = (parallelThreshold > 0) ? new ForkJoinPool() : null;
+        this.dictionaryRegistry = createDictionaryRegistry();
+        if (Metrics.ENABLED) {
+            Metrics.register();
+        }
+        final WordLookup initialIndex = (wordIndex != null) ? wordIndex : createWordIndex();
+        this.wordIndex.set(load(initialIndex));
+        if (Boolean.getBoolean(SYS_PROP_DICTIONARY_WATCH)) {
+            watchDictionary();
+        }
+    }
+
+    /**
+     * Creates the type of index requested through the {@link #SYS_PROP_INDEX_TYPE} system property. The default map
+     * backed index is used unless the trie has been asked for, or a prebuilt index file has been provided through the
+     * {@link #SYS_PROP_DICTIONARY_INDEX} system property.
+     */
+    private static WordLookup createWordIndex() {
+        final String indexFileLocation = System.getProperty(SYS_PROP_DICTIONARY_INDEX);
+        if (!TextUtils.isEmpty(indexFileLocation)) {
+            try {
+                return new MappedWordIndex(new File(indexFileLocation));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Couldn't load dictionary index file.", e);
+            }
+        }
+        if (isTrieIndexType()) {
+            return new DigitTrieWordIndex();
+        }
+        return new WordIndex();
+    }
+
+    private static boolean isTrieIndexType() {
+        return INDEX_TYPE_TRIE.equalsIgnoreCase(System.getProperty(SYS_PROP_INDEX_TYPE));
+    }
+
+    /**
+     * Creates the scorer used to pick the best matches, loading word frequencies from the file set through the
+     * {@link #SYS_PROP_DICTIONARY_WEIGHTS} system property if there is one.
+     */
+    private static MatchScorer createMatchScorer() {
+        final MatchScorer matchScorer = new MatchScorer();
+        final String weightsFileLocation = System.getProperty(SYS_PROP_DICTIONARY_WEIGHTS);
+        if (!TextUtils.isEmpty(weightsFileLocation)) {
+            try {
+                matchScorer.loadWeights(new FileInputStream(weightsFileLocation));
+            } catch (FileNotFoundException e) {
+                throw new IllegalArgumentException("Couldn't locate dictionary weights file to be loaded.", e);
+            }
+        }
+        return matchScorer;
+    }
+
+    /**
+     * Creates the blocklist of words left out of every match from the file set through the
+     * {@link #SYS_PROP_DICTIONARY_BLOCKLIST} system property, or null if there isn't one.
+     */
+    private static Blocklist createBlocklist() {
+        final String blocklistFileLocation = System.getProperty(SYS_PROP_DICTIONARY_BLOCKLIST);
+        if (TextUtils.isEmpty(blocklistFileLocation)) {
+            return null;
+        }
+        final Blocklist blocklist = new Blocklist();
+        try {
+            blocklist.loadWords(new FileInputStream(blocklistFileLocation));
+        } catch (FileNotFoundException e) {
+            throw new IllegalArgumentException("Couldn't locate dictionary blocklist file to be loaded.", e);
+        }
+        return blocklist;
+    }
+
+    /**
+     * Creates the registry of named dictionaries, registering those listed in the {@link #SYS_PROP_DICTIONARIES}
+     * system property as name=file pairs separated by commas. They share the memory budget set in megabytes through
+     * the {@link #SYS_PROP_DICTIONARIES_BUDGET_MB} system property and are dropped once they have been idle for the
+     * seconds set through the {@link #SYS_PROP_DICTIONARIES_IDLE_SECONDS} system property, if it's set. They're loaded
+     * into the index type set through the {@link #SYS_PROP_INDEX_TYPE} system property, the same as the default
+     * dictionary.
+     */
+    private static DictionaryRegistry createDictionaryRegistry() {
+        final long budgetMegabytes = Long.getLong(SYS_PROP_DICTIONARIES_BUDGET_MB, DEFAULT_DICTIONARIES_BUDGET_MB);
+        final long idleSeconds = Long.getLong(SYS_PROP_DICTIONARIES_IDLE_SECONDS, 0);
+        final DictionaryRegistry registry = new DictionaryRegistry(budgetMegabytes * 1024 * 1024, TimeUnit.SECONDS.toMillis(idleSeconds), isTrieIndexType());
+        final String dictionaryList = System.getProperty(SYS_PROP_DICTIONARIES);
+        if (!TextUtils.isEmpty(dictionaryList)) {
+            registry.registerAll(dictionaryList);
+        }
+        return registry;
+    }
+
+    /**
+     * Loads the dictionary and any delta into the index, recording how long it took if metrics are enabled. Indexes
+     * written ahead of time already hold their dictionary so only a {@link WordIndex} is loaded.
+     *
+     * @return the index to use, which is a compacted copy if loading left most of its word positions unused.
+     */
+    private WordLookup load(final WordLookup index) {
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        if (index instanceof WordIndex) {
+            initialise((WordIndex) index);
+        }
+        applyDeltaProperty(index);
+        final WordLookup loadedIndex = compactIfWorthwhile(index);
+        if (Metrics.ENABLED) {
+            Metrics.get().recordDictionaryLoad(loadedIndex, System.nanoTime() - startNanos);
+        }
+        return loadedIndex;
+    }
+
+    /**
+     * Gets a compacted copy of the index if most of the word positions it holds are unused, or the index itself if
+     * they aren't.
+     */
+    private static WordLookup compactIfWorthwhile(final WordLookup index) {
+        if (index instanceof WordIndex && ((WordIndex) index).isWorthCompacting()) {
+            return ((WordIndex) index).createCompactedCopy();
+        }
+        return index;
+    }
+
+    private void initialise(final WordIndex wordIndex) {
         String dictionaryFileLocation = System.getProperty(SYS_PROP_DICTIONARY_OVERRIDE);
+        final int parallelism = Integer.getInteger(SYS_PROP_DICTIONARY_PARALLELISM, 1);
+        if (!TextUtils.isEmpty(dictionaryFileLocation) && parallelism > 1) {
+            loadInParallel(wordIndex, new File(dictionaryFileLocation), parallelism);
+            return;
+        }
         InputStream inputStream = PhoneNumberConverter.class.getResourceAsStream("dictionary");
         if (!TextUtils.isEmpty(dictionaryFileLocation)) {
             try {
@@ -39,32 +246,547 @@ public class PhoneNumberConverter {
         wordIndex.loadIndex(inputStream);
     }
 
+    private void loadInParallel(final WordIndex wordIndex, final File dictionaryFile, final int parallelism) {
+        if (!dictionaryFile.isFile()) {
+            throw new IllegalArgumentException("Couldn't locate dictionary file to be loaded.");
+        }
+        try {
+            new ParallelDictionaryLoader(parallelism).load(wordIndex, dictionaryFile);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Couldn't read dictionary file to be loaded.", e);
+        }
+    }
+
+    /**
+     * Builds a new index from the dictionary and swaps it in once it's fully loaded. The new index is the same type as
+     * the one being used, including one passed in at construction, which isn't changed while the new one is built.
+     * Numbers already being matched finish against the index they started with.
+     * <p/>
+     * The index can be read by any number of threads, including while deltas are applied to it.
+     */
+    public void reload() {
+        final WordLookup newIndex;
+        try {
+            newIndex = wordIndex.get().createReplacement();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Couldn't load dictionary index file.", e);
+        }
+        wordIndex.set(load(newIndex));
+    }
+
+    /**
+     * Applies a delta file to the index in place. Numbers being matched carry on while the delta is applied, and only
+     * see words as they are added or removed. Once deltas have left most of the word positions of the index unused, a
+     * compacted copy is swapped in for it the same way as a reloaded index.
+     *
+     * @param deltaFileLocation a file of "+WORD" and "-WORD" lines as read by {@link WordIndex#applyDelta(InputStream)}.
+     */
+    public synchronized void applyDelta(final String deltaFileLocation) {
+        final WordLookup index = wordIndex.get();
+        applyDelta(index, deltaFileLocation);
+        //a reload swapped in meanwhile is kept as it holds the dictionary as it is now.
+        wordIndex.compareAndSet(index, compactIfWorthwhile(index));
+    }
+
+    /**
+     * Applies the delta set through the {@link #SYS_PROP_DICTIONARY_DELTA} system property on top of the dictionary.
+     */
+    private void applyDeltaProperty(final WordLookup index) {
+        final String deltaFileLocation = System.getProperty(SYS_PROP_DICTIONARY_DELTA);
+        if (!TextUtils.isEmpty(deltaFileLocation)) {
+            applyDelta(index, deltaFileLocation);
+        }
+    }
+
+    private void applyDelta(final WordLookup index, final String deltaFileLocation) {
+        if (!(index instanceof WordIndex)) {
+            throw new IllegalArgumentException("Deltas can't be applied to a prebuilt dictionary index.");
+        }
+        try {
+            ((WordIndex) index).applyDelta(new FileInputStream(deltaFileLocation));
+        } catch (FileNotFoundException e) {
+            throw new IllegalArgumentException("Couldn't locate dictionary delta file to be applied.", e);
+        }
+    }
+
+    /**
+     * Reloads the dictionary whenever the file it's loaded from changes. The packaged dictionary can't change so there
+     * is nothing to watch unless one of the dictionary system properties has been set.
+     */
+    private void watchDictionary() {
+        String dictionaryLocation = System.getProperty(SYS_PROP_DICTIONARY_INDEX);
+        if (TextUtils.isEmpty(dictionaryLocation)) {
+            dictionaryLocation = System.getProperty(SYS_PROP_DICTIONARY_OVERRIDE);
+        }
+        if (TextUtils.isEmpty(dictionaryLocation)) {
+            LOGGER.warning("Not watching the dictionary for changes as the packaged dictionary is being used.");
+            return;
+        }
+        try {
+            dictionaryWatcher = new DictionaryWatcher(new File(dictionaryLocation), new Runnable() {
+                @Override
+                public void run() {
+                    reload();
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Couldn't watch dictionary file for changes.", e);
+        }
+    }
+
+    /**
+     * Gets the index numbers are currently matched against.
+     */
+    WordLookup getWordIndex() {
+        return wordIndex.get();
+    }
+
+    /**
+     * Gets the named dictionaries numbers can be matched against instead of the default one.
+     */
+    public DictionaryRegistry getDictionaryRegistry() {
+        return dictionaryRegistry;
+    }
+
+    private static boolean isDefaultDictionary(final String dictionary) {
+        return dictionary == null || DEFAULT_DICTIONARY.equals(dictionary);
+    }
+
+    /**
+     * Gets the index of a dictionary, loading it if it's a named dictionary that isn't loaded.
+     *
+     * @param dictionary the name of the dictionary, or null for the default dictionary.
+     * @throws IllegalArgumentException if there is no dictionary with the name.
+     */
+    private WordLookup getWordIndex(final String dictionary) {
+        return isDefaultDictionary(dictionary) ? wordIndex.get() : dictionaryRegistry.getIndex(dictionary);
+    }
+
     public void processFile(final String filePath) {
+        processFile(filePath, null);
+    }
+
+    /**
+     * Processes a file of numbers against the dictionary provided.
+     *
+     * @param dictionary the name of the dictionary, or null for the default dictionary.
+     */
+    public void processFile(final String filePath, final String dictionary) {
+        //fail before any output if the dictionary doesn't exist.
+        getWordIndex(dictionary);
         //process each file in turn and convert each one.
-        System.out.println(String.format("Processing file: %s", filePath));
+        matchSink.startFile(filePath);
+        final File file = new File(filePath);
+        final MappedNumberFile mappedNumbers;
+        final NumberSource numberSource;
         try {
-            try (Scanner scanner = new Scanner(new FileInputStream(filePath))) {
-                while (scanner.hasNext()) {
-                    processNumber(scanner.nextLine());
+            mappedNumbers = mapNumbers(file);
+            numberSource = (mappedNumbers == null) ? new ReaderNumberSource(new FileInputStream(file)) : null;
+        } catch (FileNotFoundException e) {
+            matchSink.fileNotFound(filePath);
+            matchSink.flush();
+            return;
+        }
+        final int threads = Integer.getInteger(SYS_PROP_BATCH_THREADS, 1);
+        if (mappedNumbers != null && threads > 1) {
+            processRangesConcurrently(mappedNumbers, threads, dictionary);
+        } else if (mappedNumbers != null) {
+            processNumbers(openNumbers(mappedNumbers, 0, mappedNumbers.size()), dictionary);
+        } else {
+            processNumbers(numberSource, dictionary);
+        }
+    }
+
+    /**
+     * Maps a file of numbers into memory if the {@link #SYS_PROP_INPUT_MAPPED} system property is true and the default
+     * encoding allows it.
+     *
+     * @return the mapped file, or null if it's to be read through a reader.
+     */
+    private static MappedNumberFile mapNumbers(final File file) throws FileNotFoundException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+        if (Boolean.getBoolean(SYS_PROP_INPUT_MAPPED) && MappedNumberFile.isSupported(Charset.defaultCharset())) {
+            try {
+                return new MappedNumberFile(file);
+            } catch (IOException e) {
+                throw new IllegalStateException("Couldn't map numbers.", e);
+            }
+        }
+        return null;
+    }
+
+    private static NormalisedNumberSource openNumbers(final MappedNumberFile numbers, final long start, final long end) {
+        try {
+            return numbers.open(start, end);
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't map numbers.", e);
+        }
+    }
+
+    /**
+     * Processes each line of a stream as a number, skipping blank lines, until the stream ends. The stream is read
+     * through a large buffer and only the numbers being matched are held in memory, so streams of any length can be
+     * processed.
+     * <p/>
+     * Output is flushed whenever the stream has nothing more ready to be read, so output for numbers arriving slowly
+     * down a pipe is written as they arrive while a busy stream is written in large batches.
+     */
+    public void processNumbers(final InputStream inputStream) {
+        processNumbers(new ReaderNumberSource(inputStream), null);
+    }
+
+    /**
+     * Processes every number of the source, closing it once they have all been processed.
+     */
+    public void processNumbers(final NumberSource numberSource) {
+        processNumbers(numberSource, null);
+    }
+
+    /**
+     * Processes every number of the source against the dictionary provided, closing it once they have all been
+     * processed.
+     *
+     * @param dictionary the name of the dictionary, or null for the default dictionary.
+     */
+    public void processNumbers(final NumberSource numberSource, final String dictionary) {
+        try (NumberSource numbers = numberSource) {
+            final int threads = Integer.getInteger(SYS_PROP_BATCH_THREADS, 1);
+            if (threads > 1) {
+                processNumbersConcurrently(numbers, threads, dictionary);
+            } else {
+                String number;
+                while ((number = numbers.nextNumber()) != null) {
+                    processNumber(number, dictionary);
+                    if (!numbers.ready()) {
+                        matchSink.flush();
+                    }
                 }
             }
-        } catch (FileNotFoundException e) {
-            System.out.println(String.format("Skipping processing \"%s\" as the file couldn't be located.", filePath));
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't read numbers.", e);
         }
+        matchSink.flush();
     }
 
-    public void processNumber(final String number) {
-        System.out.println(String.format("Processing phone number %s.", number));
-        final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, number);
-        final Set<String> matches = numberMatcher.findMatches();
+    /**
+     * Matches numbers on a pool of threads while writing the results out in the order the numbers were read.
+     * <p/>
+     * Only a bounded number of numbers are read ahead of the output, so a large file doesn't end up held in memory when
+     * matching falls behind reading. The index is only read by the matching threads so it is shared between them.
+     */
+    private void processNumbersConcurrently(final NumberSource numbers, final int threads, final String dictionary) throws IOException {
+        final int queueSize = Math.max(1, Integer.getInteger(SYS_PROP_BATCH_QUEUE_SIZE, threads * DEFAULT_QUEUE_SIZE_PER_THREAD));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Deque<String> pendingNumbers = new ArrayDeque<>(queueSize);
+            final Deque<Future<List<String>>> pendingMatches = new ArrayDeque<>(queueSize);
+            String number;
+            while ((number = numbers.nextNumber()) != null) {
+                if (pendingMatches.size() == queueSize) {
+                    writeMatches(pendingNumbers.poll(), pendingMatches.poll());
+                }
+                pendingNumbers.add(number);
+                final String numberToMatch = number;
+                pendingMatches.add(executor.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() {
+                        return findMatches(numberToMatch, dictionary);
+                    }
+                }));
+            }
+            while (!pendingMatches.isEmpty()) {
+                writeMatches(pendingNumbers.poll(), pendingMatches.poll());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Matches the numbers of a mapped file on a pool of threads while writing the results out in the order of the file.
+     * <p/>
+     * The file is split into ranges of about {@link #RANGE_SIZE} bytes that each start on a line. Each range is read and
+     * matched by a single thread, which parses the digits of its numbers straight from the mapped bytes, so the thread
+     * writing the output never reads the file. Only two ranges per thread are matched ahead of the output.
+     */
+    private void processRangesConcurrently(final MappedNumberFile numbers, final int threads, final String dictionary) {
+        final long[] split;
+        try {
+            split = numbers.split((int) Math.max(threads, Math.min(Integer.MAX_VALUE, numbers.size() / RANGE_SIZE)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't read numbers.", e);
+        }
+        final int queueSize = threads * 2;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Deque<Future<RangeMatches>> pendingRanges = new ArrayDeque<>(queueSize);
+            for (int i = 0; i < split.length - 1; i++) {
+                if (pendingRanges.size() == queueSize) {
+                    writeRange(pendingRanges.poll());
+                }
+                final long start = split[i];
+                final long end = split[i + 1];
+                pendingRanges.add(executor.submit(new Callable<RangeMatches>() {
+                    @Override
+                    public RangeMatches call() throws IOException {
+                        return matchRange(openNumbers(numbers, start, end), dictionary);
+                    }
+                }));
+            }
+            while (!pendingRanges.isEmpty()) {
+                writeRange(pendingRanges.poll());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        matchSink.flush();
+    }
 
+    /**
+     * Matches every number of a range, closing it once they have all been matched.
+     */
+    private RangeMatches matchRange(final NormalisedNumberSource numberSource, final String dictionary) throws IOException {
+        final RangeMatches rangeMatches = new RangeMatches();
+        try (NormalisedNumberSource numbers = numberSource) {
+            String number;
+            while ((number = numbers.nextNumber()) != null) {
+                rangeMatches.numbers.add(number);
+                rangeMatches.matches.add(findMatches(number, numbers.getNormalisedNumber(), dictionary));
+            }
+        }
+        return rangeMatches;
+    }
+
+    private void writeRange(final Future<RangeMatches> pendingMatches) {
+        final RangeMatches rangeMatches;
+        try {
+            rangeMatches = pendingMatches.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while matching numbers.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Couldn't read numbers.", e.getCause());
+        }
+        for (int i = 0; i < rangeMatches.numbers.size(); i++) {
+            matchSink.startNumber(rangeMatches.numbers.get(i));
+            writeMatches(rangeMatches.matches.get(i));
+        }
+    }
+
+    /**
+     * The numbers of a range of a file along with the matches for each of them.
+     */
+    private static final class RangeMatches {
+        private final List<String> numbers = new ArrayList<>();
+        private final List<List<String>> matches = new ArrayList<>();
+    }
+
+    /**
+     * Gets the matches for a number in the order they would be written by {@link #processNumber(String)}, for callers
+     * that write the matches out themselves. Can be called from any number of threads at once.
+     */
+    public List<String> findMatches(final String number) {
+        return findMatches(number, null);
+    }
+
+    /**
+     * Gets the matches for a number against the dictionary provided, in the order they would be written. Only the
+     * default dictionary is cached.
+     *
+     * @param dictionary the name of the dictionary, or null for the default dictionary.
+     * @throws IllegalArgumentException if there is no dictionary with the name.
+     */
+    public List<String> findMatches(final String number, final String dictionary) {
+        return findMatches(number, TextUtils.normaliseNumber(number), dictionary);
+    }
+
+    /**
+     * Gets the matches for a number whose digits have already been parsed by a {@link NormalisedNumberSource}.
+     */
+    private List<String> findMatches(final String number, final String matchingValue, final String dictionary) {
+        //read the index once so the whole number is matched against the same dictionary if it's reloaded.
+        final WordLookup currentIndex = getWordIndex(dictionary);
+        if (segmented) {
+            return findSegmentedMatches(new SegmentationMatcher(currentIndex, number, matchingValue, blocklist));
+        }
+        if (bestMatchCount > 0) {
+            return new NumberMatcher(currentIndex, number, matchingValue, blocklist).findBestMatches(bestMatchCount, matchScorer);
+        }
+        if (matchCache != null && isDefaultDictionary(dictionary)) {
+            return matchCache.getMatches(currentIndex, number, matchingValue);
+        }
+        if (matchPool != null) {
+            return new NumberMatcher(currentIndex, number, matchingValue, blocklist).findMatchesInParallel(matchPool, parallelThreshold);
+        }
+        //keep the order the matches are generated in so the output is the same as processing serially.
+        return new NumberMatcher(currentIndex, number, matchingValue, blocklist).findMatchesInOrder();
+    }
+
+    private void writeMatches(final String number, final Future<List<String>> pendingMatches) {
+        matchSink.startNumber(number);
+        try {
+            writeMatches(pendingMatches.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while matching " + number, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Couldn't match " + number, e.getCause());
+        }
+    }
+
+    private void writeMatches(final List<String> matches) {
         if (!matches.isEmpty()) {
-            System.out.println(String.format("Found %d options: ", matches.size()));
-            for (String match : matches) {
-                System.out.println(match);
+            matchSink.startMatches(matches.size());
+            for (final String match : matches) {
+                matchSink.match(match);
             }
         } else {
-            System.out.println("No options found.");
+            matchSink.noMatches();
+        }
+        matchSink.endNumber();
+    }
+
+    /**
+     * Writes the matches for a number. The number of matches is worked out first so the matches themselves can be
+     * written as they're generated, unless the {@link #SYS_PROP_CACHE_SIZE} system property has turned on caching in
+     * which case the cached matches are written.
+     * <p/>
+     * If the {@link #SYS_PROP_MATCH_TOP} system property is set only that many of the best matches are written, best
+     * first, without generating the rest.
+     * <p/>
+     * If the {@link #SYS_PROP_MATCH_SEGMENTED} system property is true the number is matched to any chain of words and
+     * untouched digits by a {@link SegmentationMatcher} instead, and the other matching options don't apply. At most the
+     * number of chains set through the {@link #SYS_PROP_MATCH_SEGMENTED_LIMIT} system property are written, 10000 by
+     * default, as long numbers can have far more than could be held by callers collecting them.
+     * <p/>
+     * If the {@link #SYS_PROP_MATCH_PARALLEL_THRESHOLD} system property is set, the matches are collected before they're
+     * written, generating them on a fork-join pool for numbers with at least that many matches. They're written in the
+     * same order either way.
+     */
+    public void processNumber(final String number) {
+        processNumber(number, null);
+    }
+
+    /**
+     * Writes the matches for a number against the dictionary provided. Only the default dictionary is cached.
+     *
+     * @param dictionary the name of the dictionary, or null for the default dictionary.
+     * @throws IllegalArgumentException if there is no dictionary with the name.
+     */
+    public void processNumber(final String number, final String dictionary) {
+        //read the index once so the whole number is matched against the same dictionary if it's reloaded.
+        final WordLookup currentIndex = getWordIndex(dictionary);
+        matchSink.startNumber(number);
+        if (segmented) {
+            writeSegmentedMatches(new SegmentationMatcher(currentIndex, number, blocklist));
+            return;
+        }
+        if (bestMatchCount > 0) {
+            writeMatches(new NumberMatcher(currentIndex, number, blocklist).findBestMatches(bestMatchCount, matchScorer));
+            return;
+        }
+        if (matchCache != null && isDefaultDictionary(dictionary)) {
+            writeMatches(matchCache.getMatches(currentIndex, number));
+            return;
+        }
+        final NumberMatcher numberMatcher = new NumberMatcher(currentIndex, number, blocklist);
+        if (matchPool != null) {
+            //counts the matches itself, so the combinations are only worked out once.
+            writeMatches(numberMatcher.findMatchesInParallel(matchPool, parallelThreshold));
+            return;
+        }
+        final long count = numberMatcher.countMatches();
+        if (count > 0) {
+            matchSink.startMatches(count);
+            numberMatcher.findMatches(new MatchListener() {
+                @Override
+                public void onMatch(final CharSequence match) {
+                    matchSink.match(match);
+                }
+            });
+        } else {
+            matchSink.noMatches();
+        }
+        matchSink.endNumber();
+    }
+
+    /**
+     * Writes the first chains of words and digits for a number as they're generated, up to the limit on segmented
+     * matches. The chains written are the same ones {@link #findMatches(String, String)} collects.
+     */
+    private void writeSegmentedMatches(final SegmentationMatcher segmentationMatcher) {
+        final int count = limitSegmentedMatches(segmentationMatcher);
+        if (count > 0) {
+            matchSink.startMatches(count);
+            final Iterator<String> matches = segmentationMatcher.iterator();
+            for (int i = 0; i < count; i++) {
+                matchSink.match(matches.next());
+            }
+        } else {
+            matchSink.noMatches();
+        }
+        matchSink.endNumber();
+    }
+
+    /**
+     * Collects the first chains of words and digits for a number, up to the limit on segmented matches.
+     */
+    private List<String> findSegmentedMatches(final SegmentationMatcher segmentationMatcher) {
+        final int count = limitSegmentedMatches(segmentationMatcher);
+        final List<String> matches = new ArrayList<>(count);
+        final Iterator<String> iterator = segmentationMatcher.iterator();
+        for (int i = 0; i < count; i++) {
+            matches.add(iterator.next());
+        }
+        return matches;
+    }
+
+    /**
+     * Gets how many chains are used for a number, which is every one of them unless there are more than the limit.
+     */
+    private int limitSegmentedMatches(final SegmentationMatcher segmentationMatcher) {
+        final long count = segmentationMatcher.countMatches();
+        if (count <= segmentedLimit) {
+            return (int) count;
+        }
+        LOGGER.log(Level.FINE, "Only using the first {0} of {1} chains for {2}.", new Object[]{ segmentedLimit, count, segmentationMatcher.getMatchingValue() });
+        return segmentedLimit;
+    }
+
+    /**
+     * Gets the cache of matches, or null if caching hasn't been turned on.
+     */
+    MatchCache getMatchCache() {
+        return matchCache;
+    }
+
+    /**
+     * Writes out any output that has been buffered.
+     */
+    public void flush() {
+        matchSink.flush();
+    }
+
+    /**
+     * Writes out any output that has been buffered and closes where it's written to. Stops watching the dictionary for
+     * changes and checking for idle dictionaries, and stops the pool matches are generated on.
+     */
+    public void close() {
+        if (matchPool != null) {
+            matchPool.shutdown();
+        }
+        if (dictionaryWatcher != null) {
+            dictionaryWatcher.close();
         }
+        dictionaryRegistry.close();
+        matchSink.close();
     }
 }
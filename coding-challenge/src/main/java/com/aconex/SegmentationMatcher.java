@@ -0,0 +1,216 @@
+package com.aconex;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.aconex.index.WordLookup;
+import com.aconex.index.WordRange;
+import com.aconex.util.TextUtils;
+
+/**
+ * Matches numbers to any chain of words and untouched digits, such as word-word-word or word-digit-word-word, as long
+ * as two untouched digits are never next to each other.
+ * <p/>
+ * The number of chains grows very quickly with the length of the number so they are enumerated lazily through
+ * {@link #iterator()}. Every branch the enumeration takes is known to complete so no work is wasted on dead ends.
+ */
+public class SegmentationMatcher implements Iterable<String> {
+    private final String matchingValue;
+    private final MatchLattice lattice;
+
+    /**
+     * Constructor.
+     *
+     * @param wordIndex      the index containing values that can be matched. Must not be null.
+     * @param numberAsString the string representation of the value to get matching words for the number. Must not be empty.
+     */
+    public SegmentationMatcher(final WordLookup wordIndex, final String numberAsString) {
+        this(wordIndex, numberAsString, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param wordIndex      the index containing values that can be matched. Must not be null.
+     * @param numberAsString the string representation of the value to get matching words for the number. Must not be empty.
+     * @param blocklist      words that are never matched, as if they weren't in the index. May be null.
+     */
+    public SegmentationMatcher(final WordLookup wordIndex, final String numberAsString, final Blocklist blocklist) {
+        this(wordIndex, numberAsString, TextUtils.normaliseNumber(numberAsString), blocklist);
+    }
+
+    /**
+     * Constructor for a number whose digits have already been parsed, such as by a
+     * {@link com.aconex.input.NormalisedNumberSource}.
+     *
+     * @param matchingValue the digits of the number normalised by {@link TextUtils#normaliseNumber(CharSequence)}.
+     */
+    SegmentationMatcher(final WordLookup wordIndex, final String numberAsString, final String matchingValue, final Blocklist blocklist) {
+        if (wordIndex == null) {
+            throw new IllegalArgumentException("Word Index cannot be null");
+        }
+        if (TextUtils.isEmpty(numberAsString)) {
+            throw new IllegalArgumentException("NumberAsString cannot be empty");
+        }
+        this.matchingValue = matchingValue;
+        //an empty blocklist is dropped so matching without one costs nothing extra.
+        final Blocklist usedBlocklist = (blocklist != null && !blocklist.isEmpty()) ? blocklist : null;
+        this.lattice = (matchingValue != null) ? new MatchLattice(wordIndex, matchingValue, usedBlocklist) : null;
+    }
+
+    /**
+     * Gets the digits that are going to be matched, normalised in the same way as {@link NumberMatcher#getMatchingValue()}.
+     *
+     * @return the digits to match or null if the number contained anything other than digits.
+     */
+    public String getMatchingValue() {
+        return matchingValue;
+    }
+
+    /**
+     * Counts the matches without generating them.
+     */
+    public long countMatches() {
+        return (lattice != null) ? lattice.countChains() : 0;
+    }
+
+    /**
+     * Returns every match for the number provided at construction. Only use this where the number of matches is known
+     * to be small, see {@link #countMatches()}.
+     */
+    public Set<String> findMatches() {
+        final Set<String> matches = new HashSet<>();
+        for (final String match : this) {
+            matches.add(match);
+        }
+        return matches;
+    }
+
+    /**
+     * Enumerates the matches one at a time, in the order of the digits and words they start with. Each chain is only
+     * produced once.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new ChainIterator();
+    }
+
+    /**
+     * Depth first walk of the lattice keeping a frame for each segment of the chain currently being built.
+     */
+    private final class ChainIterator implements Iterator<String> {
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private final String[] chain;
+        private String next;
+
+        private ChainIterator() {
+            chain = new String[(lattice != null) ? lattice.length() : 0];
+            if (lattice != null && lattice.completesAfterWord(0)) {
+                frames.push(new Frame(0, false, 0));
+            }
+            next = computeNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            final String current = next;
+            next = computeNext();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private String computeNext() {
+            while (!frames.isEmpty()) {
+                final Frame frame = frames.peek();
+                if (frame.position == lattice.length()) {
+                    frames.pop();
+                    return TextUtils.joinAs1800Number(Arrays.copyOf(chain, frame.depth));
+                }
+                if (!frame.advance()) {
+                    frames.pop();
+                    continue;
+                }
+                chain[frame.depth] = frame.segment;
+                frames.push(new Frame(frame.nextPosition, frame.nextIsDigit, frame.depth + 1));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The choices for one segment of a chain. Word segments are tried first, in order of where they end, followed by
+     * leaving the digit untouched.
+     */
+    private final class Frame {
+        private final int position;
+        private final boolean afterDigit;
+        private final int depth;
+        private final List<MatchLattice.Segment> segments;
+        private int segmentIndex;
+        private int wordPosition;
+        private int wordEnd;
+        private boolean digitTried;
+
+        private String segment;
+        private int nextPosition;
+        private boolean nextIsDigit;
+
+        private Frame(final int position, final boolean afterDigit, final int depth) {
+            this.position = position;
+            this.afterDigit = afterDigit;
+            this.depth = depth;
+            this.segments = (position < lattice.length()) ? lattice.getSegmentsFrom(position) : null;
+        }
+
+        /**
+         * Moves on to the next choice for this segment that leads to at least one complete chain.
+         *
+         * @return false once there are no choices left.
+         */
+        private boolean advance() {
+            while (wordPosition >= wordEnd) {
+                if (segmentIndex >= segments.size()) {
+                    return advanceToDigit();
+                }
+                final MatchLattice.Segment candidate = segments.get(segmentIndex++);
+                if (lattice.completesAfterWord(candidate.end)) {
+                    wordPosition = WordRange.start(candidate.range);
+                    wordEnd = WordRange.end(candidate.range);
+                    nextPosition = candidate.end;
+                }
+            }
+            segment = lattice.getWord(wordPosition++);
+            nextIsDigit = false;
+            return true;
+        }
+
+        private boolean advanceToDigit() {
+            if (digitTried || afterDigit || !lattice.canUseDigit(position) || !lattice.completesAfterDigit(position + 1)) {
+                return false;
+            }
+            digitTried = true;
+            segment = TextUtils.digitAsString(lattice.getDigits().charAt(position));
+            nextPosition = position + 1;
+            nextIsDigit = true;
+            return true;
+        }
+    }
+}
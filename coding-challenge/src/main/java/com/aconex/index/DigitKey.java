@@ -0,0 +1,117 @@
+package com.aconex.index;
+
+/**
+ * Packs a sequence of up to 16 digits into a long so numbers can be used as keys without creating Strings or boxing.
+ * <p/>
+ * Each digit takes 4 bits with the first digit in the most significant position used. Digits are stored as one more
+ * than their value so a zero is never stored as an empty nibble, meaning leading zeros are kept and the length of the
+ * key is the number of nibbles in use. The empty key is 0 and {@link #INVALID} is returned when digits can't be packed.
+ */
+public final class DigitKey {
+    /**
+     * The most digits that can be held in a single key.
+     */
+    public static final int MAX_LENGTH = 16;
+    public static final long EMPTY = 0L;
+    /**
+     * Returned in place of a key when the digits are too long or contain something other than a digit. No valid key
+     * can have every nibble set.
+     */
+    public static final long INVALID = -1L;
+
+    private static final int BITS_PER_DIGIT = 4;
+    private static final long DIGIT_MASK = 0xFL;
+    private static final int FULL_SHIFT = Long.SIZE - BITS_PER_DIGIT;
+
+    private DigitKey() {
+    }
+
+    /**
+     * Adds a digit to the end of the key.
+     *
+     * @param key   the key to add to. Must not be {@link #INVALID}.
+     * @param digit the digit to add, between 0 and 9.
+     * @return the new key or {@link #INVALID} if the key is already full or the digit is out of range.
+     */
+    public static long append(final long key, final int digit) {
+        if (key == INVALID || (key >>> FULL_SHIFT) != 0 || digit < 0 || digit > 9) {
+            return INVALID;
+        }
+        return (key << BITS_PER_DIGIT) | (digit + 1);
+    }
+
+    /**
+     * Packs the digit characters between start (inclusive) and end (exclusive) of the sequence.
+     *
+     * @return the key or {@link #INVALID} if there are too many digits or any character isn't a digit.
+     */
+    public static long valueOf(final CharSequence digits, final int start, final int end) {
+        long key = EMPTY;
+        for (int i = start; i < end && key != INVALID; i++) {
+            key = append(key, digits.charAt(i) - '0');
+        }
+        return key;
+    }
+
+    /**
+     * Packs every digit of the sequence provided.
+     */
+    public static long valueOf(final CharSequence digits) {
+        return valueOf(digits, 0, digits.length());
+    }
+
+    /**
+     * Packs the decimal digits of a number. As a number has no leading zeros neither will the key.
+     *
+     * @return the key or {@link #INVALID} for negative numbers.
+     */
+    public static long valueOf(final long number) {
+        if (number < 0) {
+            return INVALID;
+        }
+        long divisor = 1;
+        while (number / divisor >= 10) {
+            divisor *= 10;
+        }
+        long key = EMPTY;
+        for (; divisor > 0; divisor /= 10) {
+            key = append(key, (int) ((number / divisor) % 10));
+        }
+        return key;
+    }
+
+    /**
+     * Gets the number of digits held in the key.
+     */
+    public static int length(final long key) {
+        return (Long.SIZE - Long.numberOfLeadingZeros(key) + BITS_PER_DIGIT - 1) / BITS_PER_DIGIT;
+    }
+
+    /**
+     * Gets the digit at the position provided, where 0 is the first digit of the key.
+     */
+    public static int digitAt(final long key, final int index) {
+        return (int) ((key >>> ((length(key) - index - 1) * BITS_PER_DIGIT)) & DIGIT_MASK) - 1;
+    }
+
+    /**
+     * Spreads the bits of the key so that keys differing only in their last digits still hash well when only the low
+     * bits of the hash are used.
+     */
+    public static int hash(final long key) {
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    /**
+     * Converts the key back into its digits.
+     */
+    public static String toString(final long key) {
+        final int length = length(key);
+        final char[] digits = new char[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = (char) ('0' + digitAt(key, i));
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,154 @@
+package com.aconex.index;
+
+/**
+ * Index that holds words in a trie keyed by keypad digit rather than a map keyed by the full number.
+ * <p/>
+ * Walking a number through the trie visits every prefix of the number in a single pass, so finding all the words that
+ * start at an offset of a number costs one traversal instead of a separate lookup per possible word length. Entries
+ * are keyed by {@link DigitKey} the same as any other index, so words of more than {@link DigitKey#MAX_LENGTH} letters
+ * can't be held and are dropped when they're loaded.
+ * <p/>
+ * Nodes publish their range and children through volatile fields, and a node's children are copied rather than changed
+ * when a child is added, so the trie can be walked while entries are added or removed.
+ */
+public class DigitTrieWordIndex extends WordIndex {
+    private final Node root = new Node();
+
+    public DigitTrieWordIndex() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param arena holds the letters of the words. Must not be null.
+     */
+    public DigitTrieWordIndex(final WordArena arena) {
+        super(arena);
+    }
+
+    @Override
+    public WordIndex createReplacement() {
+        return new DigitTrieWordIndex();
+    }
+
+    @Override
+    protected void addToIndex(final String processedEntry, final long key) {
+        Node node = root;
+        for (int i = 0; i < DigitKey.length(key); i++) {
+            node = node.getOrCreateChild(DigitKey.digitAt(key, i));
+        }
+        node.range = addWord(node.range, processedEntry);
+    }
+
+    @Override
+    protected void removeFromIndex(final String processedEntry, final long key) {
+        Node node = root;
+        for (int i = 0; i < DigitKey.length(key) && node != null; i++) {
+            node = node.getChild(DigitKey.digitAt(key, i));
+        }
+        if (node != null) {
+            node.range = removeWord(node.range, processedEntry);
+        }
+    }
+
+    @Override
+    public long lookup(final long key) {
+        if (key == DigitKey.INVALID || key == DigitKey.EMPTY) {
+            return WordRange.EMPTY;
+        }
+        Node node = root;
+        for (int i = 0; i < DigitKey.length(key) && node != null; i++) {
+            node = node.getChild(DigitKey.digitAt(key, i));
+        }
+        return (node != null) ? node.range : WordRange.EMPTY;
+    }
+
+    @Override
+    public void walkPrefixes(final CharSequence digits, final int start, final PrefixMatchListener listener) {
+        Node node = root;
+        for (int i = start; i < digits.length(); i++) {
+            node = node.getChild(toKeypadDigit(digits.charAt(i)));
+            if (node == null) {
+                return;
+            }
+            final long range = node.range;
+            if (!WordRange.isEmpty(range)) {
+                listener.onMatch(i + 1, range);
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap used by the words along with every node of the trie and its children.
+     */
+    @Override
+    public long estimateMemoryUsage() {
+        return super.estimateMemoryUsage() + estimateMemoryUsage(root);
+    }
+
+    private long estimateMemoryUsage(final Node node) {
+        long bytes = Node.SIZE;
+        final Node[] children = node.children;
+        if (children != null) {
+            bytes += ARRAY_OVERHEAD + children.length * REFERENCE_SIZE;
+            for (final Node child : children) {
+                if (child != null) {
+                    bytes += estimateMemoryUsage(child);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    void visitKeys(final KeyVisitor visitor) {
+        visitKeys(root, DigitKey.EMPTY, visitor);
+    }
+
+    private void visitKeys(final Node node, final long key, final KeyVisitor visitor) {
+        final long range = node.range;
+        if (!WordRange.isEmpty(range)) {
+            visitor.visit(key, range);
+        }
+        final Node[] children = node.children;
+        if (children != null) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != null) {
+                    visitKeys(children[i], DigitKey.append(key, i + Node.FIRST_DIGIT), visitor);
+                }
+            }
+        }
+    }
+
+    /**
+     * A single digit position in the trie. Children are indexed by keypad digit, offset so that 2 is the first slot.
+     */
+    private static final class Node {
+        private static final int FIRST_DIGIT = 2;
+        private static final int DIGIT_COUNT = 8;
+        private static final int SIZE = 24;
+
+        private volatile Node[] children;
+        private volatile long range = WordRange.EMPTY;
+
+        private Node getChild(final int digit) {
+            final Node[] currentChildren = children;
+            if (currentChildren == null || digit < FIRST_DIGIT) {
+                return null;
+            }
+            return currentChildren[digit - FIRST_DIGIT];
+        }
+
+        private Node getOrCreateChild(final int digit) {
+            final Node[] currentChildren = children;
+            Node child = (currentChildren != null) ? currentChildren[digit - FIRST_DIGIT] : null;
+            if (child == null) {
+                final Node[] newChildren = (currentChildren != null) ? currentChildren.clone() : new Node[DIGIT_COUNT];
+                child = new Node();
+                newChildren[digit - FIRST_DIGIT] = child;
+                children = newChildren;
+            }
+            return child;
+        }
+    }
+}
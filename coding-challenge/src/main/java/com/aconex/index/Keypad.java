@@ -0,0 +1,89 @@
+package com.aconex.index;
+
+import java.util.Arrays;
+
+/**
+ * Maps letters to the digits they're written with on a standard phone keypad.
+ * <p/>
+ * The mapping is held in a table indexed by character so encoding a letter is a single array read. Upper and lowercase
+ * letters map to the same digit, so text doesn't need to be converted to uppercase before it's encoded. The bulk
+ * encoders pack letters straight into a {@link DigitKey} without creating anything along the way.
+ */
+public final class Keypad {
+    private static final byte NOT_A_LETTER = -1;
+    private static final byte[] DIGITS = new byte[128];
+
+    static {
+        final String[] letters = { "ABC", "DEF", "GHI", "JKL", "MNO", "PQRS", "TUV", "WXYZ" };
+        Arrays.fill(DIGITS, NOT_A_LETTER);
+        for (int i = 0; i < letters.length; i++) {
+            for (final char letter : letters[i].toCharArray()) {
+                DIGITS[letter] = (byte) (i + 2);
+                DIGITS[Character.toLowerCase(letter)] = (byte) (i + 2);
+            }
+        }
+    }
+
+    private Keypad() {
+    }
+
+    /**
+     * Gets the keypad digit for a letter.
+     *
+     * @return the digit between 2 and 9, or -1 if the character isn't an ASCII letter.
+     */
+    public static int digitOf(final char c) {
+        return (c < DIGITS.length) ? DIGITS[c] : NOT_A_LETTER;
+    }
+
+    /**
+     * Gets the keypad digit for an ASCII encoded letter.
+     *
+     * @return the digit between 2 and 9, or -1 if the byte isn't an ASCII letter.
+     */
+    public static int digitOf(final byte b) {
+        return (b >= 0) ? DIGITS[b] : NOT_A_LETTER;
+    }
+
+    /**
+     * Encodes the letters between start (inclusive) and end (exclusive) into a key.
+     *
+     * @return the key or {@link DigitKey#INVALID} if there are more than {@link DigitKey#MAX_LENGTH} letters or any
+     * character isn't a letter.
+     */
+    public static long encode(final char[] letters, final int start, final int end) {
+        if (end - start > DigitKey.MAX_LENGTH) {
+            return DigitKey.INVALID;
+        }
+        long key = DigitKey.EMPTY;
+        for (int i = start; i < end; i++) {
+            final int digit = digitOf(letters[i]);
+            if (digit < 0) {
+                return DigitKey.INVALID;
+            }
+            key = DigitKey.append(key, digit);
+        }
+        return key;
+    }
+
+    /**
+     * Encodes the ASCII letters between start (inclusive) and end (exclusive) into a key.
+     *
+     * @return the key or {@link DigitKey#INVALID} if there are more than {@link DigitKey#MAX_LENGTH} letters or any
+     * byte isn't a letter.
+     */
+    public static long encode(final byte[] letters, final int start, final int end) {
+        if (end - start > DigitKey.MAX_LENGTH) {
+            return DigitKey.INVALID;
+        }
+        long key = DigitKey.EMPTY;
+        for (int i = start; i < end; i++) {
+            final int digit = digitOf(letters[i]);
+            if (digit < 0) {
+                return DigitKey.INVALID;
+            }
+            key = DigitKey.append(key, digit);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,150 @@
+package com.aconex.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read only index over a file written by {@link WordIndexWriter}.
+ * <p/>
+ * The file is memory mapped and lookups are made directly against the mapped buffer, so opening the index costs the
+ * same however large the dictionary is and processes using the same file share it through the page cache. Strings are
+ * only created when a word is read from a range.
+ * <p/>
+ * The index never changes, so it's only a {@link WordLookup} and entries can't be loaded into it. An index that can be
+ * changed is written out again with {@link WordIndexWriter} instead.
+ */
+public class MappedWordIndex extends WordLookup {
+    static final int MAGIC = 0x41435857;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * 4;
+    private static final int SLOT_SIZE = 2 * 8;
+
+    private final File indexFile;
+    private final ByteBuffer buffer;
+    private final int maxKeyLength;
+    private final int capacity;
+    private final int wordCount;
+    private final int offsetsStart;
+    private final int wordsStart;
+
+    /**
+     * Maps the index file provided.
+     *
+     * @param indexFile a file written by {@link WordIndexWriter}.
+     * @throws IllegalArgumentException if the file isn't a complete word index.
+     */
+    public MappedWordIndex(final File indexFile) throws IOException {
+        this.indexFile = indexFile;
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "r"); FileChannel channel = file.getChannel()) {
+            //the mapping stays valid once the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(String.format("%s is not a word index file.", indexFile.getPath()));
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException(String.format("%s was written with an unsupported version %d.", indexFile.getPath(), buffer.getInt(4)));
+        }
+        maxKeyLength = buffer.getInt(8);
+        capacity = buffer.getInt(12);
+        wordCount = buffer.getInt(16);
+        //the sizes are checked against the length of the file so a truncated or damaged file can't be read past its end.
+        final long offsetsEnd = HEADER_SIZE + (long) capacity * SLOT_SIZE + (wordCount + 1L) * 4;
+        if (capacity < 1 || Integer.bitCount(capacity) != 1 || wordCount < 0 || offsetsEnd > buffer.capacity()
+                || offsetsEnd + buffer.getInt((int) offsetsEnd - 4) != buffer.capacity()) {
+            throw new IllegalArgumentException(String.format("%s is not a complete word index file.", indexFile.getPath()));
+        }
+        offsetsStart = HEADER_SIZE + capacity * SLOT_SIZE;
+        wordsStart = (int) offsetsEnd;
+    }
+
+    /**
+     * Maps the index file again, picking up an index written to it since this one was mapped.
+     */
+    @Override
+    public MappedWordIndex createReplacement() throws IOException {
+        return new MappedWordIndex(indexFile);
+    }
+
+    /**
+     * Gets 0 as the words of a mapped index never change.
+     */
+    @Override
+    public int getModificationCount() {
+        return 0;
+    }
+
+    /**
+     * Gets the size of the mapped file. It's held outside of the heap and only the pages being read are loaded.
+     */
+    @Override
+    public long estimateMemoryUsage() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public int getIndexedCount() {
+        return wordCount;
+    }
+
+    @Override
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+
+    @Override
+    public long lookup(final long key) {
+        if (key == DigitKey.EMPTY || key == DigitKey.INVALID) {
+            return WordRange.EMPTY;
+        }
+        final int mask = capacity - 1;
+        int slot = DigitKey.hash(key) & mask;
+        long slotKey;
+        while ((slotKey = buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE)) != DigitKey.EMPTY) {
+            if (slotKey == key) {
+                return buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + 8);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return WordRange.EMPTY;
+    }
+
+    @Override
+    public String getWord(final int position) {
+        final int start = buffer.getInt(offsetsStart + position * 4);
+        final int end = buffer.getInt(offsetsStart + (position + 1) * 4);
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(wordsStart + start + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public int getWordLength(final int position) {
+        return buffer.getInt(offsetsStart + (position + 1) * 4) - buffer.getInt(offsetsStart + position * 4);
+    }
+
+    @Override
+    public void appendWord(final int position, final StringBuilder builder) {
+        final int start = buffer.getInt(offsetsStart + position * 4);
+        final int end = buffer.getInt(offsetsStart + (position + 1) * 4);
+        for (int i = start; i < end; i++) {
+            builder.append((char) buffer.get(wordsStart + i));
+        }
+    }
+
+    @Override
+    void visitKeys(final KeyVisitor visitor) {
+        for (int slot = 0; slot < capacity; slot++) {
+            final long key = buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE);
+            if (key != DigitKey.EMPTY) {
+                visitor.visit(key, buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + 8));
+            }
+        }
+    }
+}
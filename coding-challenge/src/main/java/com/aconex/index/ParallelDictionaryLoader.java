@@ -0,0 +1,194 @@
+package com.aconex.index;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads a dictionary file into a {@link WordIndex} using several threads.
+ * <p/>
+ * The file is mapped and split into byte ranges on line boundaries. Each range is read and encoded into its own partial
+ * index on a fork-join pool, and the partial indexes are merged into the target in file order as they complete. Lines
+ * that are a single word of ASCII letters are encoded straight from their bytes with {@link Keypad}, and any other line
+ * is decoded and goes through {@link WordIndex#loadIndex(String)}. Both give the same entry and the merge keeps the
+ * order of the words for each key, so the result is the same as loading the file with
+ * {@link WordIndex#loadIndex(java.io.InputStream)}.
+ */
+public class ParallelDictionaryLoader {
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final String ASCII_CHECK = "\n\rABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private final int parallelism;
+    private final int minimumChunkSize;
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism the number of threads to encode the dictionary with. Must be at least 1.
+     */
+    public ParallelDictionaryLoader(final int parallelism) {
+        this(parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    ParallelDictionaryLoader(final int parallelism, final int minimumChunkSize) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.minimumChunkSize = minimumChunkSize;
+    }
+
+    /**
+     * Loads every line of the file into the index provided.
+     *
+     * @param wordIndex      the index to load into.
+     * @param dictionaryFile the dictionary to load, in the platform's default encoding.
+     */
+    public void load(final WordIndex wordIndex, final File dictionaryFile) throws IOException {
+        final Charset charset = Charset.defaultCharset();
+        if (!Arrays.equals(ASCII_CHECK.getBytes(charset), ASCII_CHECK.getBytes(StandardCharsets.US_ASCII))) {
+            //line boundaries and letters can't be found from the bytes alone so fall back to reading the file serially.
+            wordIndex.loadIndex(new FileInputStream(dictionaryFile));
+            return;
+        }
+
+        final ByteBuffer buffer;
+        try (RandomAccessFile file = new RandomAccessFile(dictionaryFile, "r"); FileChannel channel = file.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final List<ForkJoinTask<WordIndex>> chunks = new ArrayList<>();
+            for (final int[] range : splitOnLines(buffer)) {
+                chunks.add(pool.submit(new ChunkLoader(buffer, range[0], range[1], charset)));
+            }
+            for (final ForkJoinTask<WordIndex> chunk : chunks) {
+                merge(chunk.join(), wordIndex);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits the buffer into ranges that each end just after a new line, or at the end of the buffer.
+     */
+    private List<int[]> splitOnLines(final ByteBuffer buffer) {
+        final int size = buffer.limit();
+        final int chunkSize = Math.max(minimumChunkSize, size / (parallelism * CHUNKS_PER_THREAD) + 1);
+        final List<int[]> ranges = new ArrayList<>();
+        int start = 0;
+        while (start < size) {
+            int end = Math.min(size, start + chunkSize);
+            while (end < size && buffer.get(end - 1) != '\n') {
+                end++;
+            }
+            ranges.add(new int[]{ start, end });
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * Adds every word of the partial index to the target. Words for each key are added in the order they were loaded
+     * into the partial index, which is the order they appear in the chunk.
+     */
+    private void merge(final WordIndex partialIndex, final WordIndex wordIndex) {
+        partialIndex.visitKeys(new WordLookup.KeyVisitor() {
+            @Override
+            public void visit(final long key, final long range) {
+                for (int i = WordRange.start(range); i < WordRange.end(range); i++) {
+                    wordIndex.addEncodedEntry(partialIndex.getWord(i), key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads and encodes the lines of one range of the file into a partial index.
+     */
+    private static final class ChunkLoader implements Callable<WordIndex> {
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+        private final Charset charset;
+        private final char[] wordBuffer = new char[DigitKey.MAX_LENGTH];
+
+        private ChunkLoader(final ByteBuffer buffer, final int start, final int end, final Charset charset) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.charset = charset;
+        }
+
+        @Override
+        public WordIndex call() {
+            final byte[] bytes = new byte[end - start];
+            final ByteBuffer chunk = buffer.duplicate();
+            chunk.position(start);
+            chunk.get(bytes);
+
+            final WordIndex partialIndex = new WordIndex();
+            int lineStart = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    loadLine(partialIndex, bytes, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            loadLine(partialIndex, bytes, lineStart, bytes.length);
+            return partialIndex;
+        }
+
+        private void loadLine(final WordIndex partialIndex, final byte[] bytes, final int lineStart, final int lineEnd) {
+            //the \r of a \r\n pair ends an empty line which is ignored when loaded.
+            final int end = (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') ? lineEnd - 1 : lineEnd;
+            if (end == lineStart) {
+                return;
+            }
+            final long key = Keypad.encode(bytes, lineStart, end);
+            if (key != DigitKey.INVALID) {
+                //a valid key means the line is at most MAX_LENGTH letters so it fits in the buffer.
+                for (int i = lineStart; i < end; i++) {
+                    final byte b = bytes[i];
+                    wordBuffer[i - lineStart] = (char) ((b >= 'a') ? b - 'a' + 'A' : b);
+                }
+                partialIndex.addEncodedEntry(new String(wordBuffer, 0, end - lineStart), key);
+                return;
+            }
+
+            final String text = new String(bytes, lineStart, end - lineStart, charset);
+            int textStart = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (isLineSeparator(text.charAt(i))) {
+                    partialIndex.loadIndex(text.substring(textStart, i));
+                    textStart = i + 1;
+                }
+            }
+            if (textStart < text.length()) {
+                partialIndex.loadIndex(text.substring(textStart));
+            }
+        }
+
+        /**
+         * Matches the line separators recognised by {@link java.util.Scanner#nextLine()}. The \r of a \r\n pair ends an
+         * empty line which is ignored when loaded.
+         */
+        private static boolean isLineSeparator(final char c) {
+            return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.aconex.index;
+
+/**
+ * Receives the words found while walking a number through a {@link WordIndex}.
+ */
+public interface PrefixMatchListener {
+    /**
+     * Called for each offset of the walked number where the digits from the start of the walk match indexed words.
+     *
+     * @param end   the offset (exclusive) where the matching words end.
+     * @param range the {@link WordRange} of the words matching the digits between the start of the walk and end. Never
+     *              empty.
+     */
+    void onMatch(int end, long range);
+}
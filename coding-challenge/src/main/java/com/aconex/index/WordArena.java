@@ -0,0 +1,170 @@
+package com.aconex.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Holds the letters of words as ASCII bytes in one growable array, each word prefixed with its length and addressed by
+ * the offset of that length. A word costs a byte more than its letters rather than a String and its array.
+ * <p/>
+ * Words are only ever added, so an offset stays valid for as long as the arena is held. Words can be read from any
+ * number of threads while others are added, as long as the offset was handed over through something that publishes it
+ * safely, such as the table of an index.
+ * <p/>
+ * An arena can be shared between indexes, in which case each word is only stored once however many indexes hold it and
+ * they all hold the same offset for it. Shared arenas keep a table of the offsets of their words to find them again,
+ * costing a few bytes per word, so indexes that don't share an arena don't look words up at all.
+ */
+public class WordArena {
+    private static final int INITIAL_CAPACITY = 8192;
+    private static final int INITIAL_TABLE_SIZE = 1024;
+    private static final int ARRAY_OVERHEAD = 16;
+    /**
+     * Marks an empty slot of the table. Offsets are stored plus one so the first word can be told apart from it.
+     */
+    private static final int EMPTY_SLOT = 0;
+
+    private final boolean shared;
+    private volatile byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int used;
+    private int[] table;
+    private int wordCount;
+
+    /**
+     * Creates an arena for a single index, which stores every word it's given.
+     */
+    public WordArena() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param shared whether the arena is shared between indexes, so words it already holds are handed back rather
+     *               than stored again.
+     */
+    public WordArena(final boolean shared) {
+        this.shared = shared;
+        this.table = shared ? new int[INITIAL_TABLE_SIZE] : null;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Adds a processed word to the arena. Words are keypad letters and no longer than a key, so each letter and the
+     * length fit in a byte.
+     *
+     * @return the offset of the word, which is the offset it already had if the arena is shared and holds it.
+     */
+    public synchronized int add(final String word) {
+        if (!shared) {
+            return append(word);
+        }
+        final int slot = findSlot(table, word);
+        if (table[slot] != EMPTY_SLOT) {
+            return table[slot] - 1;
+        }
+        final int offset = append(word);
+        table[slot] = offset + 1;
+        if (wordCount * 2 > table.length) {
+            resize();
+        }
+        return offset;
+    }
+
+    private int append(final String word) {
+        byte[] currentBytes = bytes;
+        if (used + word.length() + 1 > currentBytes.length) {
+            currentBytes = Arrays.copyOf(currentBytes, Math.max(currentBytes.length * 2, used + word.length() + 1));
+            bytes = currentBytes;
+        }
+        final int offset = used;
+        currentBytes[used++] = (byte) word.length();
+        for (int i = 0; i < word.length(); i++) {
+            currentBytes[used++] = (byte) word.charAt(i);
+        }
+        wordCount++;
+        return offset;
+    }
+
+    /**
+     * Finds the slot holding the word, or the empty slot where it should be added.
+     */
+    private int findSlot(final int[] slots, final String word) {
+        final int mask = slots.length - 1;
+        int slot = word.hashCode() & mask;
+        while (slots[slot] != EMPTY_SLOT && !isWordAt(slots[slot] - 1, word)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        final int[] newTable = new int[table.length * 2];
+        for (final int entry : table) {
+            if (entry != EMPTY_SLOT) {
+                newTable[findSlot(newTable, getWord(entry - 1))] = entry;
+            }
+        }
+        table = newTable;
+    }
+
+    /**
+     * Checks whether the word at an offset is the word provided.
+     */
+    public boolean isWordAt(final int offset, final String word) {
+        final byte[] currentBytes = bytes;
+        if (currentBytes[offset] != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (currentBytes[offset + 1 + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of letters in the word at an offset.
+     */
+    public int getLength(final int offset) {
+        return bytes[offset];
+    }
+
+    /**
+     * Gets the word at an offset, creating a String for it.
+     */
+    public String getWord(final int offset) {
+        final byte[] currentBytes = bytes;
+        return new String(currentBytes, offset + 1, currentBytes[offset], StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Appends the word at an offset to the builder without creating a String for it.
+     */
+    public void appendWord(final int offset, final StringBuilder builder) {
+        final byte[] currentBytes = bytes;
+        final int end = offset + 1 + currentBytes[offset];
+        for (int i = offset + 1; i < end; i++) {
+            builder.append((char) currentBytes[i]);
+        }
+    }
+
+    /**
+     * Gets the number of words stored, which for a shared arena is the number of distinct words held by all of the
+     * indexes sharing it.
+     */
+    public synchronized int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Estimates the heap used by the arena, including the table of a shared arena.
+     */
+    public synchronized long estimateMemoryUsage() {
+        return ARRAY_OVERHEAD + bytes.length + (shared ? ARRAY_OVERHEAD + (long) table.length * 4 : 0);
+    }
+}
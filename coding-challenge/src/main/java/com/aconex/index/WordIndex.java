@@ -1,32 +1,98 @@
 package com.aconex.index;
 
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Scanner;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.aconex.metrics.Metrics;
 import com.aconex.util.TextUtils;
 
 /**
- * Controls mapping of numbers to Strings that could be derived using a standard phone handset.
+ * Controls mapping of numbers to Strings that could be derived using a standard phone handset. Entries can be loaded
+ * into and removed from the index, and it's matched against through the read only {@link WordLookup} it extends.
+ * <p/>
+ * Keys are held in an open addressing table of primitive longs and all words are held in a single flat array of
+ * positions, with the words for each key kept next to each other. Looking up a key hands back a {@link WordRange} of
+ * positions in that array so neither a hit nor a miss allocates anything.
+ * <p/>
+ * The letters of the words are held in a {@link WordArena} and a position holds the offset of its word in the arena, so
+ * copying a range only copies offsets. Indexes can share an arena so words they have in common are only held once.
+ * Strings are only created when a word is read with {@link #getWord(int)}, and
+ * {@link #appendWord(int, StringBuilder)} writes a word out without creating one at all.
+ * <p/>
+ * An index can be searched from any number of threads while entries are added or removed. Keys and their ranges are held
+ * together in one atomic table, and changing the words of a key writes a new copy of its range after the last word held
+ * before the range is swapped in, so readers are never blocked and always see a complete set of words for a key.
+ * Changes are made one at a time.
+ * <p/>
+ * The positions left behind by copied ranges can't be reused while a reader might still hold a range over them, so they
+ * are counted instead. Once most of the positions held are unused, {@link #createCompactedCopy()} builds an index
+ * holding only the words in use to be swapped in for this one.
  */
-public class WordIndex {
+public class WordIndex extends WordLookup {
     private static final Logger LOGGER = Logger.getLogger(WordIndex.class.getName());
-    private Map<Integer, Set<String>> wordMap = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 1024;
+    static final int ARRAY_OVERHEAD = 16;
+    static final int REFERENCE_SIZE = 4;
+
+    private static final String DELTA_ADD = "+";
+    private static final String DELTA_REMOVE = "-";
+    private static final String ACTION_ADD = "adding";
+    private static final String ACTION_REMOVE = "removing";
+
+    /**
+     * Each key is held at an even position with its range at the position after it.
+     */
+    private volatile AtomicLongArray table = new AtomicLongArray(INITIAL_CAPACITY * 2);
+    private int keyCount;
+
+    private final WordArena arena;
+    private volatile int[] words = new int[INITIAL_CAPACITY];
+    private int wordsUsed;
+    private int unusedWords;
+    private volatile int indexedCount;
+    private volatile int maxKeyLength;
+    private volatile int modificationCount;
+    private char[] entryBuffer = new char[32];
+
+    /**
+     * Creates an index that holds its words in an arena of its own.
+     */
+    public WordIndex() {
+        this(new WordArena());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param arena holds the letters of the words. Must not be null.
+     */
+    public WordIndex(final WordArena arena) {
+        if (arena == null) {
+            throw new IllegalArgumentException("Arena cannot be null");
+        }
+        this.arena = arena;
+    }
 
     /**
      * Gets the total number of String values that are held by the index at the current time.
      */
+    @Override
     public int getIndexedCount() {
-        int count = 0;
-        for (Set<String> values : wordMap.values()) {
-            count += values.size();
-        }
-        return count;
+        return indexedCount;
+    }
+
+    /**
+     * Gets a count that changes every time the words held by the index change, so anything derived from the index can
+     * tell when it's out of date.
+     */
+    @Override
+    public int getModificationCount() {
+        return modificationCount;
     }
 
     /**
@@ -52,97 +118,387 @@ public class WordIndex {
      *
      * @param newEntry the new entry to add.
      */
-    public void loadIndex(final String newEntry) {
-        final StringBuilder builder = new StringBuilder();
+    public synchronized void loadIndex(final String newEntry) {
+        final long key = processEntry(newEntry, ACTION_ADD);
+        if (key != DigitKey.EMPTY && key != DigitKey.INVALID) {
+            addEncodedEntry(new String(entryBuffer, 0, DigitKey.length(key)), key);
+        }
+    }
+
+    /**
+     * Removes an individual entry from the index. The entry is processed the same way as when it's loaded so it matches
+     * the word that was added for it. Nothing is changed if the entry isn't held.
+     *
+     * @param entry the entry to remove.
+     */
+    public synchronized void removeEntry(final String entry) {
+        final long key = processEntry(entry, ACTION_REMOVE);
+        if (key != DigitKey.EMPTY && key != DigitKey.INVALID) {
+            removeFromIndex(new String(entryBuffer, 0, DigitKey.length(key)), key);
+        }
+    }
+
+    /**
+     * Loads each of the entries provided into the index.
+     */
+    public synchronized void addEntries(final Collection<String> entries) {
+        for (final String entry : entries) {
+            loadIndex(entry);
+        }
+    }
+
+    /**
+     * Removes each of the entries provided from the index.
+     */
+    public synchronized void removeEntries(final Collection<String> entries) {
+        for (final String entry : entries) {
+            removeEntry(entry);
+        }
+    }
+
+    /**
+     * Applies a delta of changes to the index, costing time in proportion to the size of the delta rather than the
+     * index. Each line holds a "+" followed by an entry to load or a "-" followed by an entry to remove, applied in the
+     * order they appear. Blank lines are ignored, as are any other lines once they have been logged.
+     *
+     * @param inputStream the inputStream containing the delta to be applied.
+     */
+    public void applyDelta(final InputStream inputStream) {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Stream cannot be null");
+        }
 
-        //process the input and remove redundant characters then convert to uppercase to reflect desired output.
-        final String processedEntry = TextUtils.stripRedundantCharacters(newEntry).toUpperCase();
-        for (char currentChar : processedEntry.toCharArray()) {
+        try (Scanner scanner = new Scanner(inputStream)) {
+            int lineNumber = 0;
+            while (scanner.hasNext()) {
+                final String line = scanner.nextLine();
+                lineNumber++;
+                if (line.startsWith(DELTA_ADD)) {
+                    loadIndex(line.substring(DELTA_ADD.length()));
+                } else if (line.startsWith(DELTA_REMOVE)) {
+                    removeEntry(line.substring(DELTA_REMOVE.length()));
+                } else if (!TextUtils.isEmpty(line)) {
+                    LOGGER.log(Level.WARNING, "Ignoring line {0} of delta as it doesn''t start with + or -: {1}", new Object[]{ lineNumber, line });
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes redundant characters from an entry, converts it to uppercase to reflect desired output and encodes it in a
+     * single pass. The processed entry is left at the start of the entry buffer, taking one character per digit of the
+     * key returned.
+     *
+     * @param action what is being done with the entry, used when logging why it isn't being used. Only entries being
+     *               added are counted as rejected words.
+     * @return the key of the entry, {@link DigitKey#EMPTY} if it had nothing to encode or {@link DigitKey#INVALID} if it
+     * can't be encoded.
+     */
+    private long processEntry(final String newEntry, final String action) {
+        if (newEntry == null) {
+            return DigitKey.EMPTY;
+        }
+        if (entryBuffer.length < newEntry.length()) {
+            entryBuffer = new char[Math.max(entryBuffer.length * 2, newEntry.length())];
+        }
+        int length = 0;
+        long key = DigitKey.EMPTY;
+        for (int i = 0; i < newEntry.length(); i++) {
+            final char currentChar = newEntry.charAt(i);
+            if (!TextUtils.isWordCharacter(currentChar)) {
+                continue;
+            }
+            final char upperCaseChar = (currentChar >= 'a' && currentChar <= 'z') ? (char) (currentChar - 'a' + 'A') : currentChar;
             //determine what the corresponding value should be for the current char
-            int encodedChar = getNumberEncoding(currentChar);
-            if (isValidEncoding(encodedChar)) {
-                builder.append(encodedChar);
-            } else {
+            final int encodedChar = Keypad.digitOf(currentChar);
+            if (encodedChar < 0) {
+                if (Metrics.ENABLED && action == ACTION_ADD) {
+                    Metrics.get().recordRejectedUnmappable();
+                }
                 if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.log(Level.FINE, "Not adding value {0} to file as it contained {1} which can't be mapped to a number.", new Object[]{ newEntry, currentChar });
+                    LOGGER.log(Level.FINE, "Not {2} value {0} as it contained {1} which can''t be mapped to a number.", new Object[]{ newEntry, upperCaseChar, action });
                 }
-                return;
+                return DigitKey.INVALID;
+            }
+            entryBuffer[length++] = upperCaseChar;
+            key = DigitKey.append(key, encodedChar);
+        }
+        if (key == DigitKey.INVALID) {
+            //the dictionary may have very large words in it that don't fit into a key. Just drop them if this happens. Chances are they aren't going to be useful for mapping anyway.
+            if (Metrics.ENABLED && action == ACTION_ADD) {
+                Metrics.get().recordRejectedTooLong();
+            }
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Not {1} value {0} as it was too long for a standard number.", new Object[]{ new String(entryBuffer, 0, length), action });
             }
         }
-        addToIndex(processedEntry, builder.toString());
+        return key;
     }
 
-    private boolean isValidEncoding(final int encodedChar) {
-        return encodedChar > 0;
+    /**
+     * Adds an entry that has already been processed and encoded, for loaders that encode entries away from the index.
+     */
+    synchronized void addEncodedEntry(final String processedEntry, final long key) {
+        maxKeyLength = Math.max(maxKeyLength, DigitKey.length(key));
+        addToIndex(processedEntry, key);
     }
 
-    private void addToIndex(final String processedEntry, final String newEntryConvertedToNumbers) {
-        try {
-            int entryNumberValue = Integer.parseInt(newEntryConvertedToNumbers);
-            getEntriesFromMap(entryNumberValue).add(processedEntry);
-        } catch (NumberFormatException e) {
-            //the dictionary may have very large words in it that don't fit into a standard int. Just drop them if this happens. Chances are they aren't going to be useful for mapping anyway.
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.log(Level.FINE, "Not adding value {0} to file as it was too long for a standard number.", new Object[]{ newEntryConvertedToNumbers });
+    /**
+     * Stores a processed entry against the key made from the keypad digits it converts to. Subclasses override this
+     * along with {@link #lookup(long)} to change how keys are held, using {@link #addWord(long, String)} to store the
+     * words themselves.
+     *
+     * @param processedEntry the uppercase entry with redundant characters removed.
+     * @param key            the {@link DigitKey} of the keypad digits the entry converts to.
+     */
+    protected void addToIndex(final String processedEntry, final long key) {
+        final AtomicLongArray currentTable = table;
+        final int slot = findSlot(currentTable, key);
+        if (currentTable.get(slot) == DigitKey.EMPTY) {
+            //set the range before the key so a reader finding the key always finds its words.
+            currentTable.set(slot + 1, addWord(WordRange.EMPTY, processedEntry));
+            currentTable.set(slot, key);
+            keyCount++;
+            if (keyCount * 4 > currentTable.length()) {
+                resize();
+            }
+        } else {
+            currentTable.set(slot + 1, addWord(currentTable.get(slot + 1), processedEntry));
+        }
+    }
+
+    /**
+     * Removes a processed entry from the key made from the keypad digits it converts to. Subclasses overriding
+     * {@link #addToIndex(String, long)} must override this as well, using {@link #removeWord(long, String)} to remove the
+     * word itself.
+     *
+     * @param processedEntry the uppercase entry with redundant characters removed.
+     * @param key            the {@link DigitKey} of the keypad digits the entry converts to.
+     */
+    protected void removeFromIndex(final String processedEntry, final long key) {
+        final AtomicLongArray currentTable = table;
+        final int slot = findSlot(currentTable, key);
+        if (currentTable.get(slot) == key) {
+            //the key is kept with an empty range so probing past it still works.
+            currentTable.set(slot + 1, removeWord(currentTable.get(slot + 1), processedEntry));
+        }
+    }
+
+    /**
+     * Adds a word to a range of words, keeping the words of the range next to each other. If the range doesn't end at
+     * the last word held, the range is copied to the end before the word is added to it. Words already in the range
+     * aren't added again.
+     *
+     * @return the range including the new word.
+     */
+    protected final long addWord(final long range, final String word) {
+        final int position = indexOf(range, word);
+        if (position >= 0) {
+            return range;
+        }
+        int start = WordRange.start(range);
+        final int size = WordRange.size(range);
+        final int offset = arena.add(word);
+        final int[] currentWords = ensureWordCapacity(size + 1);
+        if (size == 0 || WordRange.end(range) != wordsUsed) {
+            System.arraycopy(currentWords, start, currentWords, wordsUsed, size);
+            start = wordsUsed;
+            wordsUsed += size;
+            unusedWords += size;
+        }
+        currentWords[wordsUsed++] = offset;
+        indexedCount++;
+        modificationCount++;
+        return WordRange.of(start, size + 1);
+    }
+
+    /**
+     * Removes a word from a range of words. The words left are copied to the end of the words held so readers of the
+     * original range still see every word of it.
+     *
+     * @return the range without the word, which is the range provided if it didn't hold the word.
+     */
+    protected final long removeWord(final long range, final String word) {
+        final int position = indexOf(range, word);
+        if (position < 0) {
+            return range;
+        }
+        final int size = WordRange.size(range) - 1;
+        final long newRange;
+        if (size == 0) {
+            newRange = WordRange.EMPTY;
+        } else {
+            final int[] currentWords = ensureWordCapacity(size);
+            final int start = WordRange.start(range);
+            System.arraycopy(currentWords, start, currentWords, wordsUsed, position - start);
+            System.arraycopy(currentWords, position + 1, currentWords, wordsUsed + position - start, WordRange.end(range) - position - 1);
+            newRange = WordRange.of(wordsUsed, size);
+            wordsUsed += size;
+        }
+        unusedWords += size + 1;
+        indexedCount--;
+        modificationCount++;
+        return newRange;
+    }
+
+    private int indexOf(final long range, final String word) {
+        final int[] currentWords = words;
+        for (int i = WordRange.start(range); i < WordRange.end(range); i++) {
+            if (arena.isWordAt(currentWords[i], word)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Makes sure there is room for more words after the last word held, returning the array to write them to.
+     */
+    private int[] ensureWordCapacity(final int extraWords) {
+        int[] currentWords = words;
+        if (wordsUsed + extraWords > currentWords.length) {
+            currentWords = Arrays.copyOf(currentWords, Math.max(currentWords.length * 2, wordsUsed + extraWords));
+            words = currentWords;
+        }
+        return currentWords;
+    }
+
+    /**
+     * Finds the position of the key in the table, or of the empty slot where it should be added.
+     */
+    private static int findSlot(final AtomicLongArray table, final long key) {
+        final int mask = (table.length() >> 1) - 1;
+        int slot = DigitKey.hash(key) & mask;
+        long slotKey;
+        while ((slotKey = table.get(slot << 1)) != DigitKey.EMPTY && slotKey != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot << 1;
+    }
+
+    /**
+     * Copies the keys into a table twice the size. Readers carry on with the old table until the new one is swapped in.
+     */
+    private void resize() {
+        final AtomicLongArray oldTable = table;
+        final AtomicLongArray newTable = new AtomicLongArray(oldTable.length() * 2);
+        for (int i = 0; i < oldTable.length(); i += 2) {
+            final long key = oldTable.get(i);
+            if (key != DigitKey.EMPTY) {
+                final int slot = findSlot(newTable, key);
+                newTable.set(slot + 1, oldTable.get(i + 1));
+                newTable.set(slot, key);
+            }
+        }
+        table = newTable;
+    }
+
+    /**
+     * Creates a new empty index of the same type for the dictionary to be loaded into again. Subclasses override this to
+     * create one of their own.
+     */
+    @Override
+    public WordIndex createReplacement() {
+        return new WordIndex();
+    }
+
+    /**
+     * Whether more than half of the word positions held are left over from ranges that have since been copied, so a
+     * compacted copy of the index would use noticeably less memory.
+     */
+    public synchronized boolean isWorthCompacting() {
+        return unusedWords * 2 > wordsUsed;
+    }
+
+    /**
+     * Creates a new index of the same type holding only the words held by this one, with the words of each key next to
+     * each other and an arena of its own. This index isn't changed, so numbers being matched against it can carry on
+     * while the copy is swapped in.
+     */
+    public synchronized WordIndex createCompactedCopy() {
+        final WordIndex copy = createReplacement();
+        visitKeys(new KeyVisitor() {
+            @Override
+            public void visit(final long key, final long range) {
+                for (int i = WordRange.start(range); i < WordRange.end(range); i++) {
+                    copy.addEncodedEntry(getWord(i), key);
+                }
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * Visits every key held by the index along with the range of its words. Subclasses holding keys differently must
+     * override this.
+     */
+    @Override
+    void visitKeys(final KeyVisitor visitor) {
+        final AtomicLongArray currentTable = table;
+        for (int i = 0; i < currentTable.length(); i += 2) {
+            final long key = currentTable.get(i);
+            final long range = currentTable.get(i + 1);
+            if (key != DigitKey.EMPTY && !WordRange.isEmpty(range)) {
+                visitor.visit(key, range);
             }
         }
     }
 
-    private Set<String> getEntriesFromMap(final int key) {
-        Set<String> entries = wordMap.get(key);
-        if (entries == null) {
-            entries = new HashSet<>();
-            wordMap.put(key, entries);
-        }
-        return entries;
-    }
-
-    /**
-     * Searches the index for any values that match the number provided. If there are no matching entries null will be
-     * returned.
-     */
-    public Set<String> search(int number) {
-        return wordMap.get(number);
-    }
-
-    private int getNumberEncoding(char c) {
-        switch (c) {
-            case 'A':
-            case 'B':
-            case 'C':
-                return 2;
-            case 'D':
-            case 'E':
-            case 'F':
-                return 3;
-            case 'G':
-            case 'H':
-            case 'I':
-                return 4;
-            case 'J':
-            case 'K':
-            case 'L':
-                return 5;
-            case 'M':
-            case 'N':
-            case 'O':
-                return 6;
-            case 'P':
-            case 'Q':
-            case 'R':
-            case 'S':
-                return 7;
-            case 'T':
-            case 'U':
-            case 'V':
-                return 8;
-            case 'W':
-            case 'X':
-            case 'Y':
-            case 'Z':
-                return 9;
-            default:
-                return -1;
+    /**
+     * Estimates the heap used by the index, counting the table, the positions of the words and the arena holding their
+     * letters. Words left behind by copied ranges are counted as they're still held. A shared arena isn't counted as it's
+     * held by every index sharing it.
+     */
+    @Override
+    public long estimateMemoryUsage() {
+        final long bytes = ARRAY_OVERHEAD + (long) table.length() * 8 + ARRAY_OVERHEAD + (long) words.length * 4;
+        return arena.isShared() ? bytes : bytes + arena.estimateMemoryUsage();
+    }
+
+    /**
+     * Gets the number of digits in the longest word held by the index. No search for more digits than this can match.
+     */
+    @Override
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+
+    /**
+     * Looks up the words that match the {@link DigitKey} provided without allocating.
+     *
+     * @return the {@link WordRange} of the matching words, which is {@link WordRange#EMPTY} when nothing matches.
+     */
+    @Override
+    public long lookup(final long key) {
+        if (key == DigitKey.EMPTY || key == DigitKey.INVALID) {
+            return WordRange.EMPTY;
         }
+        final AtomicLongArray currentTable = table;
+        final int slot = findSlot(currentTable, key);
+        return (currentTable.get(slot) == key) ? currentTable.get(slot + 1) : WordRange.EMPTY;
+    }
+
+    /**
+     * Gets the word held at a position from a {@link WordRange}, creating a String for it.
+     */
+    @Override
+    public String getWord(final int position) {
+        return arena.getWord(words[position]);
+    }
+
+    /**
+     * Gets the number of letters in the word held at a position from a {@link WordRange}.
+     */
+    @Override
+    public int getWordLength(final int position) {
+        return arena.getLength(words[position]);
+    }
+
+    /**
+     * Appends the word held at a position from a {@link WordRange} to the builder without creating a String for it.
+     */
+    @Override
+    public void appendWord(final int position, final StringBuilder builder) {
+        arena.appendWord(words[position], builder);
     }
 }
@@ -0,0 +1,142 @@
+package com.aconex.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Offline tool that writes a {@link WordIndex} out in the binary format read by {@link MappedWordIndex}, so the
+ * dictionary doesn't need to be read and encoded every time the application starts.
+ * <p/>
+ * The file holds a header, an open addressing table of keys and word ranges laid out the same way as {@link WordIndex},
+ * the byte offset of each word and then the words themselves as ASCII. The words for each key are written next to each
+ * other so the ranges in the table can be used as they are.
+ */
+public final class WordIndexWriter {
+    private static final String DEFAULT_DICTIONARY = "/com/aconex/dictionary";
+
+    private WordIndexWriter() {
+    }
+
+    /**
+     * Writes an index file for a dictionary.
+     *
+     * @param args the file to write followed by the dictionary to read. The packaged dictionary is read if there is no
+     *             second argument.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args == null || args.length == 0) {
+            System.err.println("Usage: WordIndexWriter <index file to write> [dictionary file]");
+            System.exit(1);
+        }
+        final InputStream dictionary = (args.length > 1) ? new FileInputStream(args[1]) : WordIndexWriter.class.getResourceAsStream(DEFAULT_DICTIONARY);
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(dictionary);
+
+        final File indexFile = new File(args[0]);
+        write(wordIndex, indexFile);
+        System.out.println(String.format("Wrote %d words to %s", wordIndex.getIndexedCount(), indexFile.getPath()));
+    }
+
+    /**
+     * Writes the content of an index to the file provided, replacing anything already in it. The index is written to a
+     * temporary file next to it which is then moved over it in one step, so anything mapping or watching the file only
+     * ever sees a complete index.
+     */
+    public static void write(final WordLookup wordIndex, final File file) throws IOException {
+        //gather the keys first so the table can be sized and the words for each key written together.
+        final KeyLayout layout = new KeyLayout(wordIndex);
+        wordIndex.visitKeys(layout);
+
+        int capacity = 2;
+        while (capacity < layout.keyCount * 2) {
+            capacity *= 2;
+        }
+        final long[] tableKeys = new long[capacity];
+        final long[] tableRanges = new long[capacity];
+        for (int i = 0; i < layout.keyCount; i++) {
+            int slot = DigitKey.hash(layout.keys[i]) & (capacity - 1);
+            while (tableKeys[slot] != DigitKey.EMPTY) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            tableKeys[slot] = layout.keys[i];
+            tableRanges[slot] = layout.ranges[i];
+        }
+
+        //unlike File.createTempFile there's no minimum length for the name the temporary file is made from.
+        final Path tempFile = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName() + ".", ".tmp");
+        try {
+            writeTable(wordIndex.getMaxKeyLength(), tableKeys, tableRanges, layout.words, tempFile.toFile());
+            Files.move(tempFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void writeTable(final int maxKeyLength, final long[] tableKeys, final long[] tableRanges,
+            final List<String> words, final File file) throws IOException {
+        final int capacity = tableKeys.length;
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MappedWordIndex.MAGIC);
+            output.writeInt(MappedWordIndex.VERSION);
+            output.writeInt(maxKeyLength);
+            output.writeInt(capacity);
+            output.writeInt(words.size());
+            for (int slot = 0; slot < capacity; slot++) {
+                output.writeLong(tableKeys[slot]);
+                output.writeLong(tableRanges[slot]);
+            }
+
+            int offset = 0;
+            for (final String word : words) {
+                output.writeInt(offset);
+                offset += word.length();
+            }
+            output.writeInt(offset);
+            for (final String word : words) {
+                output.write(word.getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    /**
+     * Collects the keys of an index, giving each key a range in a list of words where its words are next to each other.
+     */
+    private static final class KeyLayout implements WordLookup.KeyVisitor {
+        private final WordLookup wordIndex;
+        private final List<String> words;
+        private long[] keys = new long[16];
+        private long[] ranges = new long[16];
+        private int keyCount;
+
+        private KeyLayout(final WordLookup wordIndex) {
+            this.wordIndex = wordIndex;
+            this.words = new ArrayList<>(wordIndex.getIndexedCount());
+        }
+
+        @Override
+        public void visit(final long key, final long range) {
+            if (keyCount == keys.length) {
+                keys = Arrays.copyOf(keys, keyCount * 2);
+                ranges = Arrays.copyOf(ranges, keyCount * 2);
+            }
+            keys[keyCount] = key;
+            ranges[keyCount] = WordRange.of(words.size(), WordRange.size(range));
+            keyCount++;
+            for (int i = WordRange.start(range); i < WordRange.end(range); i++) {
+                words.add(wordIndex.getWord(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.aconex.index;
+
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read only view of words held against the keypad digits they convert to, which is everything matching a number needs.
+ * <p/>
+ * A {@link WordIndex} is loaded from a dictionary and can have words added and removed, while a {@link MappedWordIndex}
+ * reads an index written ahead of time that never changes. Looking up a key hands back a {@link WordRange} of
+ * positions the words are read from, so neither a hit nor a miss allocates anything.
+ */
+public abstract class WordLookup {
+    /**
+     * Gets the total number of String values that are held at the current time.
+     */
+    public abstract int getIndexedCount();
+
+    /**
+     * Gets a count that changes every time the words held change, so anything derived from them can tell when it's out
+     * of date.
+     */
+    public abstract int getModificationCount();
+
+    /**
+     * Gets the number of digits in the longest word held. No search for more digits than this can match.
+     */
+    public abstract int getMaxKeyLength();
+
+    /**
+     * Looks up the words that match the {@link DigitKey} provided without allocating.
+     *
+     * @return the {@link WordRange} of the matching words, which is {@link WordRange#EMPTY} when nothing matches.
+     */
+    public abstract long lookup(long key);
+
+    /**
+     * Gets the word held at a position from a {@link WordRange}, creating a String for it.
+     */
+    public abstract String getWord(int position);
+
+    /**
+     * Gets the number of letters in the word held at a position from a {@link WordRange}.
+     */
+    public abstract int getWordLength(int position);
+
+    /**
+     * Appends the word held at a position from a {@link WordRange} to the builder without creating a String for it.
+     */
+    public abstract void appendWord(int position, StringBuilder builder);
+
+    /**
+     * Estimates the memory held for the words.
+     */
+    public abstract long estimateMemoryUsage();
+
+    /**
+     * Creates a new instance of the same type for the dictionary to be loaded into again. Indexes written ahead of time
+     * are opened again so they hold whatever has been written since.
+     */
+    public abstract WordLookup createReplacement() throws IOException;
+
+    /**
+     * Visits every key held along with the range of its words.
+     */
+    abstract void visitKeys(KeyVisitor visitor);
+
+    /**
+     * Searches for any values that match the number provided. If there are no matching entries null will be returned.
+     */
+    public Set<String> search(int number) {
+        return search(DigitKey.valueOf(number));
+    }
+
+    /**
+     * Searches for any values that match the {@link DigitKey} provided. If there are no matching entries null will be
+     * returned.
+     * <p/>
+     * The set returned is a read only view of the words. Use {@link #lookup(long)} where allocating the view matters.
+     */
+    public Set<String> search(final long key) {
+        final long range = lookup(key);
+        return WordRange.isEmpty(range) ? null : new WordRangeSet(range);
+    }
+
+    /**
+     * Looks up the words that match the digits between start (inclusive) and end (exclusive) of the provided sequence
+     * without needing a substring to be created first.
+     *
+     * @return the {@link WordRange} of the matching words, which is {@link WordRange#EMPTY} when nothing matches.
+     */
+    public long lookup(final CharSequence digits, final int start, final int end) {
+        if (end <= start || end - start > getMaxKeyLength()) {
+            return WordRange.EMPTY;
+        }
+        return lookup(DigitKey.valueOf(digits, start, end));
+    }
+
+    /**
+     * Walks the digits from start towards the end of the sequence reporting the range of words that matches the digits
+     * from start up to each offset. Offsets without matching words are not reported.
+     *
+     * @param digits   the digits to walk.
+     * @param start    the offset to start walking from.
+     * @param listener notified of each offset that has matching words, in increasing order of offset.
+     */
+    public void walkPrefixes(final CharSequence digits, final int start, final PrefixMatchListener listener) {
+        final int end = Math.min(digits.length(), start + getMaxKeyLength());
+        long key = DigitKey.EMPTY;
+        for (int i = start; i < end; i++) {
+            final int digit = toKeypadDigit(digits.charAt(i));
+            if (digit < 0) {
+                return;
+            }
+            key = DigitKey.append(key, digit);
+
+            final long range = lookup(key);
+            if (!WordRange.isEmpty(range)) {
+                listener.onMatch(i + 1, range);
+            }
+        }
+    }
+
+    /**
+     * Converts a digit character to its numeric value when it is one that keypad letters are mapped to. Zero and one
+     * don't have any letters so no word can contain them and -1 is returned along with any other character.
+     */
+    static int toKeypadDigit(final char c) {
+        return (c >= '2' && c <= '9') ? c - '0' : -1;
+    }
+
+    /**
+     * Receives each key held along with the range of its words.
+     */
+    interface KeyVisitor {
+        void visit(long key, long range);
+    }
+
+    /**
+     * Read only view of the words in a range.
+     */
+    private final class WordRangeSet extends AbstractSet<String> {
+        private final long range;
+
+        private WordRangeSet(final long range) {
+            this.range = range;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int position = WordRange.start(range);
+
+                @Override
+                public boolean hasNext() {
+                    return position < WordRange.end(range);
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return getWord(position++);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return WordRange.size(range);
+        }
+    }
+}
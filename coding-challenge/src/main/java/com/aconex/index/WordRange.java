@@ -0,0 +1,50 @@
+package com.aconex.index;
+
+/**
+ * Packs the position and number of words matching a key into a long so lookups can hand them back without allocating.
+ * <p/>
+ * The position is in the upper 32 bits and the number of words in the lower 32 bits. The words themselves are read with
+ * {@link WordLookup#getWord(int)} for each position from {@link #start(long)} up to {@link #end(long)}.
+ */
+public final class WordRange {
+    /**
+     * The range returned when there are no matching words.
+     */
+    public static final long EMPTY = 0L;
+
+    private WordRange() {
+    }
+
+    /**
+     * Packs a range of size positions from start. Positions don't have to be from an index, so a caller can hold its own
+     * list of positions and hand out ranges of that instead.
+     */
+    public static long of(final int start, final int size) {
+        return ((long) start << Integer.SIZE) | size;
+    }
+
+    /**
+     * Gets the position of the first word in the range.
+     */
+    public static int start(final long range) {
+        return (int) (range >>> Integer.SIZE);
+    }
+
+    /**
+     * Gets the position after the last word in the range.
+     */
+    public static int end(final long range) {
+        return start(range) + size(range);
+    }
+
+    /**
+     * Gets the number of words in the range.
+     */
+    public static int size(final long range) {
+        return (int) range;
+    }
+
+    public static boolean isEmpty(final long range) {
+        return size(range) == 0;
+    }
+}
@@ -0,0 +1,263 @@
+package com.aconex.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.aconex.util.TextUtils;
+
+/**
+ * Reads numbers from a file by mapping it into memory and scanning its bytes for line breaks, without the copying and
+ * decoding of a reader.
+ * <p/>
+ * Files of any size are read through a window of the file that's moved along as it's read, so the whole file is never
+ * mapped at once. The file can be split into ranges that each start at the beginning of a line, and each range read by
+ * its own source, so several threads can read a file at once. Lines end at a new line with any carriage return before
+ * it dropped, and blank lines are skipped the same way as {@link ReaderNumberSource} skips them.
+ * <p/>
+ * The digits of each number are parsed straight from the mapped bytes as it's read, see
+ * {@link NormalisedNumberSource}.
+ */
+public class MappedNumberFile {
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final String ASCII_CHECK = "\n\r\t 0123456789";
+    private static final int SPLIT_READ_SIZE = 256;
+
+    private final File file;
+    private final long size;
+    private final int windowSize;
+    private final Charset charset;
+
+    /**
+     * Constructor.
+     *
+     * @param file the file of numbers to read, in the platform's default encoding. Must not be null.
+     */
+    public MappedNumberFile(final File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedNumberFile(final File file, final int windowSize) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        if (!isSupported(Charset.defaultCharset())) {
+            throw new IllegalArgumentException("Numbers can't be mapped in the default encoding " + Charset.defaultCharset());
+        }
+        this.file = file;
+        this.windowSize = windowSize;
+        this.charset = Charset.defaultCharset();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            this.size = randomAccessFile.length();
+        }
+    }
+
+    /**
+     * Checks whether line breaks and digits can be found in the bytes of an encoding without decoding them.
+     */
+    public static boolean isSupported(final Charset charset) {
+        return Arrays.equals(ASCII_CHECK.getBytes(charset), ASCII_CHECK.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Opens a source for every number in the file.
+     */
+    public NormalisedNumberSource open() throws IOException {
+        return open(0, size);
+    }
+
+    /**
+     * Opens a source for the numbers of the lines starting between start (inclusive) and end (exclusive). Both should be
+     * offsets from {@link #split(int)}, the start of the file or its size.
+     */
+    public NormalisedNumberSource open(final long start, final long end) throws IOException {
+        return new RangeSource(start, end);
+    }
+
+    /**
+     * Splits the file into at most the number of ranges asked for, each starting at the beginning of a line.
+     *
+     * @return the offset each range starts at followed by the size of the file, so range i is from offset i to i + 1.
+     */
+    public long[] split(final int parts) throws IOException {
+        if (parts < 1) {
+            throw new IllegalArgumentException("Parts must be at least 1");
+        }
+        final List<Long> offsets = new ArrayList<>();
+        offsets.add(0L);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+            final ByteBuffer buffer = ByteBuffer.allocate(SPLIT_READ_SIZE);
+            for (int part = 1; part < parts; part++) {
+                final long offset = findLineStart(channel, buffer, Math.max(size * part / parts, offsets.get(offsets.size() - 1)));
+                if (offset >= size) {
+                    break;
+                }
+                if (offset > offsets.get(offsets.size() - 1)) {
+                    offsets.add(offset);
+                }
+            }
+        }
+        final long[] split = new long[offsets.size() + 1];
+        for (int i = 0; i < offsets.size(); i++) {
+            split[i] = offsets.get(i);
+        }
+        split[offsets.size()] = size;
+        return split;
+    }
+
+    /**
+     * Finds the start of the first line after the offset, or the size of the file if there isn't one.
+     */
+    private long findLineStart(final FileChannel channel, final ByteBuffer buffer, final long offset) throws IOException {
+        long position = offset;
+        while (position < size) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Reads the lines of one range of the file through a window that's remapped whenever a line runs past its end.
+     */
+    private final class RangeSource implements NormalisedNumberSource {
+        private final RandomAccessFile randomAccessFile;
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private byte[] lineBuffer = new byte[64];
+        private String normalisedNumber;
+
+        private RangeSource(final long start, final long end) throws IOException {
+            if (start < 0 || end > size || start > end) {
+                throw new IllegalArgumentException("Range must be within the file");
+            }
+            this.randomAccessFile = new RandomAccessFile(file, "r");
+            this.channel = randomAccessFile.getChannel();
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public String nextNumber() throws IOException {
+            while (position < end) {
+                final String number = readLine();
+                if (number != null) {
+                    return number;
+                }
+            }
+            normalisedNumber = null;
+            return null;
+        }
+
+        @Override
+        public String getNormalisedNumber() {
+            return normalisedNumber;
+        }
+
+        /**
+         * Reads the line at the current position, parsing its digits from the mapped bytes when they're all ASCII.
+         *
+         * @return the line or null if it was blank.
+         */
+        private String readLine() throws IOException {
+            //a line starting in this range is read to its end, even when that's past the end of the range.
+            int lineEnd = findLineEnd();
+            final int lineStart = (int) (position - windowStart);
+            position = windowStart + lineEnd + 1;
+            if (lineEnd > lineStart && window.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            boolean blank = true;
+            boolean ascii = true;
+            for (int i = lineStart; i < lineEnd; i++) {
+                final byte b = window.get(i);
+                blank &= TextUtils.isBlankCharacter((char) (b & 0xFF));
+                ascii &= b >= 0;
+            }
+            if (blank) {
+                return null;
+            }
+            final int length = lineEnd - lineStart;
+            if (lineBuffer.length < length) {
+                lineBuffer = new byte[Math.max(lineBuffer.length * 2, length)];
+            }
+            final ByteBuffer line = window.duplicate();
+            line.position(lineStart);
+            line.get(lineBuffer, 0, length);
+            final String number = new String(lineBuffer, 0, length, charset);
+            //bytes past ASCII may be part of a wider character, so only the decoded text can be relied on then.
+            normalisedNumber = ascii ? TextUtils.normaliseNumber(window, lineStart, lineEnd) : TextUtils.normaliseNumber(number);
+            return number;
+        }
+
+        /**
+         * Finds the end of the line at the current position, mapping the window from the start of the line if the line
+         * isn't already all in it.
+         *
+         * @return the position in the window of the line break, or of the end of the file.
+         */
+        private int findLineEnd() throws IOException {
+            if (window == null || position >= windowStart + window.limit()) {
+                map(position);
+            }
+            int i = (int) (position - windowStart);
+            while (true) {
+                while (i < window.limit()) {
+                    if (window.get(i) == '\n') {
+                        return i;
+                    }
+                    i++;
+                }
+                if (windowStart + window.limit() >= size) {
+                    return window.limit();
+                }
+                if (position == windowStart) {
+                    throw new IllegalStateException("Line at " + position + " is longer than " + windowSize + " bytes.");
+                }
+                //the line runs past the window so map it again from the start of the line.
+                i -= (int) (position - windowStart);
+                map(position);
+            }
+        }
+
+        private void map(final long start) throws IOException {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+        }
+
+        @Override
+        public boolean ready() {
+            return position < end;
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            randomAccessFile.close();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.aconex.input;
+
+/**
+ * Source of numbers that also parses the digits to match from each number as it's read, so they don't have to be
+ * parsed again from its text.
+ */
+public interface NormalisedNumberSource extends NumberSource {
+    /**
+     * Gets the digits of the number last returned by {@link #nextNumber()}, normalised the same way as
+     * {@link com.aconex.util.TextUtils#normaliseNumber(CharSequence)} normalises it.
+     *
+     * @return the digits to match or null if the number contained anything other than digits.
+     */
+    String getNormalisedNumber();
+}
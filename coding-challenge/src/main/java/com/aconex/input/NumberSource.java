@@ -0,0 +1,21 @@
+package com.aconex.input;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source of numbers to process, read one line at a time.
+ */
+public interface NumberSource extends Closeable {
+    /**
+     * Gets the next number, skipping blank lines.
+     *
+     * @return the number as it was written or null once there are no more numbers.
+     */
+    String nextNumber() throws IOException;
+
+    /**
+     * Checks whether the next number can be read without waiting for it to arrive.
+     */
+    boolean ready() throws IOException;
+}
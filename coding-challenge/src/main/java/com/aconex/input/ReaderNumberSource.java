@@ -0,0 +1,50 @@
+package com.aconex.input;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import com.aconex.util.TextUtils;
+
+/**
+ * Reads numbers from a stream through a large buffer, in the platform's default encoding.
+ */
+public class ReaderNumberSource implements NumberSource {
+    static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final BufferedReader reader;
+
+    /**
+     * Constructor.
+     *
+     * @param inputStream the stream to read numbers from. Must not be null.
+     */
+    public ReaderNumberSource(final InputStream inputStream) {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Stream cannot be null");
+        }
+        this.reader = new BufferedReader(new InputStreamReader(inputStream), READ_BUFFER_SIZE);
+    }
+
+    @Override
+    public String nextNumber() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!TextUtils.isBlank(line)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return reader.ready();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
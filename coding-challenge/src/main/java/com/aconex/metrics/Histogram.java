@@ -0,0 +1,102 @@
+package com.aconex.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts values into buckets that double in size, so any value is recorded with a couple of atomic increments and
+ * percentiles are known to within a factor of two. Safe to record into from any number of threads.
+ */
+public class Histogram {
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     */
+    public void record(final long value) {
+        final long positiveValue = Math.max(0, value);
+        buckets.incrementAndGet(bucketOf(positiveValue));
+        count.incrementAndGet();
+        sum.addAndGet(positiveValue);
+        long currentMax;
+        while (positiveValue > (currentMax = max.get()) && !max.compareAndSet(currentMax, positiveValue)) {
+            //another thread raised the max so check against that instead.
+        }
+    }
+
+    /**
+     * Gets the bucket holding values with the given number of significant bits, so bucket 0 holds 0, bucket 1 holds 1,
+     * bucket 2 holds 2 to 3 and so on.
+     */
+    private static int bucketOf(final long value) {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    private static long upperBoundOf(final int bucket) {
+        return (bucket == 0) ? 0 : (bucket >= Long.SIZE - 1) ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the values recorded, or 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        final long currentCount = count.get();
+        return (currentCount == 0) ? 0 : (double) sum.get() / currentCount;
+    }
+
+    /**
+     * Gets the largest value the given fraction of recorded values are at or below, rounded up to the top of its bucket
+     * and capped at the largest value recorded.
+     *
+     * @param fraction between 0 and 1, such as 0.99 for the 99th percentile.
+     * @return the percentile or 0 if nothing has been recorded.
+     */
+    public long getPercentile(final double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Fraction must be between 0 and 1");
+        }
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += buckets.get(i);
+        }
+        final long target = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target && seen > 0) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Drops every value recorded. Values being recorded at the same time may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.1f, p50=%d, p90=%d, p99=%d, max=%d", getCount(), getMean(), getPercentile(0.5), getPercentile(0.9), getPercentile(0.99), getMax());
+    }
+}
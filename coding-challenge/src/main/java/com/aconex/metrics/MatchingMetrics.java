@@ -0,0 +1,173 @@
+package com.aconex.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aconex.index.WordLookup;
+
+/**
+ * Counters and histograms for loading dictionaries and matching numbers. Safe to record into from any number of
+ * threads.
+ */
+public class MatchingMetrics implements MatchingMetricsMXBean {
+    private final AtomicLong dictionaryLoadCount = new AtomicLong();
+    private volatile long lastDictionaryLoadNanos;
+    private final AtomicLong wordsRejectedUnmappable = new AtomicLong();
+    private final AtomicLong wordsRejectedTooLong = new AtomicLong();
+    private volatile WordLookup wordIndex;
+    private final Histogram matchLatencyNanos = new Histogram();
+    private final Histogram matchesPerNumber = new Histogram();
+    private final AtomicLong lookups = new AtomicLong();
+
+    /**
+     * Records a dictionary being loaded into a new index, which is the index reported on from now on.
+     */
+    public void recordDictionaryLoad(final WordLookup loadedIndex, final long nanos) {
+        dictionaryLoadCount.incrementAndGet();
+        lastDictionaryLoadNanos = nanos;
+        wordIndex = loadedIndex;
+    }
+
+    /**
+     * Records a dictionary other than the one in use being loaded, such as a named dictionary loaded the first time it's
+     * asked for. The index reported on is left as it is.
+     */
+    public void recordDictionaryLoad(final long nanos) {
+        dictionaryLoadCount.incrementAndGet();
+        lastDictionaryLoadNanos = nanos;
+    }
+
+    /**
+     * Sets the index to report the size of.
+     */
+    public void setWordIndex(final WordLookup currentIndex) {
+        wordIndex = currentIndex;
+    }
+
+    /**
+     * Records a word that wasn't indexed as it has a character that isn't on the keypad.
+     */
+    public void recordRejectedUnmappable() {
+        wordsRejectedUnmappable.incrementAndGet();
+    }
+
+    /**
+     * Records a word that wasn't indexed as it's too long for a key.
+     */
+    public void recordRejectedTooLong() {
+        wordsRejectedTooLong.incrementAndGet();
+    }
+
+    /**
+     * Records the matches for a number being found.
+     *
+     * @param nanos       how long it took to find the matches.
+     * @param lookupCount the number of times the index was searched.
+     * @param matchCount  the number of matches found.
+     */
+    public void recordMatch(final long nanos, final int lookupCount, final long matchCount) {
+        matchLatencyNanos.record(nanos);
+        matchesPerNumber.record(matchCount);
+        lookups.addAndGet(lookupCount);
+    }
+
+    @Override
+    public long getDictionaryLoadCount() {
+        return dictionaryLoadCount.get();
+    }
+
+    @Override
+    public long getLastDictionaryLoadMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastDictionaryLoadNanos);
+    }
+
+    @Override
+    public long getWordsRejectedUnmappable() {
+        return wordsRejectedUnmappable.get();
+    }
+
+    @Override
+    public long getWordsRejectedTooLong() {
+        return wordsRejectedTooLong.get();
+    }
+
+    @Override
+    public int getIndexedWords() {
+        final WordLookup currentIndex = wordIndex;
+        return (currentIndex != null) ? currentIndex.getIndexedCount() : 0;
+    }
+
+    @Override
+    public long getIndexMemoryEstimateBytes() {
+        final WordLookup currentIndex = wordIndex;
+        return (currentIndex != null) ? currentIndex.estimateMemoryUsage() : 0;
+    }
+
+    @Override
+    public long getNumbersMatched() {
+        return matchLatencyNanos.getCount();
+    }
+
+    @Override
+    public double getMatchLatencyMeanMicros() {
+        return matchLatencyNanos.getMean() / 1000;
+    }
+
+    @Override
+    public long getMatchLatencyP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(matchLatencyNanos.getPercentile(0.5));
+    }
+
+    @Override
+    public long getMatchLatencyP90Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(matchLatencyNanos.getPercentile(0.9));
+    }
+
+    @Override
+    public long getMatchLatencyP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(matchLatencyNanos.getPercentile(0.99));
+    }
+
+    @Override
+    public long getMatchLatencyMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(matchLatencyNanos.getMax());
+    }
+
+    @Override
+    public double getLookupsPerNumber() {
+        final long numbers = matchLatencyNanos.getCount();
+        return (numbers == 0) ? 0 : (double) lookups.get() / numbers;
+    }
+
+    @Override
+    public double getMatchesPerNumberMean() {
+        return matchesPerNumber.getMean();
+    }
+
+    @Override
+    public long getMatchesPerNumberP99() {
+        return matchesPerNumber.getPercentile(0.99);
+    }
+
+    @Override
+    public long getMatchesPerNumberMax() {
+        return matchesPerNumber.getMax();
+    }
+
+    @Override
+    public void reset() {
+        wordsRejectedUnmappable.set(0);
+        wordsRejectedTooLong.set(0);
+        matchLatencyNanos.reset();
+        matchesPerNumber.reset();
+        lookups.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MatchingMetrics[loads=%d, lastLoadMillis=%d, rejectedUnmappable=%d, rejectedTooLong=%d, indexedWords=%d, indexBytes=%d, "
+                        + "latencyNanos=(%s), lookupsPerNumber=%.1f, matchesPerNumber=(%s)]", getDictionaryLoadCount(), getLastDictionaryLoadMillis(),
+                getWordsRejectedUnmappable(), getWordsRejectedTooLong(), getIndexedWords(), getIndexMemoryEstimateBytes(), matchLatencyNanos,
+                getLookupsPerNumber(), matchesPerNumber);
+    }
+}
@@ -0,0 +1,43 @@
+package com.aconex.metrics;
+
+/**
+ * Management view of {@link MatchingMetrics}. Times are in microseconds unless named otherwise.
+ */
+public interface MatchingMetricsMXBean {
+    long getDictionaryLoadCount();
+
+    long getLastDictionaryLoadMillis();
+
+    long getWordsRejectedUnmappable();
+
+    long getWordsRejectedTooLong();
+
+    int getIndexedWords();
+
+    long getIndexMemoryEstimateBytes();
+
+    long getNumbersMatched();
+
+    double getMatchLatencyMeanMicros();
+
+    long getMatchLatencyP50Micros();
+
+    long getMatchLatencyP90Micros();
+
+    long getMatchLatencyP99Micros();
+
+    long getMatchLatencyMaxMicros();
+
+    double getLookupsPerNumber();
+
+    double getMatchesPerNumberMean();
+
+    long getMatchesPerNumberP99();
+
+    long getMatchesPerNumberMax();
+
+    /**
+     * Clears everything recorded about matching and rejected words. The index being used and the last load are kept.
+     */
+    void reset();
+}
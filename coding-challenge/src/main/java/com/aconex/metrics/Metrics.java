@@ -0,0 +1,75 @@
+package com.aconex.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Switch and home for the metrics of the process.
+ * <p/>
+ * Metrics are only recorded when the {@link #SYS_PROP_METRICS_ENABLED} system property is true. Code that records
+ * checks {@link #ENABLED} first, which is fixed when the class is loaded so the check costs nothing once compiled when
+ * metrics are off. Once registered the metrics can be read through JMX, and logged periodically if
+ * {@link #SYS_PROP_METRICS_DUMP_SECONDS} is set.
+ */
+public final class Metrics {
+    public static final String SYS_PROP_METRICS_ENABLED = "metrics.enabled";
+    public static final String SYS_PROP_METRICS_DUMP_SECONDS = "metrics.dump.seconds";
+    public static final String OBJECT_NAME = "com.aconex:type=MatchingMetrics";
+    public static final boolean ENABLED = Boolean.getBoolean(SYS_PROP_METRICS_ENABLED);
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class.getName());
+    private static final MatchingMetrics MATCHING_METRICS = new MatchingMetrics();
+    private static boolean registered;
+
+    private Metrics() {
+    }
+
+    public static MatchingMetrics get() {
+        return MATCHING_METRICS;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server and starts logging them if asked to. Only the first call
+     * does anything.
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            mBeanServer.registerMBean(MATCHING_METRICS, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            LOGGER.fine("Metrics are already registered.");
+        } catch (JMException e) {
+            throw new IllegalStateException("Couldn't register metrics.", e);
+        }
+
+        final long dumpSeconds = Long.getLong(SYS_PROP_METRICS_DUMP_SECONDS, 0);
+        if (dumpSeconds > 0) {
+            final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "metrics-dump");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    LOGGER.info(MATCHING_METRICS.toString());
+                }
+            }, dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.aconex.output;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Writes output through a large buffer, so the underlying stream is only written to when the buffer fills or is flushed
+ * rather than for every line. Lines are written piece by piece rather than being formatted first.
+ * <p/>
+ * The output is the same, byte for byte, as {@link ConsoleMatchSink} writes with the platform's default encoding.
+ */
+public class BufferedMatchSink extends StreamMatchSink {
+    /**
+     * Constructor.
+     *
+     * @param outputStream the stream to write to. Must not be null.
+     */
+    public BufferedMatchSink(final OutputStream outputStream) {
+        this(outputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param outputStream the stream to write to. Must not be null.
+     * @param bufferSize   the number of characters to hold before writing them to the stream.
+     */
+    public BufferedMatchSink(final OutputStream outputStream, final int bufferSize) {
+        super(outputStream, Charset.defaultCharset(), bufferSize);
+    }
+
+    /**
+     * Creates a sink that writes to a file, replacing anything already in it.
+     */
+    public static BufferedMatchSink toFile(final File file) throws FileNotFoundException {
+        return new BufferedMatchSink(new FileOutputStream(file));
+    }
+
+    @Override
+    public void startFile(final String filePath) {
+        writeLine("Processing file: ", filePath, "");
+    }
+
+    @Override
+    public void fileNotFound(final String filePath) {
+        writeLine("Skipping processing \"", filePath, "\" as the file couldn't be located.");
+    }
+
+    @Override
+    public void startNumber(final String number) {
+        writeLine("Processing phone number ", number, ".");
+    }
+
+    @Override
+    public void startMatches(final long count) {
+        writeLine("Found ", Long.toString(count), " options: ");
+    }
+
+    @Override
+    public void match(final CharSequence match) {
+        writeLine("", match, "");
+    }
+
+    @Override
+    public void noMatches() {
+        writeLine("No options found.", "", "");
+    }
+
+    @Override
+    public void endNumber() {
+        //every line has already been ended.
+    }
+
+    private void writeLine(final String prefix, final CharSequence value, final String suffix) {
+        write(prefix, value, suffix, LINE_SEPARATOR);
+    }
+}
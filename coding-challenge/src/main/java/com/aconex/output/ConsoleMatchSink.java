@@ -0,0 +1,55 @@
+package com.aconex.output;
+
+/**
+ * Writes each line straight to {@link System#out}. This is the default so output shows up as soon as it's available
+ * when running interactively.
+ */
+public class ConsoleMatchSink implements MatchSink {
+    @Override
+    public void startFile(final String filePath) {
+        System.out.println(String.format("Processing file: %s", filePath));
+    }
+
+    @Override
+    public void fileNotFound(final String filePath) {
+        System.out.println(String.format("Skipping processing \"%s\" as the file couldn't be located.", filePath));
+    }
+
+    @Override
+    public void startNumber(final String number) {
+        System.out.println(String.format("Processing phone number %s.", number));
+    }
+
+    @Override
+    public void startMatches(final long count) {
+        System.out.println(String.format("Found %d options: ", count));
+    }
+
+    @Override
+    public void match(final CharSequence match) {
+        System.out.println(match);
+    }
+
+    @Override
+    public void noMatches() {
+        System.out.println("No options found.");
+    }
+
+    @Override
+    public void endNumber() {
+        //every line has already been ended.
+    }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+
+    /**
+     * Flushes the output. {@link System#out} is left open.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -0,0 +1,91 @@
+package com.aconex.output;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * Writes one JSON object for each number on a line of its own, such as
+ * <code>{"number":"1800-228","count":2,"matches":["1-800-BAT","1-800-CAT"]}</code>. Numbers without matches have a
+ * count of 0 and no matches.
+ * <p/>
+ * Files being processed aren't part of the output, although files that can't be found are logged. Output is written as
+ * UTF-8 through a large buffer.
+ */
+public class JsonLinesMatchSink extends StreamMatchSink {
+    private static final Logger LOGGER = Logger.getLogger(JsonLinesMatchSink.class.getName());
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private boolean firstMatch;
+
+    /**
+     * Constructor.
+     *
+     * @param outputStream the stream to write to. Must not be null.
+     */
+    public JsonLinesMatchSink(final OutputStream outputStream) {
+        super(outputStream, StandardCharsets.UTF_8, DEFAULT_BUFFER_SIZE);
+    }
+
+    @Override
+    public void startFile(final String filePath) {
+        //only numbers are written.
+    }
+
+    @Override
+    public void fileNotFound(final String filePath) {
+        LOGGER.warning(String.format("Skipping processing \"%s\" as the file couldn't be located.", filePath));
+    }
+
+    @Override
+    public void startNumber(final String number) {
+        write("{\"number\":");
+        writeString(number);
+    }
+
+    @Override
+    public void startMatches(final long count) {
+        write(",\"count\":", Long.toString(count), ",\"matches\":[");
+        firstMatch = true;
+    }
+
+    @Override
+    public void match(final CharSequence match) {
+        if (!firstMatch) {
+            write(',');
+        }
+        firstMatch = false;
+        writeString(match);
+    }
+
+    @Override
+    public void noMatches() {
+        startMatches(0);
+    }
+
+    @Override
+    public void endNumber() {
+        write("]}", LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes a JSON string, escaping quotes, backslashes and control characters.
+     */
+    private void writeString(final CharSequence value) {
+        write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                write('\\');
+                write(c);
+            } else if (c < ' ') {
+                write("\\u00");
+                write(HEX_DIGITS[c >> 4]);
+                write(HEX_DIGITS[c & 0xF]);
+            } else {
+                write(c);
+            }
+        }
+        write('"');
+    }
+}
@@ -0,0 +1,60 @@
+package com.aconex.output;
+
+import java.io.Closeable;
+import java.io.Flushable;
+
+/**
+ * Destination for the output of converting numbers. The text sinks write one line of output for each method, while
+ * the record sinks write one line for each number.
+ * <p/>
+ * Matches are written one at a time after the number of matches, so they can be passed through as they're generated.
+ * Every number is ended with {@link #endNumber()} once its matches, or that there weren't any, have been written.
+ */
+public interface MatchSink extends Flushable, Closeable {
+    /**
+     * Writes that a file of numbers is being processed.
+     */
+    void startFile(String filePath);
+
+    /**
+     * Writes that a file of numbers is being skipped as it doesn't exist.
+     */
+    void fileNotFound(String filePath);
+
+    /**
+     * Writes that a number is being processed. The number is written as it was provided.
+     */
+    void startNumber(String number);
+
+    /**
+     * Writes the number of matches found for the number being processed. Only called when there are matches.
+     */
+    void startMatches(long count);
+
+    /**
+     * Writes a match for the number being processed.
+     */
+    void match(CharSequence match);
+
+    /**
+     * Writes that there weren't any matches for the number being processed.
+     */
+    void noMatches();
+
+    /**
+     * Writes that all the output for the number being processed has been written.
+     */
+    void endNumber();
+
+    /**
+     * Writes out anything that has been buffered.
+     */
+    @Override
+    void flush();
+
+    /**
+     * Writes out anything that has been buffered and releases the destination.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,72 @@
+package com.aconex.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Base for sinks that write to a stream through a large buffer, so the underlying stream is only written to when the
+ * buffer fills or is flushed rather than for every line.
+ */
+abstract class StreamMatchSink implements MatchSink {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private final Writer writer;
+
+    /**
+     * Constructor.
+     *
+     * @param outputStream the stream to write to. Must not be null.
+     * @param charset      the encoding to write with.
+     * @param bufferSize   the number of characters to hold before writing them to the stream.
+     */
+    StreamMatchSink(final OutputStream outputStream, final Charset charset, final int bufferSize) {
+        if (outputStream == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, charset), bufferSize);
+    }
+
+    /**
+     * Writes the values provided one after the other.
+     */
+    final void write(final CharSequence... values) {
+        try {
+            for (final CharSequence value : values) {
+                writer.append(value);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't write output.", e);
+        }
+    }
+
+    final void write(final char value) {
+        try {
+            writer.write(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't write output.", e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't write output.", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't write output.", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.aconex.output;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * Writes one tab separated line for each number, holding the number as it was provided, the number of matches and
+ * then each match. Numbers without matches have a count of 0 and nothing after it.
+ * <p/>
+ * Files being processed aren't part of the output, although files that can't be found are logged. Output is written as
+ * UTF-8 through a large buffer.
+ */
+public class TsvMatchSink extends StreamMatchSink {
+    private static final Logger LOGGER = Logger.getLogger(TsvMatchSink.class.getName());
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * Constructor.
+     *
+     * @param outputStream the stream to write to. Must not be null.
+     */
+    public TsvMatchSink(final OutputStream outputStream) {
+        super(outputStream, StandardCharsets.UTF_8, DEFAULT_BUFFER_SIZE);
+    }
+
+    @Override
+    public void startFile(final String filePath) {
+        //only numbers are written.
+    }
+
+    @Override
+    public void fileNotFound(final String filePath) {
+        LOGGER.warning(String.format("Skipping processing \"%s\" as the file couldn't be located.", filePath));
+    }
+
+    @Override
+    public void startNumber(final String number) {
+        //tabs and line breaks in the number would split the record.
+        write(number.replace(SEPARATOR, ' ').replace('\r', ' ').replace('\n', ' '));
+    }
+
+    @Override
+    public void startMatches(final long count) {
+        write(SEPARATOR);
+        write(Long.toString(count));
+    }
+
+    @Override
+    public void match(final CharSequence match) {
+        write(SEPARATOR);
+        write(match);
+    }
+
+    @Override
+    public void noMatches() {
+        startMatches(0);
+    }
+
+    @Override
+    public void endNumber() {
+        write(LINE_SEPARATOR);
+    }
+}
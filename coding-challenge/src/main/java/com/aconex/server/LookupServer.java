@@ -0,0 +1,316 @@
+package com.aconex.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.aconex.PhoneNumberConverter;
+import com.aconex.output.BufferedMatchSink;
+import com.aconex.output.MatchSink;
+import com.aconex.util.TextUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves number lookups over HTTP so the dictionary only has to be loaded once for any number of callers.
+ * <p/>
+ * Two endpoints are served, both answering with the same text as is written for numbers in a file:
+ * <ul>
+ * <li>GET {@value #LOOKUP_PATH}?{@value #NUMBER_PARAMETER}=... looks up a single number.</li>
+ * <li>POST {@value #BATCH_PATH} looks up each line of the request body, in order. Blank lines are skipped.</li>
+ * </ul>
+ * Batches larger than the limit given at construction are refused as too large without the rest of them being read.
+ * <p/>
+ * Both endpoints match against the default dictionary unless another is named with the {@value #DICTIONARY_PARAMETER}
+ * parameter, which is loaded the first time it's asked for. Naming a dictionary that isn't registered is a bad request.
+ * <p/>
+ * Requests are handled on a fixed pool of threads that all match against the converter's index. Responses are sent
+ * with their length so connections are kept alive between requests. Headers and body are written separately, so
+ * responses on a kept alive connection wait for the client's delayed acknowledgement unless the JVM is started with
+ * sun.net.httpserver.nodelay set to true, as the launcher does.
+ */
+public class LookupServer implements Closeable {
+    public static final String LOOKUP_PATH = "/lookup";
+    public static final String BATCH_PATH = "/batch";
+    public static final String NUMBER_PARAMETER = "number";
+    public static final String DICTIONARY_PARAMETER = "dictionary";
+    /**
+     * The default for the most bytes of numbers a batch can hold.
+     */
+    public static final int DEFAULT_MAX_BATCH_BYTES = 1024 * 1024;
+    private static final Logger LOGGER = Logger.getLogger(LookupServer.class.getName());
+    private static final String CONTENT_TYPE = "text/plain; charset=" + Charset.defaultCharset().name();
+    private static final int BACKLOG = 0;
+
+    private final PhoneNumberConverter phoneNumberConverter;
+    private final int maxBatchBytes;
+    private final ExecutorService executor;
+    private final HttpServer httpServer;
+
+    /**
+     * Constructor. Batches can hold up to {@link #DEFAULT_MAX_BATCH_BYTES}.
+     *
+     * @see #LookupServer(PhoneNumberConverter, InetSocketAddress, int, int)
+     */
+    public LookupServer(final PhoneNumberConverter phoneNumberConverter, final InetSocketAddress address, final int threads) throws IOException {
+        this(phoneNumberConverter, address, threads, DEFAULT_MAX_BATCH_BYTES);
+    }
+
+    /**
+     * Constructor. The server isn't started until {@link #start()} is called.
+     *
+     * @param phoneNumberConverter matches the numbers asked for. Must not be null.
+     * @param address              the address to listen on. Port 0 picks any free port.
+     * @param threads              the number of requests to handle at once. Must be at least 1.
+     * @param maxBatchBytes        the most bytes of numbers a batch can hold. Must be at least 1.
+     */
+    public LookupServer(final PhoneNumberConverter phoneNumberConverter, final InetSocketAddress address, final int threads,
+                        final int maxBatchBytes) throws IOException {
+        if (phoneNumberConverter == null) {
+            throw new IllegalArgumentException("Phone number converter cannot be null");
+        }
+        if (address == null) {
+            throw new IllegalArgumentException("Address cannot be null");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1");
+        }
+        if (maxBatchBytes < 1) {
+            throw new IllegalArgumentException("Max batch bytes must be at least 1");
+        }
+        this.phoneNumberConverter = phoneNumberConverter;
+        this.maxBatchBytes = maxBatchBytes;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.httpServer = HttpServer.create(address, BACKLOG);
+        httpServer.setExecutor(executor);
+        httpServer.createContext(LOOKUP_PATH, new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                handleLookup(exchange);
+            }
+        });
+        httpServer.createContext(BATCH_PATH, new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                handleBatch(exchange);
+            }
+        });
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Gets the address the server is listening on, including the port picked if port 0 was asked for.
+     */
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    private void handleLookup(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 405, "Only GET is supported.");
+                return;
+            }
+            final String rawQuery = exchange.getRequestURI().getRawQuery();
+            final String number = getParameter(rawQuery, NUMBER_PARAMETER);
+            if (TextUtils.isEmpty(number)) {
+                sendResponse(exchange, 400, "A number must be provided.");
+                return;
+            }
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            final MatchSink matchSink = new BufferedMatchSink(response);
+            writeMatches(matchSink, number, getParameter(rawQuery, DICTIONARY_PARAMETER));
+            matchSink.close();
+            sendResponse(exchange, 200, response.toByteArray());
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendServerError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleBatch(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 405, "Only POST is supported.");
+                return;
+            }
+            final String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (contentLength != null && Long.parseLong(contentLength.trim()) > maxBatchBytes) {
+                sendTooLarge(exchange);
+                return;
+            }
+            final String dictionary = getParameter(exchange.getRequestURI().getRawQuery(), DICTIONARY_PARAMETER);
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            final MatchSink matchSink = new BufferedMatchSink(response);
+            //the request body is left open as closing it early stops the connection being kept alive.
+            final LimitedInputStream body = new LimitedInputStream(exchange.getRequestBody(), maxBatchBytes);
+            final Scanner scanner = new Scanner(body, Charset.defaultCharset().name());
+            while (scanner.hasNextLine() && !body.isExceeded()) {
+                final String number = scanner.nextLine();
+                if (!TextUtils.isBlank(number)) {
+                    writeMatches(matchSink, number, dictionary);
+                }
+            }
+            if (body.isExceeded()) {
+                sendTooLarge(exchange);
+                return;
+            }
+            matchSink.close();
+            sendResponse(exchange, 200, response.toByteArray());
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendServerError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void writeMatches(final MatchSink matchSink, final String number, final String dictionary) {
+        final List<String> matches = phoneNumberConverter.findMatches(number, dictionary);
+        matchSink.startNumber(number);
+        if (matches.isEmpty()) {
+            matchSink.noMatches();
+        } else {
+            matchSink.startMatches(matches.size());
+            for (final String match : matches) {
+                matchSink.match(match);
+            }
+        }
+        matchSink.endNumber();
+    }
+
+    /**
+     * Gets the decoded value of a parameter from a query string.
+     *
+     * @return the value or null if the parameter isn't in the query.
+     */
+    static String getParameter(final String rawQuery, final String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (final String pair : rawQuery.split("&")) {
+            final int separator = pair.indexOf('=');
+            final String key = (separator >= 0) ? pair.substring(0, separator) : pair;
+            if (name.equals(key)) {
+                return (separator >= 0) ? decode(pair.substring(separator + 1)) : "";
+            }
+        }
+        return null;
+    }
+
+    private static String decode(final String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 isn't supported.", e);
+        }
+    }
+
+    private void sendServerError(final HttpExchange exchange, final RuntimeException e) throws IOException {
+        LOGGER.log(Level.WARNING, "Couldn't handle " + exchange.getRequestURI(), e);
+        sendResponse(exchange, 500, "The numbers couldn't be looked up.");
+    }
+
+    /**
+     * Refuses a batch that's too large, closing the connection rather than reading the rest of it.
+     */
+    private void sendTooLarge(final HttpExchange exchange) throws IOException {
+        final byte[] body = String.format("Batches can't be larger than %d bytes.%n", maxBatchBytes).getBytes(Charset.defaultCharset());
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.getResponseHeaders().set("Connection", "close");
+        exchange.sendResponseHeaders(413, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private void sendResponse(final HttpExchange exchange, final int status, final String message) throws IOException {
+        sendResponse(exchange, status, (message + System.getProperty("line.separator")).getBytes(Charset.defaultCharset()));
+    }
+
+    private void sendResponse(final HttpExchange exchange, final int status, final byte[] body) throws IOException {
+        //read anything left of the request so the connection can be used for the next one.
+        drain(exchange.getRequestBody());
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private void drain(final InputStream inputStream) throws IOException {
+        final byte[] buffer = new byte[1024];
+        while (inputStream.read(buffer) >= 0) {
+            //nothing to do with what's left.
+        }
+    }
+
+    /**
+     * Ends a stream once more than the limit has been read from it, noting that it was exceeded rather than failing so
+     * the reader simply stops.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+        private boolean exceeded;
+
+        private LimitedInputStream(final InputStream inputStream, final long limit) {
+            super(inputStream);
+            this.remaining = limit;
+        }
+
+        private boolean isExceeded() {
+            return exceeded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            return (read(single, 0, 1) < 0) ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (remaining == 0) {
+                //only exceeded if there's more to come.
+                exceeded = exceeded || super.read() >= 0;
+                return -1;
+            }
+            final int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Stops accepting requests, waiting a moment for requests being handled to finish.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(1);
+        executor.shutdown();
+        LOGGER.log(Level.FINE, "Stopped lookup server on {0}.", httpServer.getAddress());
+    }
+}
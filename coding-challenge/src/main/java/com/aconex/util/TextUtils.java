@@ -1,5 +1,7 @@
 package com.aconex.util;
 
+import java.nio.ByteBuffer;
+
 /**
  * Utility class to centralise some of the input parsing functions required.
  */
@@ -7,17 +9,140 @@ public final class TextUtils {
     private TextUtils() {
     }
 
+    private static final String NUMBER_PREFIX = "1800";
+    /**
+     * The start of every match written by {@link #joinAs1800Number(String...)}.
+     */
+    public static final String MATCH_PREFIX = "1-800";
+    /**
+     * Separates each element of a match written by {@link #joinAs1800Number(String...)}.
+     */
+    public static final char MATCH_SEPARATOR = '-';
+    private static final String[] DIGITS = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" };
+
     /**
      * Removes all whitespace and punctuation from the provided text.
      * <p/>
      * If the provided value is all punctuation and whitespace then null will be returned rather than an empty string.
      */
     public static String stripRedundantCharacters(final String value) {
-        if (value != null) {
-            final String replacedValue = value.replaceAll("\\W", "");
-            return (replacedValue.isEmpty()) ? null : replacedValue;
+        if (value == null) {
+            return null;
+        }
+        int length = 0;
+        char[] stripped = null;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (isWordCharacter(c)) {
+                if (stripped != null) {
+                    stripped[length] = c;
+                }
+                length++;
+            } else if (stripped == null) {
+                //only copy once something needs to be removed.
+                stripped = new char[value.length() - 1];
+                value.getChars(0, i, stripped, 0);
+            }
+        }
+        if (length == 0) {
+            return null;
+        }
+        return (stripped == null) ? value : new String(stripped, 0, length);
+    }
+
+    /**
+     * Normalises a phone number so that it can be matched against words. Whitespace and punctuation are removed along
+     * with a leading "1800", in a single pass over the value.
+     * <p/>
+     * If nothing is left or the value contains anything other than digits then null will be returned.
+     */
+    public static String normaliseNumber(final CharSequence value) {
+        if (value == null) {
+            return null;
+        }
+        final char[] digits = new char[value.length()];
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits[length++] = c;
+            } else if (isWordCharacter(c)) {
+                return null;
+            }
+        }
+        final int start = startsWithPrefix(digits, length) ? NUMBER_PREFIX.length() : 0;
+        return (length > start) ? new String(digits, start, length - start) : null;
+    }
+
+    /**
+     * Normalises a phone number straight from the bytes between start (inclusive) and end (exclusive) of a buffer,
+     * without decoding them first. The bytes must all be ASCII, which leaves the same number as
+     * {@link #normaliseNumber(CharSequence)} would for the decoded text in any encoding that keeps ASCII characters as
+     * single bytes.
+     * <p/>
+     * If nothing is left or the value contains anything other than digits then null will be returned.
+     */
+    public static String normaliseNumber(final ByteBuffer bytes, final int start, final int end) {
+        final char[] digits = new char[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            final char c = (char) bytes.get(i);
+            if (c >= '0' && c <= '9') {
+                digits[length++] = c;
+            } else if (isWordCharacter(c)) {
+                return null;
+            }
+        }
+        final int prefixEnd = startsWithPrefix(digits, length) ? NUMBER_PREFIX.length() : 0;
+        return (length > prefixEnd) ? new String(digits, prefixEnd, length - prefixEnd) : null;
+    }
+
+    private static boolean startsWithPrefix(final char[] digits, final int length) {
+        if (length < NUMBER_PREFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < NUMBER_PREFIX.length(); i++) {
+            if (digits[i] != NUMBER_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the character is kept when stripping redundant characters. These are the characters matched by the \w
+     * regular expression class: ASCII letters, digits and underscores.
+     */
+    public static boolean isWordCharacter(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * Whether a line is blank, which is when it's made up only of the characters {@link String#trim()} removes.
+     */
+    public static boolean isBlank(final CharSequence line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (!isBlankCharacter(line.charAt(i))) {
+                return false;
+            }
         }
-        return null;
+        return true;
+    }
+
+    /**
+     * Whether a character is one of those {@link String#trim()} removes: spaces and control characters.
+     */
+    public static boolean isBlankCharacter(final char c) {
+        return c <= ' ';
+    }
+
+    /**
+     * Gets the string of a single digit without creating a new one each time.
+     *
+     * @param digit a character from '0' to '9'.
+     */
+    public static String digitAsString(final char digit) {
+        return DIGITS[digit - '0'];
     }
 
     /**
@@ -27,10 +152,15 @@ public final class TextUtils {
      * All other elements are joined by a "-".
      */
     public static String joinAs1800Number(String... elements) {
-        final StringBuilder builder = new StringBuilder("1-800");
+        int length = MATCH_PREFIX.length();
+        for (String element : elements) {
+            length += 1 + element.length();
+        }
+        //sized up front so the match is built without the builder growing.
+        final StringBuilder builder = new StringBuilder(length).append(MATCH_PREFIX);
 
         for (String element : elements) {
-            builder.append("-").append(element);
+            builder.append(MATCH_SEPARATOR).append(element);
         }
         return builder.toString();
     }
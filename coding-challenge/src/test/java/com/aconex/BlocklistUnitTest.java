@@ -0,0 +1,79 @@
+package com.aconex;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.aconex.index.DigitKey;
+import com.aconex.index.Keypad;
+
+/**
+ * Tests the blocklist of words left out of matches.
+ */
+public class BlocklistUnitTest {
+
+    @Test
+    public void testLoadingFailsWhenStreamIsNull() {
+        try {
+            new Blocklist().loadWords(null);
+            Assert.fail("An exception should have been thrown as the stream was null.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Stream cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWordsAreBlockedTheWayTheyAreIndexed() {
+        final Blocklist blocklist = new Blocklist();
+        blocklist.loadWords(new ByteArrayInputStream("c-a't\n\n  \nBat\nr2d2\n".getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertEquals("Only words that can be written on a keypad should be blocked", 2, blocklist.size());
+        Assert.assertTrue("CAT should be blocked", blocklist.isBlocked("CAT"));
+        Assert.assertTrue("BAT should be blocked", blocklist.isBlocked("BAT"));
+        Assert.assertFalse("ACT shouldn't be blocked", blocklist.isBlocked("ACT"));
+        Assert.assertTrue("The digits of CAT might be blocked", blocklist.mightBlock(DigitKey.valueOf(228)));
+    }
+
+    @Test
+    public void testEmptyBlocklistBlocksNothing() {
+        final Blocklist blocklist = new Blocklist();
+        Assert.assertTrue("The blocklist should be empty", blocklist.isEmpty());
+        Assert.assertFalse("Nothing should be blocked", blocklist.mightBlock(DigitKey.valueOf(228)));
+    }
+
+    @Test
+    public void testFilterHasNoFalseNegativesAndFewFalsePositives() {
+        final Blocklist blocklist = new Blocklist();
+        for (int i = 0; i < 1000; i++) {
+            blocklist.addWord(word(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue("Blocked words should always be found: " + word(i), blocklist.mightBlock(DigitKey.valueOf(digits(word(i)))));
+        }
+        int falsePositives = 0;
+        for (long number = 2222222; number < 2232222; number++) {
+            if (blocklist.mightBlock(DigitKey.valueOf(number))) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("Too many false positives: " + falsePositives, falsePositives < 100);
+    }
+
+    private static String word(final int value) {
+        final StringBuilder letters = new StringBuilder();
+        for (int remaining = value; remaining > 0; remaining /= 26) {
+            letters.append((char) ('A' + remaining % 26));
+        }
+        return letters.append("XY").toString();
+    }
+
+    private static String digits(final String word) {
+        final StringBuilder digits = new StringBuilder();
+        for (final char letter : word.toCharArray()) {
+            digits.append(Keypad.digitOf(letter));
+        }
+        return digits.toString();
+    }
+}
@@ -1,16 +1,26 @@
 package com.aconex;
 
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.contrib.java.lang.system.Assertion;
 import org.junit.contrib.java.lang.system.ExpectedSystemExit;
+import org.junit.contrib.java.lang.system.RestoreSystemProperties;
 import org.mockito.Mockito;
 
+import com.aconex.output.BufferedMatchSink;
+import com.aconex.output.ConsoleMatchSink;
+import com.aconex.output.JsonLinesMatchSink;
+import com.aconex.output.TsvMatchSink;
+
 /**
  * Test case for testing the command line launcher.
  */
 public class CodingChallengeLauncherUnitTest {
     @Rule
     public final ExpectedSystemExit exit = ExpectedSystemExit.none();
+    @Rule
+    public final RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties(CodingChallengeLauncher.SYS_PROP_OUTPUT_FORMAT);
 
     private CodingChallengeLauncher getMockedLauncher() {
         return new CodingChallengeLauncher(Mockito.mock(PhoneNumberConverter.class));
@@ -27,4 +37,46 @@ public class CodingChallengeLauncherUnitTest {
         exit.expectSystemExitWithStatus(0);
         getMockedLauncher().processArgs(new String[]{ "argumentZero" });
     }
+
+    @Test
+    public void testNumbersAreReadFromStandardInForThePipeArgument() {
+        exit.expectSystemExitWithStatus(0);
+        final PhoneNumberConverter phoneNumberConverter = Mockito.mock(PhoneNumberConverter.class);
+        exit.checkAssertionAfterwards(new Assertion() {
+            @Override
+            public void checkAssertion() {
+                Mockito.verify(phoneNumberConverter).processNumbers(System.in);
+                Mockito.verify(phoneNumberConverter, Mockito.never()).processFile(Mockito.anyString());
+            }
+        });
+        new CodingChallengeLauncher(phoneNumberConverter).processArgs(new String[]{ CodingChallengeLauncher.PIPE_ARGUMENT });
+    }
+
+    @Test
+    public void testPipeIsOnlyForASingleArgument() {
+        Assert.assertTrue("A single - should be a pipe", CodingChallengeLauncher.isPipe(new String[]{ "-" }));
+        Assert.assertFalse("No arguments shouldn't be a pipe", CodingChallengeLauncher.isPipe(null));
+        Assert.assertFalse("Files shouldn't be a pipe", CodingChallengeLauncher.isPipe(new String[]{ "-", "numbers" }));
+    }
+
+    @Test
+    public void testMatchSinkIsPickedByFormat() {
+        Assert.assertTrue("Console output should be written by default", CodingChallengeLauncher.createMatchSink(false) instanceof ConsoleMatchSink);
+        Assert.assertTrue("Pipes should be written as tab separated lines by default", CodingChallengeLauncher.createMatchSink(true) instanceof TsvMatchSink);
+        System.setProperty(CodingChallengeLauncher.SYS_PROP_OUTPUT_FORMAT, CodingChallengeLauncher.OUTPUT_FORMAT_JSON);
+        Assert.assertTrue("JSON lines should be written when asked for", CodingChallengeLauncher.createMatchSink(true) instanceof JsonLinesMatchSink);
+        System.setProperty(CodingChallengeLauncher.SYS_PROP_OUTPUT_FORMAT, CodingChallengeLauncher.OUTPUT_FORMAT_TEXT);
+        Assert.assertTrue("Text should be buffered for pipes", CodingChallengeLauncher.createMatchSink(true) instanceof BufferedMatchSink);
+    }
+
+    @Test
+    public void testUnknownFormatIsRejected() {
+        System.setProperty(CodingChallengeLauncher.SYS_PROP_OUTPUT_FORMAT, "xml");
+        try {
+            CodingChallengeLauncher.createMatchSink(false);
+            Assert.fail("An exception should have been thrown as the format isn't known.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Output format must be one of text, tsv or json", e.getMessage());
+        }
+    }
 }
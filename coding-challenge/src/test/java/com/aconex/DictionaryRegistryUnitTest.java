@@ -0,0 +1,226 @@
+package com.aconex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aconex.index.DigitTrieWordIndex;
+import com.aconex.index.WordIndex;
+
+/**
+ * Tests the registry of named dictionaries.
+ */
+public class DictionaryRegistryUnitTest {
+    private static final long LARGE_BUDGET = Long.MAX_VALUE;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File writeDictionary(final String name, final String... words) throws IOException {
+        final File file = temporaryFolder.newFile(name);
+        try (PrintStream output = new PrintStream(file, "UTF-8")) {
+            for (final String word : words) {
+                output.println(word);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void testConstructionFailsWithoutBudget() {
+        try {
+            new DictionaryRegistry(0, 0);
+            Assert.fail("An exception should have been thrown at construction as the budget wasn't positive.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Memory budget must be at least 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDictionariesAreLoadedWhenFirstAskedFor() throws IOException {
+        final DictionaryRegistry registry = new DictionaryRegistry(LARGE_BUDGET, 0);
+        registry.register("animals", writeDictionary("animals", "cat", "bat"));
+        Assert.assertTrue("The dictionary should be registered", registry.isRegistered("animals"));
+        Assert.assertFalse("The dictionary shouldn't be loaded until it's asked for", registry.isLoaded("animals"));
+
+        final WordIndex index = registry.getIndex("animals");
+        Assert.assertTrue("The dictionary should have been loaded", registry.isLoaded("animals"));
+        Assert.assertEquals("Unexpected number of words", 2, index.getIndexedCount());
+        Assert.assertSame("The loaded index should be used again", index, registry.getIndex("animals"));
+    }
+
+    @Test
+    public void testUnknownDictionaryFails() {
+        final DictionaryRegistry registry = new DictionaryRegistry(LARGE_BUDGET, 0);
+        try {
+            registry.getIndex("missing");
+            Assert.fail("An exception should have been thrown as the dictionary isn't registered.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Unknown dictionary missing.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRegisteringANameTwiceFails() throws IOException {
+        final DictionaryRegistry registry = new DictionaryRegistry(LARGE_BUDGET, 0);
+        final File file = writeDictionary("animals", "cat");
+        registry.register("animals", file);
+        try {
+            registry.register("animals", file);
+            Assert.fail("An exception should have been thrown as the name was already registered.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Dictionary animals is already registered.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTheDefaultDictionaryNameCannotBeRegistered() throws IOException {
+        final DictionaryRegistry registry = new DictionaryRegistry(LARGE_BUDGET, 0);
+        try {
+            registry.register(DictionaryRegistry.DEFAULT_DICTIONARY, writeDictionary("animals", "cat"));
+            Assert.fail("An exception should have been thrown as the name stands for the default dictionary.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Dictionary default is reserved for the default dictionary.", e.getMessage());
+        }
+        Assert.assertFalse("The dictionary shouldn't have been registered", registry.isRegistered(DictionaryRegistry.DEFAULT_DICTIONARY));
+    }
+
+    @Test
+    public void testDictionariesAreLoadedIntoTheIndexTypeAskedFor() throws IOException {
+        final DictionaryRegistry registry = new DictionaryRegistry(LARGE_BUDGET, 0, true);
+        registry.register("animals", writeDictionary("animals", "cat", "bat"));
+        final WordIndex index = registry.getIndex("animals");
+        Assert.assertTrue("The dictionary should have been loaded into a trie", index instanceof DigitTrieWordIndex);
+        Assert.assertTrue("The trie should have CAT", index.search(228).contains("CAT"));
+
+        final DictionaryRegistry defaultRegistry = new DictionaryRegistry(LARGE_BUDGET, 0);
+        defaultRegistry.register("others", writeDictionary("others", "act"));
+        Assert.assertFalse("A trie shouldn't be used unless asked for", defaultRegistry.getIndex("others") instanceof DigitTrieWordIndex);
+    }
+
+    @Test
+    public void testRegisterAllReadsNameAndFilePairs() throws IOException {
+        final DictionaryRegistry registry = new DictionaryRegistry(LARGE_BUDGET, 0);
+        final File animals = writeDictionary("animals", "cat");
+        final File brands = writeDictionary("brands", "acme");
+        registry.registerAll("animals=" + animals.getPath() + ", brands = " + brands.getPath());
+
+        Assert.assertEquals("Unexpected names", "[animals, brands]", registry.getNames().toString());
+        Assert.assertTrue("Brands should have ACME", registry.getIndex("brands").search(2263).contains("ACME"));
+        try {
+            registry.registerAll("fruit");
+            Assert.fail("An exception should have been thrown as there was no file.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Dictionary fruit must be given as name=file.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWordsAreSharedBetweenDictionaries() throws IOException {
+        final DictionaryRegistry registry = new DictionaryRegistry(LARGE_BUDGET, 0);
+        registry.register("first", writeDictionary("first", "cat", "bat", "ball"));
+        registry.register("second", writeDictionary("second", "cat", "bat", "act"));
+        registry.getIndex("first");
+        registry.getIndex("second");
+
+        Assert.assertEquals("Words in both dictionaries should only be held once", 4, registry.getArena().getWordCount());
+        Assert.assertNull("The second dictionary shouldn't have BALL", registry.getIndex("second").search(2255));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDictionaryIsDroppedOverBudget() throws IOException {
+        final DictionaryRegistry sizing = new DictionaryRegistry(LARGE_BUDGET, 0);
+        sizing.register("sizing", writeDictionary("sizing", "cat"));
+        sizing.getIndex("sizing");
+        //room for the arena and two indexes but not three.
+        final DictionaryRegistry registry = new DictionaryRegistry(sizing.estimateMemoryUsage() * 2, 0);
+        registry.register("first", writeDictionary("first", "cat"));
+        registry.register("second", writeDictionary("second", "bat"));
+        registry.register("third", writeDictionary("third", "act"));
+
+        final WordIndex first = registry.getIndex("first");
+        registry.getIndex("second");
+        registry.getIndex("first");
+        registry.getIndex("third");
+
+        Assert.assertTrue("The most recently used dictionary should be kept", registry.isLoaded("first"));
+        Assert.assertFalse("The least recently used dictionary should have been dropped", registry.isLoaded("second"));
+        Assert.assertTrue("The dictionary asked for should be kept", registry.isLoaded("third"));
+        Assert.assertTrue("A dropped dictionary should be loaded again", registry.getIndex("second").search(228).contains("BAT"));
+        Assert.assertTrue("Indexes already held should still work", first.search(228).contains("CAT"));
+    }
+
+    @Test
+    public void testWordsOfDroppedDictionariesAreFreed() throws IOException {
+        final DictionaryRegistry sizing = new DictionaryRegistry(LARGE_BUDGET, 0);
+        sizing.register("sizing", writeDictionary("sizing", words(0)));
+        sizing.getIndex("sizing");
+        //room for two dictionaries, while the words of all of them would be over the budget on their own.
+        final long budget = sizing.estimateMemoryUsage() * 2;
+        final DictionaryRegistry registry = new DictionaryRegistry(budget, 0);
+        for (int i = 0; i < 10; i++) {
+            registry.register("dictionary" + i, writeDictionary("dictionary" + i, words(i)));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals("Unexpected number of words", 500, registry.getIndex("dictionary" + i).getIndexedCount());
+                Assert.assertTrue("The words of dropped dictionaries shouldn't be held", registry.estimateMemoryUsage() <= budget);
+            }
+        }
+        Assert.assertTrue("The dictionary asked for last should be kept", registry.isLoaded("dictionary9"));
+    }
+
+    /**
+     * Makes 500 words that no other dictionary number has.
+     */
+    private static String[] words(final int dictionaryNumber) {
+        final String[] words = new String[500];
+        for (int i = 0; i < words.length; i++) {
+            final int value = dictionaryNumber * words.length + i;
+            words[i] = new String(new char[]{ 'a', (char) ('a' + value / 676), (char) ('a' + value / 26 % 26), (char) ('a' + value % 26) });
+        }
+        return words;
+    }
+
+    @Test
+    public void testIdleDictionariesAreDropped()throws IOException, InterruptedException {
+        final DictionaryRegistry registry = new DictionaryRegistry(LARGE_BUDGET, 60000);
+        try {
+            registry.register("animals", writeDictionary("animals", "cat"));
+            registry.getIndex("animals");
+            registry.evictIdle();
+            Assert.assertTrue("A dictionary used recently should be kept", registry.isLoaded("animals"));
+        } finally {
+            registry.close();
+        }
+
+        final DictionaryRegistry shortIdleRegistry = new DictionaryRegistry(LARGE_BUDGET, 1);
+        try {
+            shortIdleRegistry.register("animals", writeDictionary("others", "cat"));
+            shortIdleRegistry.getIndex("animals");
+            Thread.sleep(20);
+            shortIdleRegistry.evictIdle();
+            Assert.assertFalse("An idle dictionary should have been dropped", shortIdleRegistry.isLoaded("animals"));
+        } finally {
+            shortIdleRegistry.close();
+        }
+    }
+
+    @Test
+    public void testMissingDictionaryFileFails() {
+        final DictionaryRegistry registry = new DictionaryRegistry(LARGE_BUDGET, 0);
+        registry.register("missing", new File(temporaryFolder.getRoot(), "missing"));
+        try {
+            registry.getIndex("missing");
+            Assert.fail("An exception should have been thrown as the file doesn't exist.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Couldn't locate file of dictionary missing to be loaded.", e.getMessage());
+        }
+    }
+}
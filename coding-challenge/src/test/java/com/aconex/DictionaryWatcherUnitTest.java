@@ -0,0 +1,71 @@
+package com.aconex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests watching a dictionary file for changes.
+ */
+public class DictionaryWatcherUnitTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static void write(final File file, final String content) throws IOException {
+        try (PrintStream output = new PrintStream(file, "UTF-8")) {
+            output.println(content);
+        }
+    }
+
+    @Test
+    public void testConstructionFailsWithoutFile() throws IOException {
+        try {
+            new DictionaryWatcher(null, new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            Assert.fail("An exception should have been thrown at construction as there wasn't a file provided.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "File cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testActionRunsWhenTheFileChanges() throws IOException, InterruptedException {
+        final File dictionary = temporaryFolder.newFile("dictionary");
+        write(dictionary, "cat");
+        final CountDownLatch changed = new CountDownLatch(1);
+        try (DictionaryWatcher ignored = new DictionaryWatcher(dictionary, new Runnable() {
+            @Override
+            public void run() {
+                changed.countDown();
+            }
+        })) {
+            write(dictionary, "bat");
+            Assert.assertTrue("The action should have been run after the file was changed", changed.await(30, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testActionDoesNotRunForOtherFiles() throws IOException, InterruptedException {
+        final File dictionary = temporaryFolder.newFile("dictionary");
+        final CountDownLatch changed = new CountDownLatch(1);
+        try (DictionaryWatcher ignored = new DictionaryWatcher(dictionary, new Runnable() {
+            @Override
+            public void run() {
+                changed.countDown();
+            }
+        })) {
+            write(temporaryFolder.newFile("other"), "bat");
+            Assert.assertFalse("The action shouldn't run for other files", changed.await(DictionaryWatcher.SETTLE_MILLIS * 5, TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.aconex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.aconex.index.WordIndex;
+
+/**
+ * Tests the cache of matches for numbers.
+ */
+public class MatchCacheUnitTest {
+
+    private WordIndex createSmallWordIndex() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(MatchCacheUnitTest.class.getResourceAsStream("/com/aconex/index/sampleDict"));
+        return wordIndex;
+    }
+
+    @Test
+    public void testConstructionFailsWithoutCapacity() {
+        try {
+            new MatchCache(0);
+            Assert.fail("An exception should have been thrown at construction as the capacity wasn't positive.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Capacity must be at least 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMatchesAreTheSameAsTheMatcher() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        final MatchCache matchCache = new MatchCache(10);
+        for (final String number : new String[]{ "228", "1800-228228", "1800-0228", "1800-0" }) {
+            Assert.assertEquals("Unexpected matches for " + number, new NumberMatcher(wordIndex, number).findMatches(), new HashSet<>(matchCache.getMatches(wordIndex, number)));
+        }
+    }
+
+    @Test
+    public void testRepeatedNumbersAreHits() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        final MatchCache matchCache = new MatchCache(10);
+        final List<String> matches = matchCache.getMatches(wordIndex, "228");
+        Assert.assertSame("The cached matches should be returned", matches, matchCache.getMatches(wordIndex, "228"));
+        Assert.assertSame("The normalised number should be used as the key", matches, matchCache.getMatches(wordIndex, "1800-228"));
+
+        Assert.assertEquals("Unexpected number of hits", 2, matchCache.getHitCount());
+        Assert.assertEquals("Unexpected number of misses", 1, matchCache.getMissCount());
+        Assert.assertEquals("Unexpected size", 1, matchCache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedNumberIsEvicted() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        final MatchCache matchCache = new MatchCache(2);
+        matchCache.getMatches(wordIndex, "228");
+        matchCache.getMatches(wordIndex, "4242");
+        //use 228 again so 4242 is the least recently used.
+        matchCache.getMatches(wordIndex, "228");
+        matchCache.getMatches(wordIndex, "66873");
+
+        Assert.assertEquals("Unexpected number of evictions", 1, matchCache.getEvictionCount());
+        Assert.assertEquals("Unexpected size", 2, matchCache.size());
+        matchCache.getMatches(wordIndex, "228");
+        Assert.assertEquals("228 should still have been cached", 2, matchCache.getHitCount());
+        matchCache.getMatches(wordIndex, "4242");
+        Assert.assertEquals("4242 should have been evicted", 4, matchCache.getMissCount());
+    }
+
+    @Test
+    public void testMatchesAreRefreshedWhenTheIndexChanges() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        final MatchCache matchCache = new MatchCache(10);
+        Assert.assertFalse("ACT shouldn't match before it is loaded", matchCache.getMatches(wordIndex, "228").contains("1-800-ACT"));
+
+        wordIndex.loadIndex("act");
+        Assert.assertTrue("ACT should match once it is loaded", matchCache.getMatches(wordIndex, "228").contains("1-800-ACT"));
+        Assert.assertEquals("Unexpected number of hits", 0, matchCache.getHitCount());
+    }
+
+    @Test
+    public void testMatchesAreRefreshedForADifferentIndex() {
+        final MatchCache matchCache = new MatchCache(10);
+        Assert.assertFalse("Nothing should match an empty index", matchCache.getMatches(new WordIndex(), "228").contains("1-800-CAT"));
+        Assert.assertTrue("CAT should match the reloaded index", matchCache.getMatches(createSmallWordIndex(), "228").contains("1-800-CAT"));
+    }
+
+    @Test
+    public void testConcurrentUseGivesTheSameMatches() throws Exception {
+        final WordIndex wordIndex = createSmallWordIndex();
+        final MatchCache matchCache = new MatchCache(4);
+        final String[] numbers = { "228", "4242", "66873", "1800-228228", "437245", "843728" };
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                final String number = numbers[i % numbers.length];
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return new NumberMatcher(wordIndex, number).findMatches().equals(new HashSet<>(matchCache.getMatches(wordIndex, number)));
+                    }
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                Assert.assertTrue("Cached matches should be the same as the matcher", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals("Every lookup should have been counted", 400, matchCache.getHitCount() + matchCache.getMissCount());
+    }
+}
@@ -0,0 +1,65 @@
+package com.aconex;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests matches are scored in favour of fewer, longer and more common words.
+ */
+public class MatchScorerUnitTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testLongerWordsScoreMoreThanSeveralShortWords() {
+        final MatchScorer matchScorer = new MatchScorer();
+        Assert.assertTrue("One long word should beat two short words", matchScorer.score("CATCAT") > matchScorer.score("CAT", "CAT"));
+        Assert.assertTrue("Two words should beat words split by a digit", matchScorer.score("CAT", "CAT") > matchScorer.score("CAT", "2", "AT"));
+        Assert.assertEquals("Unexpected score for a word and a digit", 9 - 2 * MatchScorer.SEGMENT_PENALTY, matchScorer.score("CAT", "2"), DELTA);
+    }
+
+    @Test
+    public void testFrequentWordsScoreMore() {
+        final MatchScorer matchScorer = new MatchScorer();
+        matchScorer.setFrequency("bat", 100);
+        Assert.assertEquals("Frequency should be matched ignoring case", Math.log1p(100), matchScorer.getWeight("BAT"), DELTA);
+        Assert.assertEquals("Words without a frequency shouldn't have a weight", 0, matchScorer.getWeight("CAT"), DELTA);
+        Assert.assertTrue("The more frequent word should score more", matchScorer.score("BAT") > matchScorer.score("CAT"));
+        Assert.assertEquals("Unexpected max weight", Math.log1p(100), matchScorer.getMaxWeight(), DELTA);
+    }
+
+    @Test
+    public void testSetFrequencyFailsForNegativeFrequency() {
+        try {
+            new MatchScorer().setFrequency("cat", -1);
+            Assert.fail("An exception should have been thrown as the frequency was negative.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Frequency cannot be negative", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLoadWeightsFailsWithoutStream() {
+        try {
+            new MatchScorer().loadWeights(null);
+            Assert.fail("An exception should have been thrown as there wasn't a stream provided.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Stream cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLoadWeightsIgnoresLinesThatCantBeRead() {
+        final MatchScorer matchScorer = new MatchScorer();
+        final String weights = "cat 20\n\nbat\nrat lots\nmouse -4\ngoat\t7\n";
+        matchScorer.loadWeights(new ByteArrayInputStream(weights.getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertEquals("Unexpected weight for CAT", Math.log1p(20), matchScorer.getWeight("CAT"), DELTA);
+        Assert.assertEquals("Unexpected weight for GOAT", Math.log1p(7), matchScorer.getWeight("GOAT"), DELTA);
+        Assert.assertEquals("BAT didn't have a frequency", 0, matchScorer.getWeight("BAT"), DELTA);
+        Assert.assertEquals("RAT didn't have a valid frequency", 0, matchScorer.getWeight("RAT"), DELTA);
+        Assert.assertEquals("MOUSE had a negative frequency", 0, matchScorer.getWeight("MOUSE"), DELTA);
+    }
+}
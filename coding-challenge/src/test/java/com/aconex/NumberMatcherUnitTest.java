@@ -1,10 +1,20 @@
 package com.aconex;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.aconex.index.DigitTrieWordIndex;
+import com.aconex.index.PrefixMatchListener;
 import com.aconex.index.WordIndex;
 
 /**
@@ -13,8 +23,11 @@ import com.aconex.index.WordIndex;
 public class NumberMatcherUnitTest {
 
     private WordIndex createSmallWordIndex() {
+        return loadSmallWordIndex(new WordIndex());
+    }
+
+    private WordIndex loadSmallWordIndex(final WordIndex wordIndex) {
         //create the test index containing the smaller word set.
-        final WordIndex wordIndex = new WordIndex();
         wordIndex.loadIndex(NumberMatcherUnitTest.class.getResourceAsStream("/com/aconex/index/sampleDict"));
         return wordIndex;
     }
@@ -42,13 +55,25 @@ public class NumberMatcherUnitTest {
     @Test
     public void testGetMatchingValueRemovesWhitespaceAndPunctuation() {
         final NumberMatcher numberMatcher = new NumberMatcher(new WordIndex(), "12-1234,123");
-        Assert.assertEquals("Unexpected value for number being matched", Integer.valueOf(121234123), numberMatcher.getMatchingValue());
+        Assert.assertEquals("Unexpected value for number being matched", "121234123", numberMatcher.getMatchingValue());
     }
 
     @Test
     public void testGetMatchingValueRemoves1800Prefix() {
         final NumberMatcher numberMatcher = new NumberMatcher(new WordIndex(), "1800123543");
-        Assert.assertEquals("Unexpected value for number being matched", Integer.valueOf(123543), numberMatcher.getMatchingValue());
+        Assert.assertEquals("Unexpected value for number being matched", "123543", numberMatcher.getMatchingValue());
+    }
+
+    @Test
+    public void testGetMatchingValueKeepsLeadingZeros() {
+        final NumberMatcher numberMatcher = new NumberMatcher(new WordIndex(), "1800-0228");
+        Assert.assertEquals("Unexpected value for number being matched", "0228", numberMatcher.getMatchingValue());
+    }
+
+    @Test
+    public void testGetMatchingValueAllowsNumbersTooLongForAnInt() {
+        final NumberMatcher numberMatcher = new NumberMatcher(new WordIndex(), "61 2 9876 5432 11");
+        Assert.assertEquals("Unexpected value for number being matched", "6129876543211", numberMatcher.getMatchingValue());
     }
 
     @Test
@@ -120,4 +145,345 @@ public class NumberMatcherUnitTest {
         Assert.assertTrue("Invalid matching number", matches.contains("1-800-BAT-CAT"));
         Assert.assertTrue("Invalid matching number", matches.contains("1-800-BAT-BAT"));
     }
+
+    @Test
+    public void testGetMatchesIgnoresWordsAfterAZero() {
+        final NumberMatcher numberMatcher = new NumberMatcher(createSmallWordIndex(), "1800-228-0228");
+
+        final Set<String> matches = numberMatcher.findMatches();
+        Assert.assertEquals("There should be 4 matches for the number provided", 4, matches.size());
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-CAT-0-CAT"));
+        Assert.assertFalse("The zero can't be dropped to match CAT-CAT", matches.contains("1-800-CAT-CAT"));
+    }
+
+    @Test
+    public void testGetMatchesDoesNotDropLeadingZeros() {
+        final NumberMatcher numberMatcher = new NumberMatcher(createSmallWordIndex(), "0228");
+
+        final Set<String> matches = numberMatcher.findMatches();
+        Assert.assertEquals("There should be 2 matches for the number provided", 2, matches.size());
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-0-CAT"));
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-0-BAT"));
+    }
+
+    @Test
+    public void testGetMatchesFindsMultiWordMatchesForLongNumbers() {
+        final NumberMatcher numberMatcher = new NumberMatcher(createSmallWordIndex(), "1800-437245-66873");
+
+        final Set<String> matches = numberMatcher.findMatches();
+        Assert.assertEquals("There should be 1 match for the number provided", 1, matches.size());
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-GERBIL-MOUSE"));
+    }
+
+    @Test
+    public void testGetMatchesUsingTheTrieIndexFindsTheSameMatches() {
+        final WordIndex trieIndex = loadSmallWordIndex(new DigitTrieWordIndex());
+        for (final String number : new String[]{ "1800-437-245", "1800-843-728", "1800-462882", "1800-467730", "1800-6437245", "1800-228228" }) {
+            Assert.assertEquals("The trie index should give the same matches for " + number,
+                    new NumberMatcher(createSmallWordIndex(), number).findMatches(), new NumberMatcher(trieIndex, number).findMatches());
+        }
+    }
+
+    @Test
+    public void testCountMatchesAndStreamedMatchesAgreeWithFindMatches() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        for (final String number : new String[]{ "228", "1800-437-245", "1800-843-728", "1800-0228", "1800-6437245", "1800-228228", "1800-228-0228", "1800-0" }) {
+            final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, number);
+            final Set<String> matches = numberMatcher.findMatches();
+            final List<String> streamedMatches = new ArrayList<>();
+            numberMatcher.findMatches(new MatchListener() {
+                @Override
+                public void onMatch(final CharSequence match) {
+                    streamedMatches.add(match.toString());
+                }
+            });
+
+            Assert.assertEquals("Unexpected count of matches for " + number, matches.size(), numberMatcher.countMatches());
+            Assert.assertEquals("Each match should only be streamed once for " + number, matches.size(), streamedMatches.size());
+            Assert.assertEquals("Streamed matches should be the same for " + number, matches, new HashSet<>(streamedMatches));
+        }
+    }
+
+    @Test
+    public void testIteratorGivesTheSameMatchesInTheStreamedOrder() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        for (final String number : new String[]{ "228", "1800-6437245", "1800-228228", "1800-228-0228", "1800-0" }) {
+            final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, number);
+            final List<String> streamedMatches = new ArrayList<>();
+            numberMatcher.findMatches(new MatchListener() {
+                @Override
+                public void onMatch(final CharSequence match) {
+                    streamedMatches.add(match.toString());
+                }
+            });
+            final List<String> iteratedMatches = new ArrayList<>();
+            for (final String match : numberMatcher) {
+                iteratedMatches.add(match);
+            }
+            Assert.assertEquals("Iterated matches should be in the streamed order for " + number, streamedMatches, iteratedMatches);
+        }
+    }
+
+    @Test
+    public void testMatchesInOrderAreTheStreamedMatches() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        for (final String number : new String[]{ "228", "1800-6437245", "1800-228228", "1800-228-0228", "1800-0" }) {
+            final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, number);
+            final List<String> streamedMatches = new ArrayList<>();
+            numberMatcher.findMatches(new MatchListener() {
+                @Override
+                public void onMatch(final CharSequence match) {
+                    streamedMatches.add(match.toString());
+                }
+            });
+            Assert.assertEquals("Matches in order should be the streamed matches for " + number, streamedMatches, numberMatcher.findMatchesInOrder());
+        }
+    }
+
+    @Test
+    public void testLimitStopsAfterTheFirstMatches() {
+        final NumberMatcher numberMatcher = new NumberMatcher(createSmallWordIndex(), "1800-228228");
+        final List<String> allMatches = new ArrayList<>();
+        for (final String match : numberMatcher) {
+            allMatches.add(match);
+        }
+        Assert.assertEquals("Unexpected number of matches", 4, allMatches.size());
+        Assert.assertEquals("Only the first matches should be returned", allMatches.subList(0, 3), numberMatcher.findMatches(3));
+        Assert.assertEquals("Every match should be returned when the limit is higher", allMatches, numberMatcher.findMatches(10));
+        Assert.assertTrue("No matches should be returned for a limit of zero", numberMatcher.findMatches(0).isEmpty());
+
+        final List<String> streamedMatches = new ArrayList<>();
+        final long count = numberMatcher.findMatches(new MatchListener() {
+            @Override
+            public void onMatch(final CharSequence match) {
+                streamedMatches.add(match.toString());
+            }
+        }, 2);
+        Assert.assertEquals("Unexpected count of streamed matches", 2, count);
+        Assert.assertEquals("Only the first matches should be streamed", allMatches.subList(0, 2), streamedMatches);
+    }
+
+    @Test
+    public void testLimitCannotBeNegative() {
+        try {
+            new NumberMatcher(createSmallWordIndex(), "228").findMatches(-1);
+            Assert.fail("An exception should have been thrown as the limit was negative.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Limit cannot be negative", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testIteratorIsEmptyWhenThereAreNoMatches() {
+        final Iterator<String> iterator = new NumberMatcher(createSmallWordIndex(), "1800-0").iterator();
+        Assert.assertFalse("There shouldn't be any matches", iterator.hasNext());
+        try {
+            iterator.next();
+            Assert.fail("An exception should have been thrown as there were no more matches.");
+        } catch (NoSuchElementException e) {
+            //expected.
+        }
+    }
+
+    /**
+     * Sorts every match by score the slow way, keeping the order matches are generated in for the same score.
+     */
+    private List<String> sortByScore(final NumberMatcher numberMatcher, final MatchScorer matchScorer) {
+        final List<String> matches = new ArrayList<>();
+        for (final String match : numberMatcher) {
+            matches.add(match);
+        }
+        Collections.sort(matches, new Comparator<String>() {
+            @Override
+            public int compare(final String first, final String second) {
+                return Double.compare(score(second), score(first));
+            }
+
+            private double score(final String match) {
+                return matchScorer.score(match.substring("1-800-".length()).split("-"));
+            }
+        });
+        return matches;
+    }
+
+    @Test
+    public void testBestMatchesAreTheHighestScoringMatches() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        final MatchScorer unweighted = new MatchScorer();
+        final MatchScorer weighted = new MatchScorer();
+        weighted.setFrequency("bat", 1000);
+        weighted.setFrequency("a", 5);
+        for (final MatchScorer matchScorer : new MatchScorer[]{ unweighted, weighted }) {
+            for (final String number : new String[]{ "228", "1800-6437245", "1800-228228", "1800-228-0228", "1800-2282", "1800-0" }) {
+                final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, number);
+                final List<String> sortedMatches = sortByScore(numberMatcher, matchScorer);
+                for (int limit = 0; limit <= sortedMatches.size() + 1; limit++) {
+                    Assert.assertEquals("Unexpected best " + limit + " matches for " + number, sortedMatches.subList(0, Math.min(limit, sortedMatches.size())),
+                            numberMatcher.findBestMatches(limit, matchScorer));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBestMatchesPreferFrequentWords() {
+        final NumberMatcher numberMatcher = new NumberMatcher(createSmallWordIndex(), "1800-228");
+        final MatchScorer matchScorer = new MatchScorer();
+        Assert.assertEquals("The first generated match should win a tie", numberMatcher.findMatches(1), numberMatcher.findBestMatches(1, matchScorer));
+
+        matchScorer.setFrequency("cat", 10);
+        Assert.assertEquals("The frequent word should be best", Collections.singletonList("1-800-CAT"), numberMatcher.findBestMatches(1, matchScorer));
+    }
+
+    @Test
+    public void testBestMatchesFailsWithoutScorer() {
+        try {
+            new NumberMatcher(createSmallWordIndex(), "228").findBestMatches(1, null);
+            Assert.fail("An exception should have been thrown as there wasn't a scorer provided.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Scorer cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testParallelMatchesAreTheStreamedMatchesInTheSameOrder() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        final Blocklist blocklist = new Blocklist();
+        blocklist.addWord("act");
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (final String number : new String[]{ "228", "1800-6437245", "1800-228228", "1800-228-0228", "1800-2282", "1800-0" }) {
+                for (final Blocklist numberBlocklist : new Blocklist[]{ null, blocklist }) {
+                    final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, number, numberBlocklist);
+                    final List<String> streamedMatches = new ArrayList<>();
+                    numberMatcher.findMatches(new MatchListener() {
+                        @Override
+                        public void onMatch(final CharSequence match) {
+                            streamedMatches.add(match.toString());
+                        }
+                    });
+                    //a threshold of 1 splits all the way down to a task per match.
+                    for (final int threshold : new int[]{ 1, 2, 3, 100 }) {
+                        Assert.assertEquals("Parallel matches should be in the streamed order for " + number + " split every " + threshold,
+                                streamedMatches, numberMatcher.findMatchesInParallel(pool, threshold));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelMatchingFailsWithoutPool() {
+        try {
+            new NumberMatcher(createSmallWordIndex(), "228").findMatchesInParallel(null, 1);
+            Assert.fail("An exception should have been thrown as the pool was null.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Pool cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testParallelThresholdMustBeAtLeastOne() {
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            new NumberMatcher(createSmallWordIndex(), "228").findMatchesInParallel(pool, 0);
+            Assert.fail("An exception should have been thrown as the threshold was 0.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Threshold must be at least 1", e.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBlockedWordsAreNeverMatched() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        final Blocklist blocklist = new Blocklist();
+        blocklist.addWord("Cat");
+        for (final String number : new String[]{ "228", "1800-228228", "1800-228-0228", "1800-2282", "1800-0228" }) {
+            final Set<String> expected = new HashSet<>();
+            for (final String match : new NumberMatcher(wordIndex, number).findMatches()) {
+                if (!match.contains("CAT")) {
+                    expected.add(match);
+                }
+            }
+            final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, number, blocklist);
+            Assert.assertEquals("Unexpected matches for " + number, expected, numberMatcher.findMatches());
+            Assert.assertEquals("Unexpected count for " + number, expected.size(), numberMatcher.countMatches());
+            Assert.assertTrue("Best matches for " + number + " shouldn't have CAT", expected.containsAll(numberMatcher.findBestMatches(10, new MatchScorer())));
+        }
+    }
+
+    @Test
+    public void testBlockingTheOnlyFullWordFallsBackToMultiWordMatches() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        wordIndex.loadIndex("bata");
+        final Blocklist blocklist = new Blocklist();
+        blocklist.addWord("bata");
+
+        Assert.assertEquals("The full word should be matched without a blocklist", Collections.singleton("1-800-BATA"), new NumberMatcher(wordIndex, "2282").findMatches());
+        final Set<String> matches = new NumberMatcher(wordIndex, "2282", blocklist).findMatches();
+        Assert.assertTrue("Should have contained: 1-800-BAT-A", matches.contains("1-800-BAT-A"));
+        Assert.assertFalse("Shouldn't have contained: 1-800-BATA", matches.contains("1-800-BATA"));
+    }
+
+    @Test
+    public void testCountingFirstDoesntLookTheNumberUpAgain() {
+        final int[] walks = new int[1];
+        final WordIndex wordIndex = loadSmallWordIndex(new WordIndex() {
+            @Override
+            public void walkPrefixes(final CharSequence digits, final int start, final PrefixMatchListener listener) {
+                walks[0]++;
+                super.walkPrefixes(digits, start, listener);
+            }
+        });
+        final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, "1800-228228");
+        final long count = numberMatcher.countMatches();
+        final List<String> matches = new ArrayList<>();
+        numberMatcher.findMatches(new MatchListener() {
+            @Override
+            public void onMatch(final CharSequence match) {
+                matches.add(match.toString());
+            }
+        });
+        Assert.assertEquals("The count should match the matches generated", count, matches.size());
+        Assert.assertEquals("The number should only have been looked up for the count", 1, walks[0]);
+
+        numberMatcher.findMatches(new MatchListener() {
+            @Override
+            public void onMatch(final CharSequence match) {
+                matches.remove(match.toString());
+            }
+        });
+        Assert.assertEquals("Matching again should look the number up again", 2, walks[0]);
+        Assert.assertTrue("Matching again should give the same matches", matches.isEmpty());
+    }
+
+    @Test
+    public void testBlocklistGivesTheSameMatchesEachTimeTheMatcherIsUsed() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        final Blocklist blocklist = new Blocklist();
+        blocklist.addWord("cat");
+        final NumberMatcher numberMatcher = new NumberMatcher(wordIndex, "1800-228228", blocklist);
+        final Iterator<String> earlierIterator = numberMatcher.iterator();
+        final List<String> firstMatches = numberMatcher.findMatchesInOrder();
+        Assert.assertEquals("Only BAT should be left for either word", Collections.singletonList("1-800-BAT-BAT"), firstMatches);
+
+        Assert.assertEquals("Counting again should give the same count", firstMatches.size(), numberMatcher.countMatches());
+        Assert.assertEquals("Matching again should give the same matches", firstMatches, numberMatcher.findMatchesInOrder());
+        final List<String> iteratedMatches = new ArrayList<>();
+        while (earlierIterator.hasNext()) {
+            iteratedMatches.add(earlierIterator.next());
+        }
+        Assert.assertEquals("An iterator from before should be unaffected by matching again", firstMatches, iteratedMatches);
+    }
+
+    @Test
+    public void testEmptyBlocklistChangesNothing() {
+        final WordIndex wordIndex = createSmallWordIndex();
+        Assert.assertEquals("An empty blocklist shouldn't change the matches", new NumberMatcher(wordIndex, "1800-228228").findMatches(),
+                new NumberMatcher(wordIndex, "1800-228228", new Blocklist()).findMatches());
+    }
 }
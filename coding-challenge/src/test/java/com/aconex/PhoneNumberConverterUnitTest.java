@@ -4,18 +4,33 @@ import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.contrib.java.lang.system.RestoreSystemProperties;
 import org.junit.contrib.java.lang.system.StandardOutputStreamLog;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import com.aconex.index.DigitTrieWordIndex;
+import com.aconex.index.MappedWordIndex;
 import com.aconex.index.WordIndex;
+import com.aconex.index.WordIndexWriter;
+import com.aconex.index.WordLookup;
+import com.aconex.output.BufferedMatchSink;
+import com.aconex.output.TsvMatchSink;
 
 /**
  * Tests functionality for the main command line class.
@@ -24,7 +39,15 @@ public class PhoneNumberConverterUnitTest {
     @Rule
     public final StandardOutputStreamLog log = new StandardOutputStreamLog();
     @Rule
-    public final RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE);
+    public final RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, PhoneNumberConverter.SYS_PROP_DICTIONARY_INDEX,
+            PhoneNumberConverter.SYS_PROP_DICTIONARY_PARALLELISM, PhoneNumberConverter.SYS_PROP_BATCH_THREADS, PhoneNumberConverter.SYS_PROP_BATCH_QUEUE_SIZE,
+            PhoneNumberConverter.SYS_PROP_CACHE_SIZE, PhoneNumberConverter.SYS_PROP_DICTIONARY_WATCH,
+            PhoneNumberConverter.SYS_PROP_DICTIONARY_DELTA, PhoneNumberConverter.SYS_PROP_DICTIONARY_WEIGHTS, PhoneNumberConverter.SYS_PROP_MATCH_TOP,
+            PhoneNumberConverter.SYS_PROP_INPUT_MAPPED, PhoneNumberConverter.SYS_PROP_DICTIONARIES,
+            PhoneNumberConverter.SYS_PROP_DICTIONARY_BLOCKLIST, PhoneNumberConverter.SYS_PROP_MATCH_PARALLEL_THRESHOLD,
+            PhoneNumberConverter.SYS_PROP_MATCH_SEGMENTED, PhoneNumberConverter.SYS_PROP_MATCH_SEGMENTED_LIMIT);
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     @Test
     public void testProcessFileWithAnInvalidFileLocation() {
@@ -97,4 +120,404 @@ public class PhoneNumberConverterUnitTest {
         Assert.assertTrue("Log should have contained: 1-800-BAT", logValue.contains("1-800-BAT"));
         Assert.assertTrue("Log should have contained: 1-800-CAT", logValue.contains("1-800-CAT"));
     }
+
+    @Test
+    public void testProcessNumberUsesPrebuiltIndexWhenSet() throws IOException {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(PhoneNumberConverterUnitTest.class.getResourceAsStream("/com/aconex/index/sampleDict"));
+        final File indexFile = temporaryFolder.newFile("sampleDict.idx");
+        WordIndexWriter.write(wordIndex, indexFile);
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_INDEX, indexFile.getPath());
+
+        new PhoneNumberConverter().processNumber("228");
+
+        final String logValue = log.getLog();
+        Assert.assertEquals("Should be 4 lines of output for the test number.", 4, logValue.split("\n").length);
+        Assert.assertTrue("Log should have contained: 1-800-BAT", logValue.contains("1-800-BAT"));
+        Assert.assertTrue("Log should have contained: 1-800-CAT", logValue.contains("1-800-CAT"));
+    }
+
+    @Test
+    public void testProcessNumberWithDictionaryLoadedInParallel() {
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_PARALLELISM, "2");
+
+        new PhoneNumberConverter().processNumber("228");
+
+        final String logValue = log.getLog();
+        Assert.assertTrue("Log should have contained: 1-800-BAT", logValue.contains("1-800-BAT"));
+        Assert.assertTrue("Log should have contained: 1-800-CAT", logValue.contains("1-800-CAT"));
+    }
+
+    @Test
+    public void testProcessFileConcurrentlyWritesTheSameOutputInOrder() throws IOException {
+        final File numberFile = temporaryFolder.newFile("numbers");
+        try (PrintStream numbers = new PrintStream(numberFile, "UTF-8")) {
+            for (int i = 0; i < 200; i++) {
+                numbers.println((i % 2 == 0) ? "1800-228228" : "1800-" + (437245 + i % 3));
+            }
+        }
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+
+        phoneNumberConverter.processFile(numberFile.getPath());
+        final String serialOutput = log.getLog();
+        log.clear();
+
+        System.setProperty(PhoneNumberConverter.SYS_PROP_BATCH_THREADS, "4");
+        System.setProperty(PhoneNumberConverter.SYS_PROP_BATCH_QUEUE_SIZE, "3");
+        phoneNumberConverter.processFile(numberFile.getPath());
+
+        Assert.assertTrue("There should have been matches written", serialOutput.contains("1-800-CAT-CAT"));
+        Assert.assertEquals("Processing concurrently should write the same output", serialOutput, log.getLog());
+    }
+
+    @Test
+    public void testProcessNumberWritesTheSameOutputToABufferedSink() {
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final PhoneNumberConverter bufferedConverter = new PhoneNumberConverter(null, new BufferedMatchSink(outputStream));
+        final PhoneNumberConverter consoleConverter = new PhoneNumberConverter();
+
+        for (final String number : new String[]{ "228", "1800-228228", "1800-0" }) {
+            bufferedConverter.processNumber(number);
+            consoleConverter.processNumber(number);
+        }
+        bufferedConverter.close();
+
+        Assert.assertTrue("Log should have contained: 1-800-CAT-CAT", log.getLog().contains("1-800-CAT-CAT"));
+        Assert.assertEquals("Buffered output should be the same as the console", log.getLog(), outputStream.toString());
+    }
+
+    @Test
+    public void testProcessNumberWithCacheWritesTheSameOutput() {
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+        phoneNumberConverter.processNumber("1800-228228");
+        phoneNumberConverter.processNumber("1800-0");
+        final String uncachedOutput = log.getLog();
+        log.clear();
+
+        System.setProperty(PhoneNumberConverter.SYS_PROP_CACHE_SIZE, "10");
+        final PhoneNumberConverter cachingConverter = new PhoneNumberConverter();
+        cachingConverter.processNumber("1800-228228");
+        cachingConverter.processNumber("1800-0");
+        cachingConverter.processNumber("1800-228228");
+
+        Assert.assertEquals("Cached output should be the same", uncachedOutput + uncachedOutput.substring(0, uncachedOutput.indexOf("Processing phone number 1800-0.")), log.getLog());
+        Assert.assertEquals("The repeated number should have been a cache hit", 1, cachingConverter.getMatchCache().getHitCount());
+    }
+
+    private static void writeDictionary(final File file, final String... words) throws IOException {
+        try (PrintStream output = new PrintStream(file, "UTF-8")) {
+            for (final String word : words) {
+                output.println(word);
+            }
+        }
+    }
+
+    @Test
+    public void testNumbersCanBeMatchedAgainstANamedDictionary() throws IOException {
+        final File dictionary = temporaryFolder.newFile("dictionary");
+        writeDictionary(dictionary, "cat");
+        final File brands = temporaryFolder.newFile("brands");
+        writeDictionary(brands, "acme", "bat");
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, dictionary.getPath());
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARIES, "brands=" + brands.getPath());
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter(null, null);
+
+        Assert.assertEquals("Unexpected default matches", Collections.singletonList("1-800-CAT"), phoneNumberConverter.findMatches("228"));
+        Assert.assertEquals("Unexpected default matches by name", Collections.singletonList("1-800-CAT"),
+                phoneNumberConverter.findMatches("228", PhoneNumberConverter.DEFAULT_DICTIONARY));
+        Assert.assertEquals("Unexpected brand matches", Collections.singletonList("1-800-BAT"), phoneNumberConverter.findMatches("228", "brands"));
+
+        final File numbers = temporaryFolder.newFile("numbers");
+        writeDictionary(numbers, "2263");
+        phoneNumberConverter.processFile(numbers.getPath(), "brands");
+        Assert.assertTrue("Log should have contained: 1-800-ACME", log.getLog().contains("1-800-ACME"));
+        phoneNumberConverter.close();
+    }
+
+    @Test
+    public void testBlocklistPropertyLeavesWordsOutOfMatches() throws IOException {
+        final File dictionary = temporaryFolder.newFile("dictionary");
+        writeDictionary(dictionary, "cat", "bat");
+        final File blocklist = temporaryFolder.newFile("blocklist");
+        writeDictionary(blocklist, "cat");
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, dictionary.getPath());
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_BLOCKLIST, blocklist.getPath());
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter(null, null);
+
+        Assert.assertEquals("Unexpected matches", Collections.singletonList("1-800-BAT"), phoneNumberConverter.findMatches("228"));
+        phoneNumberConverter.processNumber("228");
+        Assert.assertFalse("Log shouldn't have contained: 1-800-CAT", log.getLog().contains("1-800-CAT"));
+    }
+
+    @Test
+    public void testUnknownDictionaryFailsBeforeProcessing() throws IOException {
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter(mock(WordIndex.class));
+        try {
+            phoneNumberConverter.processFile("invalidFileLocation", "missing");
+            Assert.fail("An exception should have been thrown as the dictionary isn't registered.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Unknown dictionary missing.", e.getMessage());
+        }
+        Assert.assertEquals("Nothing should have been written", "", log.getLog());
+    }
+
+    @Test
+    public void testReloadSwapsInTheChangedDictionary() throws IOException {
+        final File dictionary = temporaryFolder.newFile("dictionary");
+        writeDictionary(dictionary, "cat");
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, dictionary.getPath());
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+        final WordLookup originalIndex = phoneNumberConverter.getWordIndex();
+
+        writeDictionary(dictionary, "cat", "bat");
+        phoneNumberConverter.reload();
+        phoneNumberConverter.processNumber("228");
+
+        Assert.assertNotSame("A new index should have been swapped in", originalIndex, phoneNumberConverter.getWordIndex());
+        Assert.assertEquals("The original index shouldn't have been changed", 1, originalIndex.getIndexedCount());
+        Assert.assertTrue("Log should have contained: 1-800-BAT", log.getLog().contains("1-800-BAT"));
+    }
+
+    @Test
+    public void testReloadKeepsTheTypeOfIndexPassedIn() throws IOException {
+        final File dictionary = temporaryFolder.newFile("dictionary");
+        writeDictionary(dictionary, "cat");
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, dictionary.getPath());
+        final PhoneNumberConverter trieConverter = new PhoneNumberConverter(new DigitTrieWordIndex());
+        trieConverter.reload();
+        Assert.assertTrue("The reloaded index should still be a trie", trieConverter.getWordIndex() instanceof DigitTrieWordIndex);
+
+        final File indexFile = temporaryFolder.newFile("dictionary.index");
+        final WordIndex catIndex = new WordIndex();
+        catIndex.loadIndex("cat");
+        WordIndexWriter.write(catIndex, indexFile);
+        final PhoneNumberConverter mappedConverter = new PhoneNumberConverter(new MappedWordIndex(indexFile));
+        final WordIndex batIndex = new WordIndex();
+        batIndex.loadIndex("bat");
+        WordIndexWriter.write(batIndex, indexFile);
+        mappedConverter.reload();
+        Assert.assertTrue("The reloaded index should still be mapped", mappedConverter.getWordIndex() instanceof MappedWordIndex);
+        Assert.assertTrue("The reloaded index should have the rewritten words", mappedConverter.getWordIndex().search(228).contains("BAT"));
+    }
+
+    @Test
+    public void testReloadKeepsTheCurrentIndexWhenTheDictionaryCannotBeLoaded() throws IOException {
+        final File dictionary = temporaryFolder.newFile("dictionary");
+        writeDictionary(dictionary, "cat");
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, dictionary.getPath());
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+        final WordLookup originalIndex = phoneNumberConverter.getWordIndex();
+
+        Assert.assertTrue("The dictionary should have been deleted", dictionary.delete());
+        try {
+            phoneNumberConverter.reload();
+            Assert.fail("Reloading a missing dictionary should have failed");
+        } catch (IllegalArgumentException e) {
+            Assert.assertSame("The original index should still be used", originalIndex, phoneNumberConverter.getWordIndex());
+        }
+    }
+
+    @Test
+    public void testDictionaryIsReloadedWhenTheWatchedFileChanges() throws IOException, InterruptedException {
+        final File dictionary = temporaryFolder.newFile("dictionary");
+        writeDictionary(dictionary, "cat");
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, dictionary.getPath());
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_WATCH, "true");
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+        try {
+            writeDictionary(dictionary, "cat", "bat");
+
+            final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (phoneNumberConverter.getWordIndex().getIndexedCount() != 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals("The changed dictionary should have been loaded", 2, phoneNumberConverter.getWordIndex().getIndexedCount());
+        } finally {
+            phoneNumberConverter.close();
+        }
+    }
+
+    @Test
+    public void testDeltaIsAppliedOnTopOfTheDictionary() throws IOException {
+        final File delta = temporaryFolder.newFile("delta");
+        writeDictionary(delta, "-cat", "+act");
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_DELTA, delta.getPath());
+
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+        phoneNumberConverter.processNumber("228");
+        Assert.assertTrue("Log should have contained: 1-800-ACT", log.getLog().contains("1-800-ACT"));
+        Assert.assertFalse("Log shouldn't have contained: 1-800-CAT", log.getLog().contains("1-800-CAT"));
+
+        writeDictionary(delta, "+cat");
+        phoneNumberConverter.applyDelta(delta.getPath());
+        log.clear();
+        phoneNumberConverter.processNumber("228");
+        Assert.assertTrue("Log should have contained: 1-800-CAT once the second delta was applied", log.getLog().contains("1-800-CAT"));
+    }
+
+    @Test
+    public void testRepeatedDeltasDontGrowTheIndex() throws IOException {
+        final File delta = temporaryFolder.newFile("delta");
+        final String[] changes = new String[4000];
+        for (int i = 0; i < changes.length; i += 4) {
+            changes[i] = "+dog";
+            changes[i + 1] = "-cat";
+            changes[i + 2] = "+cat";
+            changes[i + 3] = "-dog";
+        }
+        writeDictionary(delta, changes);
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath());
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+        final long loadedEstimate = phoneNumberConverter.getWordIndex().estimateMemoryUsage();
+
+        for (int i = 0; i < 20; i++) {
+            phoneNumberConverter.applyDelta(delta.getPath());
+            Assert.assertTrue("Memory used after delta " + i + " should stay bounded", phoneNumberConverter.getWordIndex().estimateMemoryUsage() <= loadedEstimate);
+        }
+        phoneNumberConverter.processNumber("228");
+        Assert.assertTrue("Log should have contained: 1-800-CAT", log.getLog().contains("1-800-CAT"));
+    }
+
+    @Test
+    public void testOnlyTheBestMatchesAreWrittenWhenAskedFor() throws IOException {
+        final File weights = temporaryFolder.newFile("weights");
+        writeDictionary(weights, "bat 50", "cat 10");
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_WEIGHTS, weights.getPath());
+        System.setProperty(PhoneNumberConverter.SYS_PROP_MATCH_TOP, "1");
+
+        new PhoneNumberConverter().processNumber("228");
+        Assert.assertTrue("Log should have contained: 1-800-BAT", log.getLog().contains("1-800-BAT"));
+        Assert.assertFalse("Log shouldn't have contained: 1-800-CAT", log.getLog().contains("1-800-CAT"));
+        Assert.assertTrue("Log should have contained the number of matches written", log.getLog().contains("Found 1 options: "));
+    }
+
+    @Test
+    public void testProcessNumbersReadsEveryLineSkippingBlankLines() {
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter(null, new TsvMatchSink(outputStream));
+        phoneNumberConverter.processNumbers(new ByteArrayInputStream("228\n\n  \n1800-0\n4242".getBytes(StandardCharsets.UTF_8)));
+
+        final String[] lines = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).split(System.getProperty("line.separator"));
+        Assert.assertEquals("There should have been a line for each number", 3, lines.length);
+        Assert.assertTrue("Unexpected line for 228: " + lines[0], lines[0].startsWith("228\t2\t"));
+        Assert.assertEquals("Unexpected line for 1800-0", "1800-0\t0", lines[1]);
+        Assert.assertTrue("Unexpected line for 4242: " + lines[2], lines[2].startsWith("4242\t"));
+    }
+
+    @Test
+    public void testMappedInputGivesTheSameOutput() throws IOException {
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        final File numbers = temporaryFolder.newFile("numbers");
+        writeDictionary(numbers, "1800-228", "", "1800-0", "4242", "228 228");
+        final String numberFile = numbers.getPath();
+
+        new PhoneNumberConverter().processFile(numberFile);
+        final String readerOutput = log.getLog();
+        log.clear();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_INPUT_MAPPED, Boolean.TRUE.toString());
+        new PhoneNumberConverter().processFile(numberFile);
+        Assert.assertTrue("Output should have had matches", readerOutput.contains("Found "));
+        Assert.assertEquals("Mapped output should be the same as reading the file", readerOutput, log.getLog());
+    }
+
+    @Test
+    public void testMappedInputMatchedConcurrentlyGivesTheSameOutputInOrder() throws IOException {
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        final File numberFile = temporaryFolder.newFile("numbers");
+        try (PrintStream numbers = new PrintStream(numberFile, "UTF-8")) {
+            for (int i = 0; i < 200; i++) {
+                numbers.println((i % 2 == 0) ? "1800-228228" : (i % 5 == 0) ? "" : "1800-" + (437245 + i % 3));
+            }
+        }
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+
+        phoneNumberConverter.processFile(numberFile.getPath());
+        final String readerOutput = log.getLog();
+        log.clear();
+
+        System.setProperty(PhoneNumberConverter.SYS_PROP_INPUT_MAPPED, Boolean.TRUE.toString());
+        System.setProperty(PhoneNumberConverter.SYS_PROP_BATCH_THREADS, "4");
+        phoneNumberConverter.processFile(numberFile.getPath());
+
+        Assert.assertTrue("There should have been matches written", readerOutput.contains("1-800-CAT-CAT"));
+        Assert.assertEquals("Matching ranges of the mapped file should write the same output", readerOutput, log.getLog());
+    }
+
+    @Test
+    public void testParallelMatchingGivesTheSameOutput() throws IOException {
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        final File numbers = temporaryFolder.newFile("numbers");
+        writeDictionary(numbers, "1800-228", "1800-228228", "1800-0", "4242", "1800-6437245");
+        final String numberFile = numbers.getPath();
+
+        final PhoneNumberConverter sequentialConverter = new PhoneNumberConverter();
+        sequentialConverter.processFile(numberFile);
+        final String sequentialOutput = log.getLog();
+        log.clear();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_MATCH_PARALLEL_THRESHOLD, "2");
+        final PhoneNumberConverter parallelConverter = new PhoneNumberConverter();
+        parallelConverter.processFile(numberFile);
+        Assert.assertTrue("Output should have had matches", sequentialOutput.contains("Found 4 options: "));
+        Assert.assertEquals("Parallel output should be the same as matching on one thread", sequentialOutput, log.getLog());
+        Assert.assertEquals("Parallel matches should be the same as matching on one thread",
+                sequentialConverter.findMatches("1800-228228"), parallelConverter.findMatches("1800-228228"));
+        parallelConverter.close();
+    }
+
+    @Test
+    public void testSegmentedMatchingChainsWordsAndDigits() throws IOException {
+        final File blocked = temporaryFolder.newFile("blocked");
+        writeDictionary(blocked, "bat");
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_BLOCKLIST, blocked.getPath());
+        System.setProperty(PhoneNumberConverter.SYS_PROP_MATCH_SEGMENTED, Boolean.TRUE.toString());
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+
+        final List<String> matches = phoneNumberConverter.findMatches("228");
+        Assert.assertTrue("Should have contained the chain 1-800-A-A-8: " + matches, matches.contains("1-800-A-A-8"));
+        Assert.assertTrue("Should have contained 1-800-CAT: " + matches, matches.contains("1-800-CAT"));
+        Assert.assertFalse("Shouldn't have contained the blocked 1-800-BAT: " + matches, matches.contains("1-800-BAT"));
+
+        phoneNumberConverter.processNumber("228");
+        Assert.assertTrue("Log should have contained the number of chains", log.getLog().contains(String.format("Found %d options: ", matches.size())));
+        Assert.assertTrue("Log should have contained: 1-800-A-A-8", log.getLog().contains("1-800-A-A-8"));
+    }
+
+    @Test
+    public void testSegmentedMatchesAreLimited() throws IOException {
+        final String testSystemProperty = PhoneNumberConverterUnitTest.class.getResource("/com/aconex/index/sampleDict").getPath();
+        System.setProperty(PhoneNumberConverter.SYS_PROP_DICTIONARY_OVERRIDE, testSystemProperty);
+        System.setProperty(PhoneNumberConverter.SYS_PROP_MATCH_SEGMENTED, Boolean.TRUE.toString());
+        final List<String> allMatches = new PhoneNumberConverter().findMatches("228228");
+        Assert.assertTrue("The number should have more chains than the limit: " + allMatches, allMatches.size() > 3);
+
+        System.setProperty(PhoneNumberConverter.SYS_PROP_MATCH_SEGMENTED_LIMIT, "3");
+        final PhoneNumberConverter phoneNumberConverter = new PhoneNumberConverter();
+        final List<String> matches = phoneNumberConverter.findMatches("228228");
+        Assert.assertEquals("Only the first chains should have been collected", allMatches.subList(0, 3), matches);
+
+        phoneNumberConverter.processNumber("228228");
+        Assert.assertTrue("Log should have contained the limited number of chains", log.getLog().contains("Found 3 options: "));
+        for (final String match : allMatches.subList(3, allMatches.size())) {
+            Assert.assertFalse("Log shouldn't have contained chains past the limit: " + match, log.getLog().contains(match + System.lineSeparator()));
+        }
+    }
 }
@@ -0,0 +1,128 @@
+package com.aconex;
+
+import java.util.Iterator;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.aconex.index.DigitTrieWordIndex;
+import com.aconex.index.WordIndex;
+
+/**
+ * Test class to ensure numbers can be matched to chains of words and digits.
+ */
+public class SegmentationMatcherUnitTest {
+
+    private WordIndex createSmallWordIndex(final WordIndex wordIndex) {
+        //create the test index containing the smaller word set.
+        wordIndex.loadIndex(SegmentationMatcherUnitTest.class.getResourceAsStream("/com/aconex/index/sampleDict"));
+        return wordIndex;
+    }
+
+    @Test
+    public void testConstructionFailsWithoutWordIndex() {
+        try {
+            new SegmentationMatcher(null, "193.12-3922");
+            Assert.fail("An exception should have been thrown at construction as there wasn't a WordIndex provided.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Word Index cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetMatchingValueKeepsLeadingZerosAndLongNumbers() {
+        final SegmentationMatcher matcher = new SegmentationMatcher(new WordIndex(), "1800 0123-4567-8901");
+        Assert.assertEquals("Unexpected value for number being matched", "012345678901", matcher.getMatchingValue());
+    }
+
+    @Test
+    public void testFindMatchesReturnsEveryChainWithoutAdjacentDigits() {
+        final SegmentationMatcher matcher = new SegmentationMatcher(createSmallWordIndex(new WordIndex()), "228");
+
+        final Set<String> matches = matcher.findMatches();
+        Assert.assertEquals("There should be 4 matches for the number provided", 4, matches.size());
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-CAT"));
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-BAT"));
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-A-A-8"));
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-2-A-8"));
+    }
+
+    @Test
+    public void testFindMatchesChainsMoreThanTwoWords() {
+        final SegmentationMatcher matcher = new SegmentationMatcher(createSmallWordIndex(new WordIndex()), "1800-843-728-228");
+
+        final Set<String> matches = matcher.findMatches();
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-THE-RAT-CAT"));
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-THE-RAT-A-A-8"));
+        Assert.assertTrue("Invalid matching number", matches.contains("1-800-THE-7-A-8-BAT"));
+        for (final String match : matches) {
+            Assert.assertFalse("Untouched digits can't be next to each other: " + match, match.substring("1-800-".length()).matches(".*\\d-\\d.*"));
+        }
+    }
+
+    @Test
+    public void testCountMatchesAgreesWithEnumeration() {
+        final WordIndex wordIndex = createSmallWordIndex(new WordIndex());
+        for (final String number : new String[]{ "228", "843728228", "2282282282", "462882", "5", "0" }) {
+            final SegmentationMatcher matcher = new SegmentationMatcher(wordIndex, number);
+            Assert.assertEquals("Unexpected count for " + number, matcher.findMatches().size(), matcher.countMatches());
+        }
+    }
+
+    @Test
+    public void testBlockedWordsAreNeverChained() {
+        final WordIndex wordIndex = createSmallWordIndex(new WordIndex());
+        final Blocklist blocklist = new Blocklist();
+        blocklist.addWord("cat");
+        for (final String number : new String[]{ "228", "843728228", "2282282282" }) {
+            final Set<String> expected = new HashSet<>();
+            for (final String match : new SegmentationMatcher(wordIndex, number).findMatches()) {
+                if (!match.contains("CAT")) {
+                    expected.add(match);
+                }
+            }
+            final SegmentationMatcher matcher = new SegmentationMatcher(wordIndex, number, blocklist);
+            Assert.assertEquals("Unexpected matches for " + number, expected, matcher.findMatches());
+            Assert.assertEquals("Unexpected count for " + number, expected.size(), matcher.countMatches());
+        }
+    }
+
+    @Test
+    public void testSingleDigitNeedsAWord() {
+        final WordIndex wordIndex = createSmallWordIndex(new WordIndex());
+        Assert.assertTrue("A single digit can't be left untouched on its own", new SegmentationMatcher(wordIndex, "5").findMatches().isEmpty());
+        Assert.assertEquals("A single digit can be matched by a word", 1, new SegmentationMatcher(wordIndex, "2").findMatches().size());
+    }
+
+    @Test
+    public void testNoMatchesForNonNumericValues() {
+        final SegmentationMatcher matcher = new SegmentationMatcher(createSmallWordIndex(new WordIndex()), "18A0123543");
+        Assert.assertNull("Letters shouldn't be matched", matcher.getMatchingValue());
+        Assert.assertFalse("There should be no matches", matcher.iterator().hasNext());
+        Assert.assertEquals("There should be no matches", 0, matcher.countMatches());
+    }
+
+    @Test
+    public void testIteratorIsLazyOverLongNumbers() {
+        //every letter being a word in the full dictionary makes the number of chains for a long number enormous.
+        final SegmentationMatcher matcher = new SegmentationMatcher(createSmallWordIndex(new DigitTrieWordIndex()), "2222222222222222222222222222222222222222");
+        Assert.assertTrue("There should be more chains than could be held in memory", matcher.countMatches() > 100000000L);
+
+        final Iterator<String> iterator = matcher.iterator();
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue("Should be able to take the first few chains", iterator.hasNext());
+            Assert.assertTrue("Each chain should be a 1800 number", iterator.next().startsWith("1-800-"));
+        }
+    }
+
+    @Test
+    public void testTrieAndMapIndexesGiveTheSameChains() {
+        final WordIndex mapIndex = createSmallWordIndex(new WordIndex());
+        final WordIndex trieIndex = createSmallWordIndex(new DigitTrieWordIndex());
+        for (final String number : new String[]{ "228", "843728228", "6437245", "4628820228" }) {
+            Assert.assertEquals("Unexpected difference for " + number, new SegmentationMatcher(mapIndex, number).findMatches(), new SegmentationMatcher(trieIndex, number).findMatches());
+        }
+    }
+}
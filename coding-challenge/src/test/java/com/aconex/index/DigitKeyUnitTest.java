@@ -0,0 +1,47 @@
+package com.aconex.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for packing digits into keys.
+ */
+public class DigitKeyUnitTest {
+    @Test
+    public void testKeysKeepLeadingZeros() {
+        Assert.assertNotEquals("A leading zero should give a different key", DigitKey.valueOf("228"), DigitKey.valueOf("0228"));
+        Assert.assertEquals("Unexpected length for a key with a leading zero", 4, DigitKey.length(DigitKey.valueOf("0228")));
+        Assert.assertEquals("Unexpected digits for a key with a leading zero", "0228", DigitKey.toString(DigitKey.valueOf("0228")));
+    }
+
+    @Test
+    public void testKeysCanHoldSixteenDigits() {
+        final String digits = "9876543210123456";
+        final long key = DigitKey.valueOf(digits);
+        Assert.assertNotEquals("Sixteen digits should fit in a key", DigitKey.INVALID, key);
+        Assert.assertEquals("Unexpected length for a full key", 16, DigitKey.length(key));
+        Assert.assertEquals("Unexpected digits for a full key", digits, DigitKey.toString(key));
+        Assert.assertEquals("Unexpected first digit", 9, DigitKey.digitAt(key, 0));
+        Assert.assertEquals("Unexpected last digit", 6, DigitKey.digitAt(key, 15));
+    }
+
+    @Test
+    public void testKeysAreInvalidWhenTooLong() {
+        Assert.assertEquals("Seventeen digits shouldn't fit in a key", DigitKey.INVALID, DigitKey.valueOf("12345678901234567"));
+        Assert.assertEquals("A full key can't be appended to", DigitKey.INVALID, DigitKey.append(DigitKey.valueOf("1234567890123456"), 7));
+    }
+
+    @Test
+    public void testKeysAreInvalidForNonDigits() {
+        Assert.assertEquals("Letters can't be packed", DigitKey.INVALID, DigitKey.valueOf("12A4"));
+        Assert.assertEquals("Negative numbers can't be packed", DigitKey.INVALID, DigitKey.valueOf(-228L));
+    }
+
+    @Test
+    public void testKeysFromPartOfASequenceMatchKeysFromNumbers() {
+        Assert.assertEquals("A key from part of a sequence should match the number", DigitKey.valueOf(228L), DigitKey.valueOf("92289", 1, 4));
+        Assert.assertEquals("Zero should have a key", "0", DigitKey.toString(DigitKey.valueOf(0L)));
+        Assert.assertEquals("An empty range should give the empty key", DigitKey.EMPTY, DigitKey.valueOf("228", 1, 1));
+        Assert.assertEquals("The empty key has no digits", 0, DigitKey.length(DigitKey.EMPTY));
+    }
+}
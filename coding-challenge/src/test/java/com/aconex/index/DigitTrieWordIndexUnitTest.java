@@ -0,0 +1,113 @@
+package com.aconex.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for the trie backed index.
+ */
+public class DigitTrieWordIndexUnitTest {
+    @Test
+    public void testInstanceCreationHasEmptyIndex() {
+        Assert.assertEquals("Expected the initialised word index to have no values", 0, new DigitTrieWordIndex().getIndexedCount());
+    }
+
+    @Test
+    public void testLoadIndexUsingStreamMatchesTheCountOfTheMapBackedIndex() {
+        final WordIndex wordIndex = new DigitTrieWordIndex();
+        wordIndex.loadIndex(DigitTrieWordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+
+        Assert.assertEquals("There should be 10 entries in the index from the test file", 10, wordIndex.getIndexedCount());
+    }
+
+    @Test
+    public void testLoadIndexDoesNotCountDuplicateEntries() {
+        final WordIndex wordIndex = new DigitTrieWordIndex();
+        wordIndex.loadIndex("cat");
+        wordIndex.loadIndex("CAT");
+
+        Assert.assertEquals("Loading the same word twice should only index it once", 1, wordIndex.getIndexedCount());
+    }
+
+    @Test
+    public void testLoadIndexKeepsWordsTooLongForAnInt() {
+        final WordIndex wordIndex = new DigitTrieWordIndex();
+        wordIndex.loadIndex("international");
+
+        final String digits = "4683762846625";
+        Assert.assertEquals("The trie isn't limited by the size of an int", 1, wordIndex.getIndexedCount());
+        Assert.assertTrue("Should be able to find long words by their digits", wordIndex.search(DigitKey.valueOf(digits)).contains("INTERNATIONAL"));
+    }
+
+    @Test
+    public void testFindValuesForNumber() {
+        final WordIndex wordIndex = new DigitTrieWordIndex();
+        wordIndex.loadIndex("cat");
+        wordIndex.loadIndex("bat");
+
+        final Set<String> stringValues = wordIndex.search(228);
+        Assert.assertNotNull("Should have been able to locate the loaded values using the number equivalent.", stringValues);
+        Assert.assertTrue("Should have found CAT", stringValues.contains("CAT"));
+        Assert.assertTrue("Should have found BAT", stringValues.contains("BAT"));
+    }
+
+    @Test
+    public void testSearchReturnsNullForPrefixesWithoutWords() {
+        final WordIndex wordIndex = new DigitTrieWordIndex();
+        wordIndex.loadIndex("cat");
+
+        Assert.assertNull("A prefix of an indexed word isn't a match", wordIndex.search(22));
+        Assert.assertNull("Numbers containing a one can't match", wordIndex.search(1228));
+    }
+
+    @Test
+    public void testWalkPrefixesReportsEveryWordEndingAlongTheNumber() {
+        final WordIndex wordIndex = new DigitTrieWordIndex();
+        wordIndex.loadIndex(DigitTrieWordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+
+        final List<Integer> ends = new ArrayList<>();
+        final List<String> words = new ArrayList<>();
+        wordIndex.walkPrefixes("2282", 0, new PrefixMatchListener() {
+            @Override
+            public void onMatch(final int end, final long range) {
+                ends.add(end);
+                for (int i = WordRange.start(range); i < WordRange.end(range); i++) {
+                    words.add(wordIndex.getWord(i));
+                }
+            }
+        });
+
+        Assert.assertEquals("Expected matches for A and for CAT/BAT", 2, ends.size());
+        Assert.assertEquals("A should end after the first digit", Integer.valueOf(1), ends.get(0));
+        Assert.assertEquals("CAT should end after the third digit", Integer.valueOf(3), ends.get(1));
+        Assert.assertEquals("A, CAT and BAT should have been reported", 3, words.size());
+        Assert.assertTrue("A should have been reported", words.contains("A"));
+        Assert.assertTrue("CAT should have been reported", words.contains("CAT"));
+    }
+
+    @Test
+    public void testRemoveEntryRemovesTheWordButKeepsLongerWords() {
+        final WordIndex wordIndex = new DigitTrieWordIndex();
+        wordIndex.loadIndex(DigitTrieWordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+
+        wordIndex.removeEntry("a");
+        wordIndex.removeEntry("cat");
+        Assert.assertNull("A should have been removed", wordIndex.search(2));
+        Assert.assertEquals("Only BAT should be left", 1, wordIndex.search(228).size());
+        Assert.assertEquals("The count should have gone down by one for each word removed", 8, wordIndex.getIndexedCount());
+
+        final List<Integer> ends = new ArrayList<>();
+        wordIndex.walkPrefixes("228", 0, new PrefixMatchListener() {
+            @Override
+            public void onMatch(final int end, final long range) {
+                ends.add(end);
+            }
+        });
+        Assert.assertEquals("Only BAT should be reported once A has been removed", Collections.singletonList(3), ends);
+    }
+}
@@ -0,0 +1,56 @@
+package com.aconex.index;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the mapping of letters to keypad digits.
+ */
+public class KeypadUnitTest {
+    @Test
+    public void testEveryLetterMapsToItsKeypadDigit() {
+        final String[] letters = { "ABC", "DEF", "GHI", "JKL", "MNO", "PQRS", "TUV", "WXYZ" };
+        for (int i = 0; i < letters.length; i++) {
+            for (final char letter : letters[i].toCharArray()) {
+                Assert.assertEquals("Unexpected digit for " + letter, i + 2, Keypad.digitOf(letter));
+                Assert.assertEquals("Lowercase should map the same as uppercase for " + letter, i + 2, Keypad.digitOf(Character.toLowerCase(letter)));
+                Assert.assertEquals("Bytes should map the same as chars for " + letter, i + 2, Keypad.digitOf((byte) letter));
+            }
+        }
+    }
+
+    @Test
+    public void testCharactersThatAreNotLettersDoNotMap() {
+        for (final char c : new char[]{ '0', '9', '_', '-', ' ', 'é', 'Ā' }) {
+            Assert.assertEquals("Unexpected digit for " + c, -1, Keypad.digitOf(c));
+        }
+        Assert.assertEquals("Non ASCII bytes shouldn't map", -1, Keypad.digitOf((byte) 0xC3));
+    }
+
+    @Test
+    public void testEncodeCharsGivesTheKeyForTheDigits() {
+        final char[] letters = "xGerbIlx".toCharArray();
+        Assert.assertEquals("Unexpected key", DigitKey.valueOf("437245"), Keypad.encode(letters, 1, 7));
+    }
+
+    @Test
+    public void testEncodeBytesGivesTheKeyForTheDigits() {
+        final byte[] letters = "xGerbIlx".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals("Unexpected key", DigitKey.valueOf("437245"), Keypad.encode(letters, 1, 7));
+    }
+
+    @Test
+    public void testEncodeIsInvalidForCharactersThatAreNotLetters() {
+        Assert.assertEquals("Digits shouldn't be encoded", DigitKey.INVALID, Keypad.encode("cat1".toCharArray(), 0, 4));
+        Assert.assertEquals("Punctuation shouldn't be encoded", DigitKey.INVALID, Keypad.encode("can't".getBytes(StandardCharsets.US_ASCII), 0, 5));
+    }
+
+    @Test
+    public void testEncodeIsInvalidForTooManyLetters() {
+        final char[] letters = "internationalisation".toCharArray();
+        Assert.assertEquals("16 letters should fit in a key", 16, DigitKey.length(Keypad.encode(letters, 0, DigitKey.MAX_LENGTH)));
+        Assert.assertEquals("Too many letters for a key", DigitKey.INVALID, Keypad.encode(letters, 0, letters.length));
+    }
+}
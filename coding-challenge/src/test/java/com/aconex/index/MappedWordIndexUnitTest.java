@@ -0,0 +1,140 @@
+package com.aconex.index;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test case for writing indexes to file and reading them back through a mapped buffer.
+ */
+public class MappedWordIndexUnitTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MappedWordIndex writeAndMap(final WordIndex wordIndex) throws IOException {
+        final File indexFile = temporaryFolder.newFile("words.idx");
+        WordIndexWriter.write(wordIndex, indexFile);
+        return new MappedWordIndex(indexFile);
+    }
+
+    private WordIndex createSmallWordIndex(final WordIndex wordIndex) {
+        wordIndex.loadIndex(MappedWordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+        return wordIndex;
+    }
+
+    @Test
+    public void testMappedIndexHoldsTheSameWords() throws IOException {
+        final WordIndex wordIndex = createSmallWordIndex(new WordIndex());
+        final MappedWordIndex mappedIndex = writeAndMap(wordIndex);
+
+        Assert.assertEquals("Unexpected number of words", wordIndex.getIndexedCount(), mappedIndex.getIndexedCount());
+        Assert.assertEquals("Unexpected longest key", wordIndex.getMaxKeyLength(), mappedIndex.getMaxKeyLength());
+        for (final int number : new int[]{ 228, 4628, 437245, 2, 843 }) {
+            Assert.assertEquals("Unexpected words for " + number, wordIndex.search(number), mappedIndex.search(number));
+        }
+        Assert.assertNull("Shouldn't find words for a number that isn't indexed", mappedIndex.search(229));
+    }
+
+    @Test
+    public void testMappedWordsCanBeReadWithoutCreatingStrings() throws IOException {
+        final MappedWordIndex mappedIndex = writeAndMap(createSmallWordIndex(new WordIndex()));
+
+        final long range = mappedIndex.lookup(DigitKey.valueOf(228));
+        final StringBuilder builder = new StringBuilder();
+        for (int position = WordRange.start(range); position < WordRange.end(range); position++) {
+            Assert.assertEquals("Unexpected length of " + mappedIndex.getWord(position), 3, mappedIndex.getWordLength(position));
+            builder.append(mappedIndex.getWord(position));
+        }
+        final StringBuilder appended = new StringBuilder();
+        for (int position = WordRange.start(range); position < WordRange.end(range); position++) {
+            mappedIndex.appendWord(position, appended);
+        }
+        Assert.assertEquals("Appended words should be the same as the words read", builder.toString(), appended.toString());
+    }
+
+    @Test
+    public void testMappedIndexCanBeWrittenFromATrie() throws IOException {
+        final MappedWordIndex mappedIndex = writeAndMap(createSmallWordIndex(new DigitTrieWordIndex()));
+
+        final Set<String> words = mappedIndex.search(228);
+        Assert.assertEquals("Expected CAT and BAT", 2, words.size());
+        Assert.assertTrue("Expected CAT", words.contains("CAT"));
+        Assert.assertTrue("Expected BAT", words.contains("BAT"));
+        Assert.assertEquals("Unexpected number of words", 10, mappedIndex.getIndexedCount());
+    }
+
+    @Test
+    public void testMappedIndexIsReadOnly() throws IOException {
+        final WordLookup mappedIndex = writeAndMap(createSmallWordIndex(new WordIndex()));
+        Assert.assertFalse("A mapped index shouldn't offer any way of loading entries", mappedIndex instanceof WordIndex);
+        Assert.assertEquals("The words of a mapped index should never change", 0, mappedIndex.getModificationCount());
+    }
+
+    @Test
+    public void testMappingAFileThatIsNotAnIndexFails() throws IOException {
+        final File notAnIndex = temporaryFolder.newFile("notAnIndex");
+        try (FileOutputStream output = new FileOutputStream(notAnIndex)) {
+            output.write("this is not an index file".getBytes("US-ASCII"));
+        }
+        try {
+            new MappedWordIndex(notAnIndex);
+            Assert.fail("Mapping a file that isn't an index should fail");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue("Unexpected exception message", e.getMessage().endsWith("is not a word index file."));
+        }
+    }
+
+    @Test
+    public void testMappingATruncatedIndexFails() throws IOException {
+        final File indexFile = temporaryFolder.newFile("truncated.idx");
+        WordIndexWriter.write(createSmallWordIndex(new WordIndex()), indexFile);
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        try {
+            new MappedWordIndex(indexFile);
+            Assert.fail("Mapping a truncated index should fail");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue("Unexpected exception message", e.getMessage().endsWith("is not a complete word index file."));
+        }
+    }
+
+    @Test
+    public void testRewritingAnIndexLeavesIndexesAlreadyMappedWhole() throws IOException {
+        final MappedWordIndex mappedIndex = writeAndMap(createSmallWordIndex(new WordIndex()));
+        final File indexFile = new File(temporaryFolder.getRoot(), "words.idx");
+        final WordIndex rewrittenIndex = new WordIndex();
+        rewrittenIndex.loadIndex("act");
+        WordIndexWriter.write(rewrittenIndex, indexFile);
+
+        Assert.assertTrue("The index already mapped should still have its words", mappedIndex.search(228).contains("CAT"));
+        Assert.assertTrue("The rewritten index should have the new words", new MappedWordIndex(indexFile).search(228).contains("ACT"));
+        Assert.assertEquals("No temporary files should be left behind", 1, temporaryFolder.getRoot().list().length);
+        Assert.assertEquals("Unexpected number of words after mapping again", 1, mappedIndex.createReplacement().getIndexedCount());
+    }
+
+    @Test
+    public void testIndexCanBeWrittenToAFileWithAShortName() throws IOException {
+        final File indexFile = new File(temporaryFolder.getRoot(), "ix");
+        WordIndexWriter.write(createSmallWordIndex(new WordIndex()), indexFile);
+        Assert.assertTrue("The index should have been written", new MappedWordIndex(indexFile).search(228).contains("CAT"));
+    }
+
+    @Test
+    public void testMappedIndexOfTheFullDictionary() throws IOException {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(WordIndex.class.getResourceAsStream("/com/aconex/dictionary"));
+        final MappedWordIndex mappedIndex = writeAndMap(wordIndex);
+
+        Assert.assertEquals("Unexpected number of words", wordIndex.getIndexedCount(), mappedIndex.getIndexedCount());
+        Assert.assertEquals("Unexpected words for GERBIL", wordIndex.search(437245), mappedIndex.search(437245));
+        Assert.assertTrue("Should have found words with the longest keys", mappedIndex.search(DigitKey.valueOf("2637422649284667")).contains("AMERICANIZATIONS"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.aconex.index;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test case to make sure loading in parallel gives the same index as loading serially.
+ */
+public class ParallelDictionaryLoaderUnitTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File copyToFile(final String resource) throws IOException {
+        final File file = temporaryFolder.newFile();
+        try (InputStream input = WordIndex.class.getResourceAsStream(resource); OutputStream output = new FileOutputStream(file)) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+        }
+        return file;
+    }
+
+    private File writeToFile(final String content) throws IOException {
+        final File file = temporaryFolder.newFile();
+        try (OutputStream output = new FileOutputStream(file)) {
+            output.write(content.getBytes(Charset.defaultCharset()));
+        }
+        return file;
+    }
+
+    /**
+     * Gets the words of each key in the order the index holds them.
+     */
+    private Map<Long, List<String>> getContent(final WordIndex wordIndex) {
+        final Map<Long, List<String>> content = new HashMap<>();
+        wordIndex.visitKeys(new WordLookup.KeyVisitor() {
+            @Override
+            public void visit(final long key, final long range) {
+                final List<String> words = new ArrayList<>();
+                for (int i = WordRange.start(range); i < WordRange.end(range); i++) {
+                    words.add(wordIndex.getWord(i));
+                }
+                content.put(key, words);
+            }
+        });
+        return content;
+    }
+
+    private void assertSameAsSerialLoad(final File dictionary, final WordIndex parallelIndex, final ParallelDictionaryLoader loader) throws IOException {
+        final WordIndex serialIndex = new WordIndex();
+        serialIndex.loadIndex(new FileInputStream(dictionary));
+        loader.load(parallelIndex, dictionary);
+
+        Assert.assertEquals("Unexpected number of words", serialIndex.getIndexedCount(), parallelIndex.getIndexedCount());
+        Assert.assertEquals("Unexpected longest key", serialIndex.getMaxKeyLength(), parallelIndex.getMaxKeyLength());
+        Assert.assertEquals("The words for every key should match in order", getContent(serialIndex), getContent(parallelIndex));
+    }
+
+    @Test
+    public void testParallelLoadOfTheFullDictionaryMatchesSerialLoad() throws IOException {
+        //use small chunks so the dictionary is split many times.
+        assertSameAsSerialLoad(copyToFile("/com/aconex/dictionary"), new WordIndex(), new ParallelDictionaryLoader(4, 1024));
+    }
+
+    @Test
+    public void testParallelLoadIntoATrieMatchesSerialLoad() throws IOException {
+        assertSameAsSerialLoad(copyToFile("/com/aconex/dictionary"), new DigitTrieWordIndex(), new ParallelDictionaryLoader(3));
+    }
+
+    @Test
+    public void testParallelLoadHandlesMixedLineEndingsAndBlankLines() throws IOException {
+        final File dictionary = writeToFile("cat\r\nbat\n\n  \rgoat the rat\nCAT\nlast");
+        assertSameAsSerialLoad(dictionary, new WordIndex(), new ParallelDictionaryLoader(2, 1));
+    }
+
+    @Test
+    public void testParallelLoadOfAnEmptyFile() throws IOException {
+        final WordIndex wordIndex = new WordIndex();
+        new ParallelDictionaryLoader(2).load(wordIndex, temporaryFolder.newFile());
+        Assert.assertEquals("Nothing should have been loaded", 0, wordIndex.getIndexedCount());
+    }
+
+    @Test
+    public void testConstructionFailsWithoutAnyThreads() {
+        try {
+            new ParallelDictionaryLoader(0);
+            Assert.fail("An exception should have been thrown as there were no threads to load with.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Parallelism must be at least 1", e.getMessage());
+        }
+    }
+}
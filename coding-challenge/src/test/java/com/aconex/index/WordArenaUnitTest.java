@@ -0,0 +1,94 @@
+package com.aconex.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the arena words are held in.
+ */
+public class WordArenaUnitTest {
+
+    @Test
+    public void testWordsCanBeReadBack() {
+        final WordArena arena = new WordArena();
+        final int cat = arena.add("CAT");
+        final int ball = arena.add("BALL");
+
+        Assert.assertEquals("Unexpected word", "CAT", arena.getWord(cat));
+        Assert.assertEquals("Unexpected word", "BALL", arena.getWord(ball));
+        Assert.assertEquals("Unexpected length", 4, arena.getLength(ball));
+        Assert.assertTrue("CAT should be at its offset", arena.isWordAt(cat, "CAT"));
+        Assert.assertFalse("BAT shouldn't be at the offset of CAT", arena.isWordAt(cat, "BAT"));
+        Assert.assertFalse("CA shouldn't be at the offset of CAT", arena.isWordAt(cat, "CA"));
+
+        final StringBuilder builder = new StringBuilder();
+        arena.appendWord(cat, builder);
+        arena.appendWord(ball, builder);
+        Assert.assertEquals("Unexpected appended words", "CATBALL", builder.toString());
+    }
+
+    @Test
+    public void testUnsharedArenaStoresEveryWord() {
+        final WordArena arena = new WordArena();
+        Assert.assertFalse("The arena shouldn't be shared", arena.isShared());
+        Assert.assertNotEquals("Each word should be stored", arena.add("CAT"), arena.add("CAT"));
+        Assert.assertEquals("Unexpected word count", 2, arena.getWordCount());
+    }
+
+    @Test
+    public void testSharedArenaStoresEachWordOnce() {
+        final WordArena arena = new WordArena(true);
+        final int cat = arena.add("CAT");
+        Assert.assertEquals("The word should only be stored once", cat, arena.add("CAT"));
+        Assert.assertNotEquals("A different word should be stored", cat, arena.add("BAT"));
+        Assert.assertEquals("Unexpected word count", 2, arena.getWordCount());
+    }
+
+    @Test
+    public void testSharedArenaFindsWordsOnceItHasGrown() {
+        final WordArena arena = new WordArena(true);
+        final int[] offsets = new int[5000];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = arena.add(word(i));
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            Assert.assertEquals("Unexpected offset for " + word(i), offsets[i], arena.add(word(i)));
+            Assert.assertEquals("Unexpected word", word(i), arena.getWord(offsets[i]));
+        }
+        Assert.assertEquals("Unexpected word count", offsets.length, arena.getWordCount());
+    }
+
+    @Test
+    public void testIndexesSharingAnArenaHoldWordsOnce() {
+        final WordArena arena = new WordArena(true);
+        final WordIndex first = new WordIndex(arena);
+        final WordIndex second = new DigitTrieWordIndex(arena);
+        first.loadIndex("cat");
+        first.loadIndex("bat");
+        second.loadIndex("cat");
+        second.loadIndex("act");
+
+        Assert.assertEquals("Only distinct words should be stored", 3, arena.getWordCount());
+        Assert.assertTrue("The first index should hold BAT", first.search(228).contains("BAT"));
+        Assert.assertFalse("The second index shouldn't hold BAT", second.search(228).contains("BAT"));
+        Assert.assertTrue("The second index should hold ACT", second.search(228).contains("ACT"));
+    }
+
+    @Test
+    public void testIndexConstructionFailsWithoutArena() {
+        try {
+            new WordIndex(null);
+            Assert.fail("An exception should have been thrown at construction as there wasn't an arena provided.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Arena cannot be null", e.getMessage());
+        }
+    }
+
+    private static String word(final int value) {
+        final StringBuilder letters = new StringBuilder();
+        for (int remaining = value; remaining > 0; remaining /= 26) {
+            letters.append((char) ('A' + remaining % 26));
+        }
+        return letters.append('X').toString();
+    }
+}
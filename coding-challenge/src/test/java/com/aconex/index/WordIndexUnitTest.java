@@ -1,10 +1,22 @@
 package com.aconex.index;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 public class WordIndexUnitTest {
@@ -36,6 +48,16 @@ public class WordIndexUnitTest {
         Assert.assertEquals(String.format("Adding the text \"%s\" should add something to the indexed count.", testEntry), 1, wordIndex.getIndexedCount());
     }
 
+    @Test
+    public void testLoadIndexStoresTheStrippedUppercaseWord() {
+        final WordIndex wordIndex = new WordIndex();
+
+        wordIndex.loadIndex("c-a't");
+        wordIndex.loadIndex("dog_");
+        Assert.assertEquals("Only the entry that can be written on a keypad should be added.", 1, wordIndex.getIndexedCount());
+        Assert.assertTrue("Should have been able to locate the stripped word", wordIndex.search(228).contains("CAT"));
+    }
+
     @Test
     public void testLoadIndexWithAValueThatWillOverflowAnIntWillNotAddTheValue() {
         final WordIndex wordIndex = new WordIndex();
@@ -45,6 +67,24 @@ public class WordIndexUnitTest {
         Assert.assertEquals(String.format("Shouldn't have been able to add \"%s\" to the index as it was too long.", testEntry), 0, wordIndex.getIndexedCount());
     }
 
+    @Test
+    public void testLoadIndexWithAValueThatWillOverflowAnIntIsStillAdded() {
+        final WordIndex wordIndex = new WordIndex();
+
+        wordIndex.loadIndex("international");
+        Assert.assertEquals("Words up to 16 letters long should be added to the index.", 1, wordIndex.getIndexedCount());
+        Assert.assertTrue("Should have been able to locate the long word", wordIndex.search(DigitKey.valueOf("4683762846625")).contains("INTERNATIONAL"));
+        Assert.assertEquals("Unexpected longest key", 13, wordIndex.getMaxKeyLength());
+    }
+
+    @Test
+    public void testLoadIndexIgnoresEntriesWithoutAnyLetters() {
+        final WordIndex wordIndex = new WordIndex();
+
+        wordIndex.loadIndex(" ...");
+        Assert.assertEquals("Nothing should have been added for punctuation only.", 0, wordIndex.getIndexedCount());
+    }
+
     @Test
     public void testLoadIndexUsingPathAddsMultipleItemsToTheCount() throws IOException {
         final WordIndex wordIndex = new WordIndex();
@@ -62,4 +102,272 @@ public class WordIndexUnitTest {
         Assert.assertTrue("Adding the text \"cat\" should add something to the indexed count.", wordIndex.getIndexedCount() == 1);
         Assert.assertTrue("Should have been able to locate the loaded value \"CAT\" using the number equivalent.", stringValues != null && stringValues.contains("CAT"));
     }
+
+    @Test
+    public void testLookupUsingPartOfASequence() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex("cat");
+
+        final long range = wordIndex.lookup("92289", 1, 4);
+        Assert.assertEquals("Should have found CAT in the middle of the digits", 1, WordRange.size(range));
+        Assert.assertEquals("Should have found CAT in the middle of the digits", "CAT", wordIndex.getWord(WordRange.start(range)));
+        Assert.assertEquals("Digits with a leading zero shouldn't match", WordRange.EMPTY, wordIndex.lookup("0228", 0, 4));
+        Assert.assertEquals("An empty range shouldn't match", WordRange.EMPTY, wordIndex.lookup("228", 1, 1));
+    }
+
+    @Test
+    public void testWordsForAKeyStayTogetherWhenAddedBetweenOtherWords() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex("cat");
+        wordIndex.loadIndex("goat");
+        wordIndex.loadIndex("bat");
+        wordIndex.loadIndex("cat");
+
+        final Set<String> words = wordIndex.search(228);
+        Assert.assertEquals("Both words should be in the range for the key and CAT only once", 2, words.size());
+        Assert.assertTrue("Should have found CAT", words.contains("CAT"));
+        Assert.assertTrue("Should have found BAT", words.contains("BAT"));
+        Assert.assertTrue("Should still have found GOAT", wordIndex.search(4628).contains("GOAT"));
+        Assert.assertEquals("Duplicate words shouldn't be counted", 3, wordIndex.getIndexedCount());
+    }
+
+    @Test
+    public void testLoadingTheFullDictionaryFindsEveryKey() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(WordIndex.class.getResourceAsStream("/com/aconex/dictionary"));
+
+        Assert.assertTrue("The full dictionary should hold many thousands of words", wordIndex.getIndexedCount() > 80000);
+        Assert.assertTrue("Should have found GERBIL after the table has grown", wordIndex.search(437245).contains("GERBIL"));
+        Assert.assertNull("Shouldn't find words for a number containing a one", wordIndex.search(4371245));
+    }
+
+    @Test
+    public void testLookupDoesNotAllocate() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(WordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+        final long hitKey = DigitKey.valueOf(228L);
+        final long missKey = DigitKey.valueOf(229L);
+        final int lookups = 100000;
+        long found = 0;
+        //warm up first so the measured loop isn't interpreted.
+        for (int i = 0; i < lookups; i++) {
+            found += WordRange.size(wordIndex.lookup(hitKey)) + WordRange.size(wordIndex.lookup(missKey));
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < lookups; i++) {
+            found += WordRange.size(wordIndex.lookup(hitKey)) + WordRange.size(wordIndex.lookup(missKey));
+        }
+        final long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        Assert.assertEquals("Every hit should have found CAT and BAT", lookups * 4L, found);
+        //allow for the measurement itself, allocating even the smallest object per lookup would be megabytes.
+        Assert.assertTrue("Lookups shouldn't allocate but " + allocated + " bytes were allocated", allocated < lookups);
+    }
+
+    @Test
+    public void testWalkPrefixesReportsEachOffsetWithMatches() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(WordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+
+        final List<Integer> ends = new ArrayList<>();
+        wordIndex.walkPrefixes("92282", 1, new PrefixMatchListener() {
+            @Override
+            public void onMatch(final int end, final long range) {
+                ends.add(end);
+            }
+        });
+        Assert.assertEquals("Expected matches for A and CAT/BAT", 2, ends.size());
+        Assert.assertEquals("A should end at the third digit", Integer.valueOf(2), ends.get(0));
+        Assert.assertEquals("CAT should end at the fourth digit", Integer.valueOf(4), ends.get(1));
+    }
+
+    @Test
+    public void testRemoveEntryRemovesOnlyThatWord() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(WordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+        final int count = wordIndex.getIndexedCount();
+        final long originalRange = wordIndex.lookup(DigitKey.valueOf(228L));
+
+        wordIndex.removeEntry("c-a-t");
+        final Set<String> words = wordIndex.search(228);
+        Assert.assertEquals("Only BAT should be left", Collections.singleton("BAT"), words);
+        Assert.assertEquals("The count should have gone down by one", count - 1, wordIndex.getIndexedCount());
+        Assert.assertEquals("Readers of the original range should still see both words", 2, WordRange.size(originalRange));
+        Assert.assertTrue("Readers of the original range should still see CAT", Arrays.asList(wordIndex.getWord(WordRange.start(originalRange)), wordIndex.getWord(WordRange.start(originalRange) + 1)).contains("CAT"));
+
+        wordIndex.removeEntry("bat");
+        wordIndex.removeEntry("rat");
+        Assert.assertNull("No words should be left for the key", wordIndex.search(228));
+        Assert.assertNull("RAT should have been removed from its own key", wordIndex.search(728));
+        Assert.assertEquals("The count should have gone down by one for each word removed", count - 3, wordIndex.getIndexedCount());
+    }
+
+    @Test
+    public void testRemovedWordsCanBeAddedAgain() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex("cat");
+        wordIndex.removeEntry("cat");
+        wordIndex.removeEntry("cat");
+        Assert.assertEquals("Removing a word that isn't held shouldn't change the count", 0, wordIndex.getIndexedCount());
+
+        wordIndex.loadIndex("cat");
+        Assert.assertEquals("The word should have been added again", Collections.singleton("CAT"), wordIndex.search(228));
+        Assert.assertEquals("Unexpected count", 1, wordIndex.getIndexedCount());
+    }
+
+    @Test
+    public void testAddAndRemoveEntriesInBatches() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.addEntries(Arrays.asList("cat", "bat", "goat"));
+        wordIndex.removeEntries(Arrays.asList("goat", "bat"));
+
+        Assert.assertEquals("Only CAT should be left", 1, wordIndex.getIndexedCount());
+        Assert.assertEquals("Only CAT should be left", Collections.singleton("CAT"), wordIndex.search(228));
+    }
+
+    @Test
+    public void testApplyDeltaAddsAndRemovesInOrder() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(WordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+        final int count = wordIndex.getIndexedCount();
+        final int modificationCount = wordIndex.getModificationCount();
+
+        final String delta = "+act\n-cat\n\nnot a change\n+dog\n-dog\n-goat\n";
+        wordIndex.applyDelta(new ByteArrayInputStream(delta.getBytes(StandardCharsets.UTF_8)));
+
+        final Set<String> words = wordIndex.search(228);
+        Assert.assertTrue("ACT should have been added", words.contains("ACT"));
+        Assert.assertFalse("CAT should have been removed", words.contains("CAT"));
+        Assert.assertNull("DOG should have been added and removed again", wordIndex.search(364));
+        Assert.assertNull("GOAT should have been removed", wordIndex.search(4628));
+        Assert.assertEquals("Unexpected count after the delta", count - 1, wordIndex.getIndexedCount());
+        Assert.assertNotEquals("The index should be marked as changed", modificationCount, wordIndex.getModificationCount());
+    }
+
+    @Test
+    public void testWordsCanBeReadWithoutCreatingStrings() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex("cat");
+        wordIndex.loadIndex("ball");
+        wordIndex.loadIndex("bat");
+
+        final long range = wordIndex.lookup(DigitKey.valueOf(228));
+        final StringBuilder builder = new StringBuilder("1-800-");
+        for (int position = WordRange.start(range); position < WordRange.end(range); position++) {
+            Assert.assertEquals("Unexpected length of " + wordIndex.getWord(position), 3, wordIndex.getWordLength(position));
+            wordIndex.appendWord(position, builder);
+        }
+        Assert.assertEquals("The words should have been appended in the order they were added", "1-800-CATBAT", builder.toString());
+        Assert.assertEquals("Unexpected length of BALL", 4, wordIndex.getWordLength(WordRange.start(wordIndex.lookup(DigitKey.valueOf(2255)))));
+    }
+
+    @Test
+    public void testWordsAreReadFromTheirOwnRangeAfterRemoval() {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex("cat");
+        wordIndex.loadIndex("act");
+        wordIndex.loadIndex("bat");
+        wordIndex.removeEntry("act");
+        wordIndex.loadIndex("act");
+
+        Assert.assertEquals("Unexpected words for 228", new HashSet<>(Arrays.asList("CAT", "ACT", "BAT")), wordIndex.search(228));
+    }
+
+    @Test
+    public void testMemoryEstimateGrowsWithWords() {
+        final WordIndex wordIndex = new WordIndex();
+        final long emptyEstimate = wordIndex.estimateMemoryUsage();
+        Assert.assertTrue("An empty index should still hold its table", emptyEstimate > 0);
+        wordIndex.loadIndex("cat");
+        wordIndex.loadIndex("act");
+        wordIndex.loadIndex("bat");
+        Assert.assertEquals("A few words should fit in the space held to start with", emptyEstimate, wordIndex.estimateMemoryUsage());
+        wordIndex.loadIndex(WordIndex.class.getResourceAsStream("/com/aconex/dictionary"));
+        Assert.assertTrue("Loading the dictionary should grow the estimate", wordIndex.estimateMemoryUsage() > emptyEstimate);
+        //the arena holds each word in a byte more than its letters, against around 50 bytes as a String.
+        Assert.assertTrue("Unexpected bytes per word", wordIndex.estimateMemoryUsage() / wordIndex.getIndexedCount() < 80);
+
+        final DigitTrieWordIndex trieIndex = new DigitTrieWordIndex();
+        trieIndex.loadIndex("cat");
+        trieIndex.loadIndex("act");
+        trieIndex.loadIndex("bat");
+        Assert.assertTrue("The trie's nodes should be included", trieIndex.estimateMemoryUsage() > emptyEstimate);
+    }
+
+    @Test
+    public void testCompactedCopyHoldsOnlyTheWordsInUse() throws IOException {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(WordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+        final long loadedEstimate = wordIndex.estimateMemoryUsage();
+        Assert.assertFalse("A freshly loaded index shouldn't need compacting", wordIndex.isWorthCompacting());
+        final StringBuilder delta = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            delta.append("+dog\n-cat\n+cat\n-dog\n");
+        }
+        wordIndex.applyDelta(new ByteArrayInputStream(delta.toString().getBytes(StandardCharsets.UTF_8)));
+        Assert.assertTrue("Copied ranges should have been counted", wordIndex.isWorthCompacting());
+        Assert.assertTrue("Copied ranges should still be held", wordIndex.estimateMemoryUsage() > loadedEstimate * 2);
+
+        final WordIndex compactedIndex = wordIndex.createCompactedCopy();
+        Assert.assertFalse("The copy shouldn't need compacting", compactedIndex.isWorthCompacting());
+        Assert.assertTrue("The copy should only hold the words in use", compactedIndex.estimateMemoryUsage() <= loadedEstimate);
+        Assert.assertEquals("Unexpected number of words", wordIndex.getIndexedCount(), compactedIndex.getIndexedCount());
+        Assert.assertEquals("Unexpected longest key", wordIndex.getMaxKeyLength(), compactedIndex.getMaxKeyLength());
+        for (final int number : new int[]{ 228, 4628, 437245, 2, 843, 364 }) {
+            Assert.assertEquals("Unexpected words for " + number, wordIndex.search(number), compactedIndex.search(number));
+        }
+        Assert.assertTrue("A trie should be copied to a trie", new DigitTrieWordIndex().createCompactedCopy() instanceof DigitTrieWordIndex);
+    }
+
+    @Test
+    public void testReadersSeeCompleteRangesWhileEntriesChange() throws InterruptedException {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(WordIndexUnitTest.class.getResourceAsStream("sampleDict"));
+        final long key = DigitKey.valueOf(228L);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running.get()) {
+                    final long range = wordIndex.lookup(key);
+                    for (int i = WordRange.start(range); i < WordRange.end(range); i++) {
+                        final String word = wordIndex.getWord(i);
+                        if (word == null || DigitKey.valueOf(228L) != Keypad.encode(word.toCharArray(), 0, word.length())) {
+                            failure.set("Unexpected word " + word + " in range for 228");
+                        }
+                    }
+                }
+            }
+        });
+        reader.start();
+        try {
+            //add enough other words to grow the table and word storage while the reader is running.
+            for (int i = 0; i < 20000; i++) {
+                wordIndex.loadIndex((i % 2 == 0) ? "act" : "abt");
+                wordIndex.loadIndex(toLetters(i));
+                wordIndex.removeEntry((i % 2 == 0) ? "act" : "abt");
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+        Assert.assertNull(failure.get(), failure.get());
+        Assert.assertEquals("Only the original words should be left for 228", 2, WordRange.size(wordIndex.lookup(key)));
+    }
+
+    private static String toLetters(final int number) {
+        final StringBuilder letters = new StringBuilder();
+        for (int value = number; value > 0 || letters.length() == 0; value /= 26) {
+            letters.append((char) ('a' + value % 26));
+        }
+        return letters.append('x').toString();
+    }
 }
@@ -0,0 +1,179 @@
+package com.aconex.input;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aconex.util.TextUtils;
+
+/**
+ * Tests numbers read from a mapped file are the same as those read through a reader.
+ */
+public class MappedNumberFileUnitTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File writeNumbers(final String content) throws IOException {
+        final File file = temporaryFolder.newFile();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(content.getBytes(Charset.defaultCharset()));
+        }
+        return file;
+    }
+
+    private static List<String> readAll(final NumberSource numberSource) throws IOException {
+        final List<String> numbers = new ArrayList<>();
+        try (NumberSource source = numberSource) {
+            String number;
+            while ((number = source.nextNumber()) != null) {
+                numbers.add(number);
+            }
+        }
+        return numbers;
+    }
+
+    private static String generateNumbers(final int count) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append("1800-").append(1000000 + i * 7919);
+            //mix the line endings and blank lines that a reader copes with.
+            builder.append((i % 3 == 0) ? "\r\n" : "\n");
+            if (i % 10 == 0) {
+                builder.append(" \n");
+            }
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testConstructionFailsWithoutFile() throws IOException {
+        try {
+            new MappedNumberFile(null);
+            Assert.fail("An exception should have been thrown at construction as there wasn't a file provided.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "File cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNumbersAreTheSameAsTheReader() throws IOException {
+        final File file = writeNumbers(generateNumbers(1000) + "1800-228");
+        final List<String> expected = readAll(new ReaderNumberSource(new FileInputStream(file)));
+        Assert.assertEquals("Unexpected number of numbers", 1001, expected.size());
+        Assert.assertEquals("Numbers should be the same as the reader", expected, readAll(new MappedNumberFile(file).open()));
+    }
+
+    @Test
+    public void testEmptyFileHasNoNumbers() throws IOException {
+        Assert.assertTrue("Empty file shouldn't have any numbers", readAll(new MappedNumberFile(writeNumbers("")).open()).isEmpty());
+    }
+
+    @Test
+    public void testLinesRunningPastTheWindowAreRemapped() throws IOException {
+        final File file = writeNumbers(generateNumbers(1000));
+        final List<String> expected = readAll(new MappedNumberFile(file).open());
+        Assert.assertEquals("Numbers should be the same with a small window", expected, readAll(new MappedNumberFile(file, 37).open()));
+    }
+
+    @Test
+    public void testLineLongerThanTheWindowFails() throws IOException {
+        final File file = writeNumbers("1800-228228228\n");
+        try {
+            readAll(new MappedNumberFile(file, 4).open());
+            Assert.fail("An exception should have been thrown as the line doesn't fit in the window.");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("Invalid IllegalStateException message", "Line at 0 is longer than 4 bytes.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBlankLinesAreSkippedTheSameAsTheReader() throws IOException {
+        final File file = writeNumbers("228\n \t\n\u000B\f\n\u0001\r\n\u00A0\n 4242 \n");
+        final List<String> expected = readAll(new ReaderNumberSource(new FileInputStream(file)));
+        Assert.assertEquals("Unexpected numbers from the reader", 3, expected.size());
+        Assert.assertEquals("Blank lines should be the same as the reader", expected, readAll(new MappedNumberFile(file).open()));
+    }
+
+    @Test
+    public void testSplitRangesStartOnLinesAndCoverEveryNumber() throws IOException {
+        final File file = writeNumbers(generateNumbers(1000));
+        final MappedNumberFile mappedNumberFile = new MappedNumberFile(file, 512);
+        final List<String> expected = readAll(mappedNumberFile.open());
+        for (final int parts : new int[]{ 1, 2, 7, 64, 100000 }) {
+            final long[] split = mappedNumberFile.split(parts);
+            Assert.assertTrue("There shouldn't be more ranges than asked for", split.length - 1 <= parts);
+            Assert.assertEquals("Last offset should be the size of the file", file.length(), split[split.length - 1]);
+            final List<String> numbers = new ArrayList<>();
+            for (int i = 0; i < split.length - 1; i++) {
+                numbers.addAll(readAll(mappedNumberFile.open(split[i], split[i + 1])));
+            }
+            Assert.assertEquals("Every number should be read once when split into " + parts, expected, numbers);
+        }
+    }
+
+    @Test
+    public void testSplitFailsWithoutParts() throws IOException {
+        try {
+            new MappedNumberFile(writeNumbers("228\n")).split(0);
+            Assert.fail("An exception should have been thrown as no parts were asked for.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Parts must be at least 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRangesCanBeReadConcurrently() throws Exception {
+        final File file = writeNumbers(generateNumbers(5000));
+        final MappedNumberFile mappedNumberFile = new MappedNumberFile(file);
+        final long[] split = mappedNumberFile.split(4);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<List<String>>> ranges = new ArrayList<>();
+            for (int i = 0; i < split.length - 1; i++) {
+                final long start = split[i];
+                final long end = split[i + 1];
+                ranges.add(executor.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() throws IOException {
+                        return readAll(mappedNumberFile.open(start, end));
+                    }
+                }));
+            }
+            final List<String> numbers = new ArrayList<>();
+            for (final Future<List<String>> range : ranges) {
+                numbers.addAll(range.get());
+            }
+            Assert.assertEquals("Every number should be read once", readAll(mappedNumberFile.open()), numbers);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDigitsParsedFromTheBytesAreTheSameAsFromTheText() throws IOException {
+        final File file = writeNumbers(generateNumbers(100) + "1800-CAT\n 1800-1800-228 \n\u00E9228\n1-800\n");
+        try (NormalisedNumberSource source = new MappedNumberFile(file, 64).open()) {
+            String number;
+            int count = 0;
+            while ((number = source.nextNumber()) != null) {
+                Assert.assertEquals("Unexpected digits of " + number, TextUtils.normaliseNumber(number), source.getNormalisedNumber());
+                count++;
+            }
+            Assert.assertEquals("Unexpected number of numbers", 104, count);
+            Assert.assertNull("There shouldn't be any digits once the numbers run out", source.getNormalisedNumber());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.aconex.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the histogram of recorded values.
+ */
+public class HistogramUnitTest {
+
+    @Test
+    public void testEmptyHistogramIsZero() {
+        final Histogram histogram = new Histogram();
+        Assert.assertEquals("Unexpected count", 0, histogram.getCount());
+        Assert.assertEquals("Unexpected mean", 0, histogram.getMean(), 0);
+        Assert.assertEquals("Unexpected percentile", 0, histogram.getPercentile(0.99));
+        Assert.assertEquals("Unexpected max", 0, histogram.getMax());
+    }
+
+    @Test
+    public void testPercentilesAreWithinABucket() {
+        final Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals("Unexpected count", 100, histogram.getCount());
+        Assert.assertEquals("Unexpected mean", 50.5, histogram.getMean(), 0.001);
+        Assert.assertEquals("Unexpected max", 100, histogram.getMax());
+        //50 is in the bucket for 32 to 63.
+        Assert.assertEquals("The median should be the top of its bucket", 63, histogram.getPercentile(0.5));
+        Assert.assertEquals("Percentiles should be capped at the max", 100, histogram.getPercentile(0.99));
+        Assert.assertEquals("Unexpected minimum", 1, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void testNegativeValuesAreRecordedAsZero() {
+        final Histogram histogram = new Histogram();
+        histogram.record(-5);
+        Assert.assertEquals("Unexpected count", 1, histogram.getCount());
+        Assert.assertEquals("Unexpected max", 0, histogram.getMax());
+        Assert.assertEquals("Unexpected percentile", 0, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void testResetDropsValues() {
+        final Histogram histogram = new Histogram();
+        histogram.record(1000);
+        histogram.reset();
+        Assert.assertEquals("Unexpected count", 0, histogram.getCount());
+        Assert.assertEquals("Unexpected max", 0, histogram.getMax());
+        Assert.assertEquals("Unexpected percentile", 0, histogram.getPercentile(0.5));
+    }
+
+    @Test
+    public void testPercentileFailsOutsideZeroToOne() {
+        try {
+            new Histogram().getPercentile(1.5);
+            Assert.fail("An exception should have been thrown as the fraction was more than 1.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Fraction must be between 0 and 1", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.aconex.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.aconex.index.WordIndex;
+
+/**
+ * Tests the metrics for loading dictionaries and matching numbers.
+ */
+public class MatchingMetricsUnitTest {
+
+    @Test
+    public void testDictionaryLoadIsRecorded() {
+        final MatchingMetrics metrics = new MatchingMetrics();
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex("cat");
+        wordIndex.loadIndex("act");
+        wordIndex.loadIndex("bat");
+        metrics.recordDictionaryLoad(wordIndex, TimeUnit.MILLISECONDS.toNanos(25));
+
+        Assert.assertEquals("Unexpected load count", 1, metrics.getDictionaryLoadCount());
+        Assert.assertEquals("Unexpected load time", 25, metrics.getLastDictionaryLoadMillis());
+        Assert.assertEquals("Unexpected indexed words", 3, metrics.getIndexedWords());
+        Assert.assertEquals("The estimate should come from the index", wordIndex.estimateMemoryUsage(), metrics.getIndexMemoryEstimateBytes());
+    }
+
+    @Test
+    public void testLoadOfAnotherDictionaryKeepsTheIndexReportedOn() {
+        final MatchingMetrics metrics = new MatchingMetrics();
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex("cat");
+        metrics.recordDictionaryLoad(wordIndex, TimeUnit.MILLISECONDS.toNanos(25));
+        metrics.recordDictionaryLoad(TimeUnit.MILLISECONDS.toNanos(40));
+
+        Assert.assertEquals("Unexpected load count", 2, metrics.getDictionaryLoadCount());
+        Assert.assertEquals("Unexpected load time", 40, metrics.getLastDictionaryLoadMillis());
+        Assert.assertEquals("The index reported on should be kept", 1, metrics.getIndexedWords());
+    }
+
+    @Test
+    public void testNoIndexIsEmpty() {
+        final MatchingMetrics metrics = new MatchingMetrics();
+        Assert.assertEquals("Unexpected indexed words", 0, metrics.getIndexedWords());
+        Assert.assertEquals("Unexpected memory estimate", 0, metrics.getIndexMemoryEstimateBytes());
+    }
+
+    @Test
+    public void testMatchesAreRecorded() {
+        final MatchingMetrics metrics = new MatchingMetrics();
+        metrics.recordMatch(TimeUnit.MICROSECONDS.toNanos(100), 6, 2);
+        metrics.recordMatch(TimeUnit.MICROSECONDS.toNanos(300), 10, 4);
+
+        Assert.assertEquals("Unexpected numbers matched", 2, metrics.getNumbersMatched());
+        Assert.assertEquals("Unexpected mean latency", 200, metrics.getMatchLatencyMeanMicros(), 0.001);
+        Assert.assertEquals("Unexpected max latency", 300, metrics.getMatchLatencyMaxMicros());
+        Assert.assertEquals("Unexpected lookups per number", 8, metrics.getLookupsPerNumber(), 0.001);
+        Assert.assertEquals("Unexpected mean matches", 3, metrics.getMatchesPerNumberMean(), 0.001);
+        Assert.assertEquals("Unexpected max matches", 4, metrics.getMatchesPerNumberMax());
+    }
+
+    @Test
+    public void testResetClearsCounters() {
+        final MatchingMetrics metrics = new MatchingMetrics();
+        metrics.recordRejectedUnmappable();
+        metrics.recordRejectedTooLong();
+        metrics.recordRejectedTooLong();
+        metrics.recordMatch(1000, 1, 1);
+        Assert.assertEquals("Unexpected unmappable words", 1, metrics.getWordsRejectedUnmappable());
+        Assert.assertEquals("Unexpected too long words", 2, metrics.getWordsRejectedTooLong());
+
+        metrics.reset();
+        Assert.assertEquals("Unmappable words should have been reset", 0, metrics.getWordsRejectedUnmappable());
+        Assert.assertEquals("Too long words should have been reset", 0, metrics.getWordsRejectedTooLong());
+        Assert.assertEquals("Numbers matched should have been reset", 0, metrics.getNumbersMatched());
+        Assert.assertEquals("Lookups should have been reset", 0, metrics.getLookupsPerNumber(), 0);
+    }
+
+    @Test
+    public void testRegisteringPublishesTheMBean() throws Exception {
+        Metrics.register();
+        Metrics.register();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        Assert.assertTrue("The metrics should be registered", server.isRegistered(name));
+        Assert.assertNotNull("The attributes should be readable", server.getAttribute(name, "NumbersMatched"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.aconex.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.StandardOutputStreamLog;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the buffered sink writes the same output as the console.
+ */
+public class BufferedMatchSinkUnitTest {
+    @Rule
+    public final StandardOutputStreamLog log = new StandardOutputStreamLog();
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private void writeSampleOutput(final MatchSink matchSink) {
+        matchSink.startFile("numbers");
+        matchSink.startNumber("1800-228");
+        matchSink.startMatches(2);
+        matchSink.match("1-800-BAT");
+        matchSink.match(new StringBuilder("1-800-CAT"));
+        matchSink.endNumber();
+        matchSink.startNumber("1800-0");
+        matchSink.noMatches();
+        matchSink.endNumber();
+        matchSink.fileNotFound("missing");
+        matchSink.close();
+    }
+
+    @Test
+    public void testConstructionFailsWithoutOutputStream() {
+        try {
+            new BufferedMatchSink(null);
+            Assert.fail("An exception should have been thrown at construction as there wasn't an output stream provided.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Output stream cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testOutputIsTheSameAsTheConsole() {
+        writeSampleOutput(new ConsoleMatchSink());
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeSampleOutput(new BufferedMatchSink(outputStream));
+
+        Assert.assertTrue("The console should have had output written", log.getLog().contains("Found 2 options: "));
+        Assert.assertEquals("Buffered output should be the same as the console", log.getLog(), outputStream.toString());
+    }
+
+    @Test
+    public void testNothingIsWrittenUntilTheBufferIsFlushed() {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final BufferedMatchSink matchSink = new BufferedMatchSink(outputStream);
+        matchSink.startNumber("228");
+        Assert.assertEquals("Nothing should be written while the buffer has room", 0, outputStream.size());
+
+        matchSink.flush();
+        Assert.assertEquals("Unexpected output once flushed", "Processing phone number 228." + System.getProperty("line.separator"), outputStream.toString());
+    }
+
+    @Test
+    public void testWritesToFile() throws IOException {
+        final File outputFile = temporaryFolder.newFile("output");
+        writeSampleOutput(BufferedMatchSink.toFile(outputFile));
+        writeSampleOutput(new ConsoleMatchSink());
+
+        Assert.assertTrue("Output file should match the console", Arrays.equals(log.getLog().getBytes(), Files.readAllBytes(outputFile.toPath())));
+    }
+}
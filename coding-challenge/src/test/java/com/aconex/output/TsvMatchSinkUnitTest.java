@@ -0,0 +1,43 @@
+package com.aconex.output;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests each number is written as a single tab separated line.
+ */
+public class TsvMatchSinkUnitTest {
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    @Test
+    public void testConstructionFailsWithoutOutputStream() {
+        try {
+            new TsvMatchSink(null);
+            Assert.fail("An exception should have been thrown at construction as there wasn't an output stream provided.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Output stream cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEachNumberIsWrittenOnOneLine() {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final MatchSink matchSink = new TsvMatchSink(outputStream);
+        matchSink.startFile("numbers");
+        matchSink.startNumber("1800-228");
+        matchSink.startMatches(2);
+        matchSink.match("1-800-BAT");
+        matchSink.match(new StringBuilder("1-800-CAT"));
+        matchSink.endNumber();
+        matchSink.startNumber("1800\t0");
+        matchSink.noMatches();
+        matchSink.endNumber();
+        matchSink.close();
+
+        Assert.assertEquals("Unexpected output", "1800-228\t2\t1-800-BAT\t1-800-CAT" + LINE_SEPARATOR + "1800 0\t0" + LINE_SEPARATOR,
+                new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
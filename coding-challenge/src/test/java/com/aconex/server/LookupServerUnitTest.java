@@ -0,0 +1,228 @@
+package com.aconex.server;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aconex.PhoneNumberConverter;
+import com.aconex.index.WordIndex;
+
+/**
+ * Tests lookups served over HTTP give the same output as the converter.
+ */
+public class LookupServerUnitTest {
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private PhoneNumberConverter phoneNumberConverter;
+    private LookupServer lookupServer;
+
+    @Before
+    public void setUp() throws IOException {
+        final WordIndex wordIndex = new WordIndex();
+        wordIndex.loadIndex(LookupServerUnitTest.class.getResourceAsStream("/com/aconex/index/sampleDict"));
+        phoneNumberConverter = new PhoneNumberConverter(wordIndex);
+        lookupServer = new LookupServer(phoneNumberConverter, new InetSocketAddress("localhost", 0), 4);
+        lookupServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        lookupServer.close();
+    }
+
+    private HttpURLConnection open(final String pathAndQuery) throws IOException {
+        final InetSocketAddress address = lookupServer.getAddress();
+        return (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), pathAndQuery).openConnection();
+    }
+
+    private static String read(final HttpURLConnection connection) throws IOException {
+        final InputStream inputStream = (connection.getResponseCode() < 400) ? connection.getInputStream() : connection.getErrorStream();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            body.write(buffer, 0, read);
+        }
+        inputStream.close();
+        return body.toString(Charset.defaultCharset().name());
+    }
+
+    private String post(final String path, final String body) throws IOException {
+        final HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream outputStream = connection.getOutputStream()) {
+            outputStream.write(body.getBytes(Charset.defaultCharset()));
+        }
+        Assert.assertEquals("Unexpected status for " + path, 200, connection.getResponseCode());
+        return read(connection);
+    }
+
+    @Test
+    public void testConstructionFailsWithoutConverter() throws IOException {
+        try {
+            new LookupServer(null, new InetSocketAddress(0), 1);
+            Assert.fail("An exception should have been thrown at construction as there wasn't a converter provided.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid IllegalArgumentException message", "Phone number converter cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLookupReturnsTheMatchesForANumber() throws IOException {
+        final HttpURLConnection connection = open(LookupServer.LOOKUP_PATH + "?number=1800-228");
+        Assert.assertEquals("Unexpected status", 200, connection.getResponseCode());
+        final String response = read(connection);
+        Assert.assertTrue("Response should have started with the number", response.startsWith("Processing phone number 1800-228." + LINE_SEPARATOR));
+        Assert.assertTrue("Response should have contained: 1-800-CAT", response.contains("1-800-CAT"));
+        Assert.assertTrue("Response should have contained: 1-800-BAT", response.contains("1-800-BAT"));
+    }
+
+    @Test
+    public void testLookupAgainstANamedDictionary() throws IOException {
+        final File brands = temporaryFolder.newFile("brands");
+        try (PrintStream output = new PrintStream(brands, "UTF-8")) {
+            output.println("acme");
+        }
+        phoneNumberConverter.getDictionaryRegistry().register("brands", brands);
+
+        final HttpURLConnection connection = open(LookupServer.LOOKUP_PATH + "?number=2263&dictionary=brands");
+        Assert.assertEquals("Unexpected status", 200, connection.getResponseCode());
+        Assert.assertTrue("Response should have contained: 1-800-ACME", read(connection).contains("1-800-ACME"));
+        Assert.assertTrue("Batch response should have contained: 1-800-ACME", post(LookupServer.BATCH_PATH + "?dictionary=brands", "2263\n").contains("1-800-ACME"));
+    }
+
+    @Test
+    public void testLookupAgainstAnUnknownDictionaryIsABadRequest() throws IOException {
+        final HttpURLConnection connection = open(LookupServer.LOOKUP_PATH + "?number=228&dictionary=missing");
+        Assert.assertEquals("Unexpected status", 400, connection.getResponseCode());
+        Assert.assertEquals("Unexpected response", "Unknown dictionary missing." + LINE_SEPARATOR, read(connection));
+    }
+
+    @Test
+    public void testLookupWithoutNumberIsABadRequest() throws IOException {
+        final HttpURLConnection connection = open(LookupServer.LOOKUP_PATH);
+        Assert.assertEquals("Unexpected status", 400, connection.getResponseCode());
+        Assert.assertEquals("Unexpected response", "A number must be provided." + LINE_SEPARATOR, read(connection));
+    }
+
+    @Test
+    public void testLookupOnlyAcceptsGet() throws IOException {
+        final HttpURLConnection connection = open(LookupServer.LOOKUP_PATH + "?number=228");
+        connection.setRequestMethod("DELETE");
+        Assert.assertEquals("Unexpected status", 405, connection.getResponseCode());
+    }
+
+    @Test
+    public void testBatchReturnsTheMatchesForEachNumberInOrder() throws IOException {
+        final String response = post(LookupServer.BATCH_PATH, "228\n\n1800-0\n4242\n");
+        final int cat = response.indexOf("1-800-CAT");
+        final int noMatches = response.indexOf("No options found.");
+        final int chimp = response.indexOf("Processing phone number 4242.");
+        Assert.assertTrue("Response should have contained the matches for each number in order: " + response, cat >= 0 && cat < noMatches && noMatches < chimp);
+        Assert.assertEquals("Blank lines should have been skipped", 3, response.split("Processing phone number").length - 1);
+    }
+
+    @Test
+    public void testBatchLargerThanTheLimitIsRefused() throws IOException {
+        final LookupServer smallServer = new LookupServer(phoneNumberConverter, new InetSocketAddress("localhost", 0), 1, 16);
+        smallServer.start();
+        try {
+            final InetSocketAddress address = smallServer.getAddress();
+            final HttpURLConnection atLimit = (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), LookupServer.BATCH_PATH).openConnection();
+            atLimit.setRequestMethod("POST");
+            atLimit.setDoOutput(true);
+            try (OutputStream outputStream = atLimit.getOutputStream()) {
+                outputStream.write("228\n228\n228\n228\n".getBytes(Charset.defaultCharset()));
+            }
+            Assert.assertEquals("A batch of exactly the limit should be accepted", 200, atLimit.getResponseCode());
+
+            for (final boolean chunked : new boolean[]{ false, true }) {
+                final HttpURLConnection connection = (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), LookupServer.BATCH_PATH).openConnection();
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                if (chunked) {
+                    //without a length the limit is only found while reading.
+                    connection.setChunkedStreamingMode(8);
+                }
+                try (OutputStream outputStream = connection.getOutputStream()) {
+                    outputStream.write("228\n228\n228\n228\n228\n".getBytes(Charset.defaultCharset()));
+                }
+                Assert.assertEquals("A batch over the limit should be refused, chunked " + chunked, 413, connection.getResponseCode());
+                Assert.assertEquals("Unexpected response, chunked " + chunked, "Batches can't be larger than 16 bytes." + LINE_SEPARATOR, read(connection));
+            }
+        } finally {
+            smallServer.close();
+        }
+    }
+
+    @Test
+    public void testFailureWhileMatchingIsAServerError() throws IOException {
+        final PhoneNumberConverter failingConverter = mock(PhoneNumberConverter.class);
+        when(failingConverter.findMatches(anyString(), anyString())).thenThrow(new IllegalStateException("broken"));
+        final LookupServer failingServer = new LookupServer(failingConverter, new InetSocketAddress("localhost", 0), 1);
+        failingServer.start();
+        try {
+            final InetSocketAddress address = failingServer.getAddress();
+            final HttpURLConnection connection = (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), LookupServer.LOOKUP_PATH + "?number=228").openConnection();
+            Assert.assertEquals("Unexpected status", 500, connection.getResponseCode());
+            Assert.assertEquals("Unexpected response", "The numbers couldn't be looked up." + LINE_SEPARATOR, read(connection));
+        } finally {
+            failingServer.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentLookupsGiveTheSameResponse() throws Exception {
+        final String expected = read(open(LookupServer.LOOKUP_PATH + "?number=228"));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                responses.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws IOException {
+                        return read(open(LookupServer.LOOKUP_PATH + "?number=228"));
+                    }
+                }));
+            }
+            for (final Future<String> response : responses) {
+                Assert.assertEquals("Every lookup should have the same response", expected, response.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetParameterDecodesTheValue() {
+        Assert.assertEquals("Unexpected value", "1800 228", LookupServer.getParameter("a=1&number=1800%20228", LookupServer.NUMBER_PARAMETER));
+        Assert.assertNull("Missing parameter should be null", LookupServer.getParameter("a=1", LookupServer.NUMBER_PARAMETER));
+        Assert.assertNull("Missing query should be null", LookupServer.getParameter(null, LookupServer.NUMBER_PARAMETER));
+    }
+}
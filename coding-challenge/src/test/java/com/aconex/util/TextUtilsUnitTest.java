@@ -1,5 +1,8 @@
 package com.aconex.util;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -30,11 +33,69 @@ public class TextUtilsUnitTest {
         Assert.assertEquals("Unexpected result for removing punctuation and whitespace.", null, TextUtils.stripRedundantCharacters(null));
     }
 
+    @Test
+    public void testValueIsReturnedAsItIsWhenThereIsNothingToStrip() {
+        final String testValue = "thisIsSomeText";
+        Assert.assertSame("A value without redundant characters shouldn't be copied.", testValue, TextUtils.stripRedundantCharacters(testValue));
+    }
+
+    @Test
+    public void testUnderscoresAndDigitsAreKeptWhenStrippingRedundantCharacters() {
+        Assert.assertEquals("Unexpected result for removing punctuation and whitespace.", "a_1b", TextUtils.stripRedundantCharacters("-a_1 b."));
+    }
+
+    @Test
+    public void testNormaliseNumberRemovesPunctuationAndPrefix() {
+        Assert.assertEquals("Unexpected normalised number.", "2255630", TextUtils.normaliseNumber(" 1800-225.563 0"));
+    }
+
+    @Test
+    public void testNormaliseNumberOnlyRemovesALeading1800() {
+        Assert.assertEquals("Unexpected normalised number.", "2181800", TextUtils.normaliseNumber("218-1800"));
+        Assert.assertEquals("Unexpected normalised number.", "1800", TextUtils.normaliseNumber("1800-1800"));
+    }
+
+    @Test
+    public void testNormaliseNumberReturnsNullWhenNothingIsLeft() {
+        Assert.assertNull("Only the prefix should normalise to null.", TextUtils.normaliseNumber("1-800"));
+        Assert.assertNull("Only punctuation should normalise to null.", TextUtils.normaliseNumber(" -.,"));
+        Assert.assertNull("Null should normalise to null.", TextUtils.normaliseNumber(null));
+    }
+
+    @Test
+    public void testNormaliseNumberReturnsNullForWordCharactersThatAreNotDigits() {
+        Assert.assertNull("Letters should normalise to null.", TextUtils.normaliseNumber("1800-CAT"));
+        Assert.assertNull("Underscores should normalise to null.", TextUtils.normaliseNumber("228_228"));
+    }
+
+    @Test
+    public void testNormalisingBytesIsTheSameAsNormalisingText() {
+        for (final String value : new String[]{ " 1800-225.563 0", "218-1800", "1800-1800", "1-800", " -.,", "1800-CAT", "228_228", "x228", "0" }) {
+            final ByteBuffer bytes = ByteBuffer.wrap(("#" + value + "#").getBytes(StandardCharsets.US_ASCII));
+            Assert.assertEquals("Unexpected normalised bytes of \"" + value + "\"", TextUtils.normaliseNumber(value), TextUtils.normaliseNumber(bytes, 1, value.length() + 1));
+        }
+    }
+
     @Test
     public void testJoinAs1800NumberJoinsWithDashesAndAddsPrefix() {
         Assert.assertEquals("Unexpected value from joining as 1800 number", "1-800-GOAT-COW", TextUtils.joinAs1800Number("GOAT", "COW"));
     }
 
+    @Test
+    public void testIsBlankAgreesWithTrim() {
+        for (final String line : new String[]{ "", " ", "\t\r", "\u000B\f\u0001", " 228 ", "\u00A0", "a" }) {
+            Assert.assertEquals("Unexpected blankness of \"" + line + "\"", line.trim().isEmpty(), TextUtils.isBlank(line));
+        }
+    }
+
+    @Test
+    public void testDigitAsStringGivesTheSameStringEachTime() {
+        for (char digit = '0'; digit <= '9'; digit++) {
+            Assert.assertEquals("Unexpected string for " + digit, String.valueOf(digit), TextUtils.digitAsString(digit));
+            Assert.assertSame("The same string should be given for " + digit, TextUtils.digitAsString(digit), TextUtils.digitAsString(digit));
+        }
+    }
+
     @Test
     public void testIsEmptyReturnsTrueForEmptyStringValue() {
         Assert.assertTrue("Should have returned true for a String without content.", TextUtils.isEmpty(""));